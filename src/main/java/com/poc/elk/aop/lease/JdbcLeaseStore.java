@@ -0,0 +1,146 @@
+package com.poc.elk.aop.lease;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Leases stored in the {@code jhi_scheduled_lease} table, one row per lease, shared by all the nodes.
+ * <p>
+ * A lease is acquired by moving its expiry date forward, only if it is past or if this node already owns the lease;
+ * the database serializes the nodes racing for it.
+ */
+public class JdbcLeaseStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String owner;
+
+    private final Clock clock;
+
+    public JdbcLeaseStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String owner, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Each statement commits on its own, whatever the transaction of the caller
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.owner = owner;
+        this.clock = clock;
+    }
+
+    /**
+     * Acquire a lease, unless another node holds it.
+     *
+     * @param name the name of the lease.
+     * @param atMostFor how long the lease lasts unless released.
+     * @return the lease, or empty if another node holds it.
+     */
+    public Optional<Lease> tryAcquire(String name, Duration atMostFor) {
+        Instant now = clock.instant();
+        insertIfAbsent(name, now);
+        return Optional.ofNullable(
+            transactionTemplate.execute(status -> {
+                int updated = jdbcTemplate.update(
+                    "update jhi_scheduled_lease set owner = ?, locked_until = ?, fencing_token = fencing_token + 1" +
+                    " where name = ? and (locked_until <= ? or owner = ?)",
+                    owner,
+                    Timestamp.from(now.plus(atMostFor)),
+                    name,
+                    Timestamp.from(now),
+                    owner
+                );
+                if (updated == 0) {
+                    return null;
+                }
+                Long fencingToken = jdbcTemplate.queryForObject(
+                    "select fencing_token from jhi_scheduled_lease where name = ?",
+                    Long.class,
+                    name
+                );
+                return new Lease(name, fencingToken, now);
+            })
+        );
+    }
+
+    /**
+     * Check that a lease is still held by this node, and has not expired.
+     *
+     * @param lease the lease.
+     * @return {@code true} if the lease is held.
+     */
+    public boolean isHeld(Lease lease) {
+        Integer count = transactionTemplate.execute(status ->
+            jdbcTemplate.queryForObject(
+                "select count(*) from jhi_scheduled_lease where name = ? and fencing_token = ? and locked_until > ?",
+                Integer.class,
+                lease.name(),
+                lease.fencingToken(),
+                Timestamp.from(clock.instant())
+            )
+        );
+        return count != null && count > 0;
+    }
+
+    /**
+     * Check that a lease is still held by this node, within the transaction of the caller, and lock it until that
+     * transaction ends: another node cannot take the lease over before the writes of the transaction are committed,
+     * which fences them with the lease.
+     *
+     * @param lease the lease.
+     * @return {@code true} if the lease is held, and now locked.
+     */
+    public boolean lockIfHeld(Lease lease) {
+        return !jdbcTemplate
+            .queryForList(
+                "select fencing_token from jhi_scheduled_lease where name = ? and fencing_token = ? and locked_until > ? for update",
+                Long.class,
+                lease.name(),
+                lease.fencingToken(),
+                Timestamp.from(clock.instant())
+            )
+            .isEmpty();
+    }
+
+    /**
+     * Release a lease, unless another node took it over in the meantime.
+     *
+     * @param lease the lease.
+     * @param atLeastFor how long the lease lasts at least since it was acquired.
+     */
+    public void release(Lease lease, Duration atLeastFor) {
+        Instant now = clock.instant();
+        Instant minimumEnd = lease.acquiredAt().plus(atLeastFor);
+        Instant lockedUntil = minimumEnd.isAfter(now) ? minimumEnd : now;
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update(
+                "update jhi_scheduled_lease set locked_until = ? where name = ? and fencing_token = ?",
+                Timestamp.from(lockedUntil),
+                lease.name(),
+                lease.fencingToken()
+            )
+        );
+    }
+
+    private void insertIfAbsent(String name, Instant now) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update(
+                    "insert into jhi_scheduled_lease (name, owner, locked_until, fencing_token) values (?, ?, ?, 0)",
+                    name,
+                    owner,
+                    Timestamp.from(now)
+                )
+            );
+        } catch (DuplicateKeyException e) {
+            // Created by a previous run, or by another node
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.poc.elk.aop.lease;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * A lease held by this node.
+ *
+ * @param name the name of the lease.
+ * @param fencingToken incremented every time the lease is acquired, by any node: a node whose lease expired while it
+ * was paused finds another token in the database.
+ * @param acquiredAt when the lease was acquired.
+ */
+public record Lease(String name, long fencingToken, Instant acquiredAt) {
+    private static final ThreadLocal<Lease> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return the lease of the {@link ScheduledLease} method running on the current thread, if any.
+     */
+    public static Optional<Lease> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    static void setCurrent(Lease lease) {
+        if (lease == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(lease);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.poc.elk.aop.lease;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Run a scheduled method on a single node per trigger: the nodes whose trigger fires while another node holds the
+ * lease skip the run.
+ * <p>
+ * The durations are in the ISO-8601 format of {@link java.time.Duration#parse(CharSequence)}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ScheduledLease {
+    /**
+     * @return the name of the lease, unique to the job.
+     */
+    String name();
+
+    /**
+     * @return how long the lease lasts if its node dies during the run, longer than any run.
+     */
+    String atMostFor() default "PT1H";
+
+    /**
+     * @return how long the lease lasts at least, longer than the clock skew between the nodes so that a quick run
+     * is not repeated by a node whose trigger fires late.
+     */
+    String atLeastFor() default "PT1M";
+}
@@ -0,0 +1,89 @@
+package com.poc.elk.aop.lease;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Aspect running the {@link ScheduledLease} methods only while this node holds their lease, outside of any
+ * transaction they start.
+ * <p>
+ * Runs skipped because another node, or another thread of this node, holds the lease are counted by the
+ * {@value #SKIPPED_METER_NAME} counter.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ScheduledLeaseAspect {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScheduledLeaseAspect.class);
+
+    public static final String ACQUIRED_METER_NAME = "scheduled.lease.acquired";
+    public static final String SKIPPED_METER_NAME = "scheduled.lease.skipped";
+    public static final String NAME_DIMENSION = "name";
+
+    private final JdbcLeaseStore leaseStore;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The store lets this node take its own lease again, the runs of this node are told apart here.
+     */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public ScheduledLeaseAspect(JdbcLeaseStore leaseStore, MeterRegistry meterRegistry) {
+        this.leaseStore = leaseStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Not bound as an argument: the aspect runs before the interceptor exposing the join point
+    @Around("@annotation(com.poc.elk.aop.lease.ScheduledLease)")
+    public Object runWithLease(ProceedingJoinPoint joinPoint) throws Throwable {
+        ScheduledLease scheduledLease = ((MethodSignature) joinPoint.getSignature()).getMethod().getAnnotation(ScheduledLease.class);
+        String name = scheduledLease.name();
+        if (!running.add(name)) {
+            skip(name, "it is already running on this node");
+            return null;
+        }
+        try {
+            Optional<Lease> lease = leaseStore.tryAcquire(name, Duration.parse(scheduledLease.atMostFor()));
+            if (lease.isEmpty()) {
+                skip(name, "another node holds its lease");
+                return null;
+            }
+            counter(ACQUIRED_METER_NAME, "Number of scheduled runs which acquired their lease", name).increment();
+            Lease previous = Lease.current().orElse(null);
+            Lease.setCurrent(lease.orElseThrow());
+            try {
+                return joinPoint.proceed();
+            } finally {
+                Lease.setCurrent(previous);
+                leaseStore.release(lease.orElseThrow(), Duration.parse(scheduledLease.atLeastFor()));
+            }
+        } finally {
+            running.remove(name);
+        }
+    }
+
+    private void skip(String name, String reason) {
+        LOG.debug("Skipping {}: {}", name, reason);
+        counter(SKIPPED_METER_NAME, "Number of scheduled runs skipped because their lease was held", name).increment();
+    }
+
+    private Counter counter(String meterName, String description, String name) {
+        return Counter.builder(meterName)
+            .description(description)
+            .tag(NAME_DIMENSION, name)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Leases running each {@link org.springframework.scheduling.annotation.Scheduled} job on a single node of the cluster.
+ */
+package com.poc.elk.aop.lease;
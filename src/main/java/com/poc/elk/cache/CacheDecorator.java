@@ -0,0 +1,13 @@
+package com.poc.elk.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * A cache adding a behavior to another cache, which stores the entries.
+ */
+public interface CacheDecorator extends Cache {
+    /**
+     * @return the decorated cache.
+     */
+    Cache getTargetCache();
+}
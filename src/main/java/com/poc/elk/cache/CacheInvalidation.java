@@ -0,0 +1,83 @@
+package com.poc.elk.cache;
+
+import java.util.List;
+
+/**
+ * A batch of evictions sent by a node to the others.
+ *
+ * @param origin the id of the sending node, which ignores its own messages.
+ * @param sentAt when the batch was sent, in milliseconds since the epoch.
+ * @param evictions the evictions.
+ */
+public record CacheInvalidation(String origin, long sentAt, List<Eviction> evictions) {
+    /**
+     * What to evict.
+     */
+    public enum Type {
+        /**
+         * A key of a Spring cache.
+         */
+        CACHE_KEY,
+        /**
+         * All the keys of a Spring cache.
+         */
+        CACHE_CLEAR,
+        /**
+         * An entity of a Hibernate second-level cache region, by id.
+         */
+        ENTITY,
+        /**
+         * A collection of a Hibernate second-level cache region, by id of its owner.
+         */
+        COLLECTION,
+        /**
+         * State held in memory outside of the caches, reloaded by the listener of its region.
+         */
+        REGION,
+    }
+
+    /**
+     * The types of the keys sent, the others are cleared with their whole cache.
+     */
+    public enum KeyType {
+        NONE,
+        STRING,
+        LONG,
+    }
+
+    /**
+     * @param type what to evict.
+     * @param region the name of the Spring cache, the entity or the collection role.
+     * @param key the key, as a string.
+     * @param keyType the type of the key.
+     */
+    public record Eviction(Type type, String region, String key, KeyType keyType) {
+        /**
+         * An eviction of a key, or of the whole region if the type of the key cannot be sent.
+         */
+        public static Eviction of(Type type, String region, Object key) {
+            if (key instanceof String string) {
+                return new Eviction(type, region, string, KeyType.STRING);
+            }
+            if (key instanceof Long || key instanceof Integer) {
+                return new Eviction(type, region, key.toString(), KeyType.LONG);
+            }
+            return clear(type == Type.CACHE_KEY ? Type.CACHE_CLEAR : type, region);
+        }
+
+        public static Eviction clear(Type type, String region) {
+            return new Eviction(type, region, null, KeyType.NONE);
+        }
+
+        /**
+         * @return the key, or {@code null} to evict the whole region.
+         */
+        public Object typedKey() {
+            return switch (keyType) {
+                case NONE -> null;
+                case STRING -> key;
+                case LONG -> Long.valueOf(key);
+            };
+        }
+    }
+}
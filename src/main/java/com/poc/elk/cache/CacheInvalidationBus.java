@@ -0,0 +1,264 @@
+package com.poc.elk.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Broadcasts the evictions of this node to the other nodes of the cluster, and applies theirs.
+ * <p>
+ * Evictions are batched: the first one schedules the sending of a message after {@code batchDelay}, which carries all
+ * the evictions published meanwhile. Received evictions are applied to the local caches directly, without being
+ * broadcast again. The time between the sending and the application of a message is tracked by the
+ * {@value #LAG_METER_NAME} timer, which includes the clock skew between the nodes.
+ */
+public class CacheInvalidationBus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String SENT_METER_NAME = "cache.invalidation.sent";
+    public static final String RECEIVED_METER_NAME = "cache.invalidation.received";
+    public static final String LAG_METER_NAME = "cache.invalidation.lag";
+    public static final String ERRORS_METER_NAME = "cache.invalidation.errors";
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final InvalidationTransport transport;
+
+    private final ObjectMapper objectMapper;
+
+    private final CacheManager cacheManager;
+
+    private final org.hibernate.Cache hibernateCache;
+
+    private final Duration batchDelay;
+
+    private final int maxBatchSize;
+
+    private final Clock clock;
+
+    private final Queue<Eviction> pending = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, Runnable> regionListeners = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService executor;
+
+    private final Counter sentCounter;
+
+    private final Counter receivedCounter;
+
+    private final Counter errorsCounter;
+
+    private final Timer lagTimer;
+
+    /**
+     * @param cacheManager the local caches, whose evictions are not broadcast.
+     * @param hibernateCache the local second-level cache of Hibernate, {@code null} if there is none.
+     */
+    public CacheInvalidationBus(
+        InvalidationTransport transport,
+        ObjectMapper objectMapper,
+        CacheManager cacheManager,
+        org.hibernate.Cache hibernateCache,
+        Duration batchDelay,
+        int maxBatchSize,
+        Clock clock,
+        MeterRegistry meterRegistry
+    ) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.hibernateCache = hibernateCache;
+        this.batchDelay = batchDelay;
+        this.maxBatchSize = maxBatchSize;
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sentCounter = Counter.builder(SENT_METER_NAME).description("Number of evictions sent to the other nodes").register(meterRegistry);
+        this.receivedCounter = Counter.builder(RECEIVED_METER_NAME)
+            .description("Number of evictions received from the other nodes")
+            .register(meterRegistry);
+        this.errorsCounter = Counter.builder(ERRORS_METER_NAME)
+            .description("Number of cache invalidation messages which could not be sent or received")
+            .register(meterRegistry);
+        this.lagTimer = Timer.builder(LAG_METER_NAME)
+            .description("Time between the sending of evictions by a node and their application by another")
+            .register(meterRegistry);
+    }
+
+    public void start() throws IOException {
+        transport.start(this::receive);
+    }
+
+    /**
+     * Send the pending evictions, then stop.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        flush();
+        transport.close();
+    }
+
+    /**
+     * Listen to the evictions of a {@link CacheInvalidation.Type#REGION region} by the other nodes.
+     *
+     * @param region the name of the region.
+     * @param listener invalidates the state of the region on this node.
+     */
+    public void subscribe(String region, Runnable listener) {
+        regionListeners.put(region, listener);
+    }
+
+    /**
+     * Evict an entry from the caches of the other nodes, soon.
+     *
+     * @param eviction the eviction.
+     */
+    public void publish(Eviction eviction) {
+        pending.add(eviction);
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::flush, batchDelay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Evict an entry from the caches of the other nodes, once the current transaction is committed if there is one:
+     * evicting it any sooner would let them cache the old state again.
+     *
+     * @param eviction the eviction.
+     */
+    public void publishAfterCommit(Eviction eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        publish(eviction);
+                    }
+                }
+            );
+        } else {
+            publish(eviction);
+        }
+    }
+
+    /**
+     * Send the pending evictions now.
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        List<Eviction> batch = new ArrayList<>();
+        Eviction eviction;
+        while ((eviction = pending.poll()) != null) {
+            batch.add(eviction);
+            if (batch.size() == maxBatchSize) {
+                send(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<Eviction> batch) {
+        try {
+            byte[] message = objectMapper.writeValueAsBytes(new CacheInvalidation(origin, clock.millis(), batch));
+            if (message.length > transport.maxMessageSize() && batch.size() > 1) {
+                send(batch.subList(0, batch.size() / 2));
+                send(batch.subList(batch.size() / 2, batch.size()));
+                return;
+            }
+            transport.send(message);
+            sentCounter.increment(batch.size());
+        } catch (IOException | RuntimeException e) {
+            errorsCounter.increment();
+            LOG.warn("Could not send {} cache evictions to the other nodes", batch.size(), e);
+        }
+    }
+
+    private void receive(byte[] message) {
+        try {
+            CacheInvalidation invalidation = objectMapper.readValue(message, CacheInvalidation.class);
+            if (origin.equals(invalidation.origin())) {
+                return;
+            }
+            invalidation.evictions().forEach(this::apply);
+            receivedCounter.increment(invalidation.evictions().size());
+            lagTimer.record(Math.max(0, clock.millis() - invalidation.sentAt()), TimeUnit.MILLISECONDS);
+        } catch (IOException | RuntimeException e) {
+            errorsCounter.increment();
+            LOG.warn("Could not apply cache evictions of another node", e);
+        }
+    }
+
+    private void apply(Eviction eviction) {
+        Object key = eviction.typedKey();
+        switch (eviction.type()) {
+            case CACHE_KEY, CACHE_CLEAR -> {
+                Cache cache = cacheManager.getCache(eviction.region());
+                if (cache == null) {
+                    return;
+                }
+                if (key == null) {
+                    cache.clear();
+                } else {
+                    cache.evictIfPresent(key);
+                }
+            }
+            case ENTITY -> {
+                if (hibernateCache == null) {
+                    return;
+                }
+                if (key == null) {
+                    hibernateCache.evictEntityData(eviction.region());
+                } else {
+                    hibernateCache.evictEntityData(eviction.region(), key);
+                }
+            }
+            case COLLECTION -> {
+                if (hibernateCache == null) {
+                    return;
+                }
+                if (key == null) {
+                    hibernateCache.evictCollectionData(eviction.region());
+                } else {
+                    hibernateCache.evictCollectionData(eviction.region(), key);
+                }
+            }
+            case REGION -> {
+                Runnable listener = regionListeners.get(eviction.region());
+                if (listener != null) {
+                    listener.run();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.poc.elk.cache;
+
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidation.Type;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+
+/**
+ * A cache whose evictions also evict the caches of the same name on the other nodes.
+ * <p>
+ * Puts stay local: the other nodes load the entries they need themselves. The evictions are applied to the local cache
+ * at once, and to the other nodes once the current transaction is committed, if there is one.
+ */
+public class ClusterCache implements CacheDecorator {
+
+    private final Cache target;
+
+    private final ObjectProvider<CacheInvalidationBus> bus;
+
+    public ClusterCache(Cache target, ObjectProvider<CacheInvalidationBus> bus) {
+        this.target = target;
+        this.bus = bus;
+    }
+
+    @Override
+    public Cache getTargetCache() {
+        return target;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return target.get(key, valueLoader);
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return target.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return target.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+        publish(Eviction.of(Type.CACHE_KEY, getName(), key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = target.evictIfPresent(key);
+        // The entry may still be cached on the other nodes
+        publish(Eviction.of(Type.CACHE_KEY, getName(), key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+        publish(Eviction.clear(Type.CACHE_CLEAR, getName()));
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = target.invalidate();
+        publish(Eviction.clear(Type.CACHE_CLEAR, getName()));
+        return invalidated;
+    }
+
+    private void publish(Eviction eviction) {
+        bus.ifAvailable(b -> b.publishAfterCommit(eviction));
+    }
+}
@@ -0,0 +1,50 @@
+package com.poc.elk.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Decorates the caches of a {@link CacheManager} as {@link ClusterCache cluster caches}.
+ */
+public class ClusterCacheManager implements CacheManager {
+
+    private final CacheManager target;
+
+    private final ObjectProvider<CacheInvalidationBus> bus;
+
+    private final Map<String, ClusterCache> caches = new ConcurrentHashMap<>();
+
+    public ClusterCacheManager(CacheManager target, ObjectProvider<CacheInvalidationBus> bus) {
+        this.target = target;
+        this.bus = bus;
+    }
+
+    /**
+     * @return the decorated cache manager, whose evictions are not broadcast.
+     */
+    public CacheManager getTargetCacheManager() {
+        return target;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        ClusterCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache targetCache = target.getCache(name);
+        if (targetCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new ClusterCache(targetCache, bus));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+}
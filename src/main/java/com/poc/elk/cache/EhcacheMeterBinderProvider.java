@@ -0,0 +1,29 @@
+package com.poc.elk.cache;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.jcache.JCacheCache;
+import org.springframework.core.Ordered;
+
+/**
+ * Binds {@link EhcacheMetrics} instead of the plain JCache metrics of Spring Boot, also for the
+ * {@link CacheDecorator decorated} JCache caches, which Spring Boot would otherwise skip.
+ */
+public class EhcacheMeterBinderProvider implements CacheMeterBinderProvider<Cache>, Ordered {
+
+    @Override
+    public MeterBinder getMeterBinder(Cache cache, Iterable<Tag> tags) {
+        Cache target = cache;
+        while (target instanceof CacheDecorator decorator) {
+            target = decorator.getTargetCache();
+        }
+        return target instanceof JCacheCache jCacheCache ? new EhcacheMetrics(jCacheCache.getNativeCache(), tags) : null;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,62 @@
+package com.poc.elk.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import java.util.concurrent.TimeUnit;
+import javax.cache.management.CacheStatisticsMXBean;
+
+/**
+ * The {@link JCacheMetrics} of an Ehcache cache, with its entries and the latency of its gets.
+ * <p>
+ * Meters:
+ * <ul>
+ *     <li>{@code cache.size}: the entries of the cache;</li>
+ *     <li>{@value #TIER_ENTRIES_METER_NAME}: the entries of each tier, tagged {@code tier};</li>
+ *     <li>{@value #GET_LATENCY_METER_NAME}: the average duration of the gets.</li>
+ * </ul>
+ */
+public class EhcacheMetrics extends JCacheMetrics<Object, Object, javax.cache.Cache<Object, Object>> {
+
+    public static final String TIER_ENTRIES_METER_NAME = "cache.tier.entries";
+    public static final String GET_LATENCY_METER_NAME = "cache.gets.latency";
+
+    public EhcacheMetrics(javax.cache.Cache<Object, Object> cache, Iterable<Tag> tags) {
+        super(cache, tags);
+    }
+
+    @Override
+    protected Long size() {
+        javax.cache.Cache<Object, Object> cache = getCache();
+        return cache != null ? EhcacheStatistics.entries(cache) : null;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        super.bindImplementationSpecificMetrics(registry);
+        javax.cache.Cache<Object, Object> cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        for (String tier : EhcacheStatistics.tierEntries(cache).keySet()) {
+            Gauge.builder(TIER_ENTRIES_METER_NAME, cache, c -> EhcacheStatistics.tierEntries(c).getOrDefault(tier, 0L))
+                .tags(Tags.concat(getTagsWithCacheName(), "tier", tier))
+                .description("The number of entries in a tier of the cache")
+                .register(registry);
+        }
+        Gauge.builder(GET_LATENCY_METER_NAME, cache, EhcacheMetrics::averageGetSeconds)
+            .tags(getTagsWithCacheName())
+            .description("The average duration of the gets of the cache")
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    private static double averageGetSeconds(javax.cache.Cache<Object, Object> cache) {
+        return EhcacheStatistics.jcacheStatistics(cache)
+            .map(CacheStatisticsMXBean::getAverageGetTime)
+            .map(micros -> micros / (double) TimeUnit.SECONDS.toMicros(1))
+            .orElse(Double.NaN);
+    }
+}
@@ -0,0 +1,149 @@
+package com.poc.elk.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.TierStatistics;
+
+/**
+ * Reads the statistics of the Ehcache caches behind JCache.
+ * <p>
+ * The hits, misses and latencies come from the JCache statistics MBean, only registered while the statistics of the
+ * cache are enabled. The entries of each tier come from Ehcache itself: JCache cannot count them without iterating the
+ * cache, which would count every entry as a hit. They are read from the {@link StatisticsService} of the cache manager,
+ * {@linkplain #register registered} when it is created.
+ */
+public final class EhcacheStatistics {
+
+    private static final MBeanServer MBEAN_SERVER = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * The Ehcache tiers, from the highest to the lowest.
+     */
+    private static final List<String> TIERS = List.of("OnHeap", "OffHeap", "Disk", "Clustered");
+
+    private static final Map<javax.cache.CacheManager, StatisticsServiceHolder> STATISTICS_SERVICES = Collections.synchronizedMap(
+        new WeakHashMap<>()
+    );
+
+    private EhcacheStatistics() {}
+
+    /**
+     * Registers the statistics service of a cache manager, if the holder was added to its services when it was created;
+     * a cache manager returned again by the caching provider keeps the holder it was created with.
+     *
+     * @param cacheManager the cache manager.
+     * @param statisticsServiceHolder the holder of its statistics service.
+     */
+    public static void register(javax.cache.CacheManager cacheManager, StatisticsServiceHolder statisticsServiceHolder) {
+        if (statisticsServiceHolder.statisticsService() != null) {
+            STATISTICS_SERVICES.put(cacheManager, statisticsServiceHolder);
+        }
+    }
+
+    /**
+     * @param cache the cache.
+     * @return the JCache statistics of the cache, if they are enabled.
+     */
+    public static Optional<CacheStatisticsMXBean> jcacheStatistics(javax.cache.Cache<?, ?> cache) {
+        ObjectName objectName = statisticsObjectName(cache);
+        if (objectName == null || !MBEAN_SERVER.isRegistered(objectName)) {
+            return Optional.empty();
+        }
+        return Optional.of(JMX.newMXBeanProxy(MBEAN_SERVER, objectName, CacheStatisticsMXBean.class));
+    }
+
+    /**
+     * @param cache the cache.
+     * @return the number of entries of each tier of the cache, from the highest to the lowest; empty if the cache is
+     *     not an Ehcache cache.
+     */
+    public static Map<String, Long> tierEntries(javax.cache.Cache<?, ?> cache) {
+        Map<String, Long> entries = new LinkedHashMap<>();
+        StatisticsService statisticsService = statisticsService(cache);
+        if (statisticsService == null || unwrap(cache) == null) {
+            return entries;
+        }
+        Map<String, TierStatistics> tierStatistics;
+        try {
+            tierStatistics = statisticsService.getCacheStatistics(cache.getName()).getTierStatistics();
+        } catch (IllegalArgumentException e) {
+            // Removed meanwhile
+            return entries;
+        }
+        tierStatistics
+            .entrySet()
+            .stream()
+            .sorted(Comparator.comparing(tier -> rank(tier.getKey())))
+            .forEach(tier -> entries.put(tier.getKey(), tier.getValue().getMappings()));
+        return entries;
+    }
+
+    /**
+     * @param cache the cache.
+     * @return the number of entries of the cache, held by its lowest tier; {@code null} if unknown.
+     */
+    public static Long entries(javax.cache.Cache<?, ?> cache) {
+        Long entries = null;
+        for (Long tierEntries : tierEntries(cache).values()) {
+            entries = tierEntries;
+        }
+        return entries;
+    }
+
+    /**
+     * @param cache the cache.
+     * @return the Ehcache cache behind the JCache cache, {@code null} if there is none.
+     */
+    public static org.ehcache.Cache<?, ?> unwrap(javax.cache.Cache<?, ?> cache) {
+        try {
+            return cache.unwrap(org.ehcache.Cache.class);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static StatisticsService statisticsService(javax.cache.Cache<?, ?> cache) {
+        if (cache.getCacheManager() == null) {
+            return null;
+        }
+        StatisticsServiceHolder holder = STATISTICS_SERVICES.get(cache.getCacheManager());
+        return holder != null ? holder.statisticsService() : null;
+    }
+
+    private static int rank(String tier) {
+        int rank = TIERS.indexOf(tier);
+        return rank >= 0 ? rank : TIERS.size();
+    }
+
+    private static ObjectName statisticsObjectName(javax.cache.Cache<?, ?> cache) {
+        if (cache.getCacheManager() == null) {
+            return null;
+        }
+        try {
+            return new ObjectName(
+                "javax.cache:type=CacheStatistics,CacheManager=" +
+                sanitize(cache.getCacheManager().getURI().toString()) +
+                ",Cache=" +
+                sanitize(cache.getName())
+            );
+        } catch (MalformedObjectNameException e) {
+            return null;
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[,:=\n]", ".");
+    }
+}
@@ -0,0 +1,94 @@
+package com.poc.elk.cache;
+
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidation.Type;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Publishes the evictions of the second-level cache regions of the updated and deleted entities and collections, once
+ * their transaction is committed: evicting them on the other nodes any sooner would let them cache the old state again.
+ * <p>
+ * Inserted entities are not published, no node can have cached them yet. The bulk updates and deletes of queries are
+ * not reported to the listeners: their callers publish the evictions with
+ * {@link CacheInvalidationBus#publishAfterCommit(CacheInvalidation.Eviction)}.
+ */
+public class HibernateInvalidationListener
+    implements
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener,
+        PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private final CacheInvalidationBus bus;
+
+    public HibernateInvalidationListener(CacheInvalidationBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publishEntity(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was changed
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publishEntity(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was changed
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        publishCollection(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        publishCollection(event);
+    }
+
+    private void publishEntity(EntityPersister persister, Object id) {
+        bus.publish(Eviction.of(Type.ENTITY, persister.getEntityName(), id));
+    }
+
+    private void publishCollection(AbstractCollectionEvent event) {
+        String role = event.getCollection().getRole();
+        Object ownerId = event.getAffectedOwnerIdOrNull();
+        CollectionPersister persister = event.getSession().getFactory().getMappingMetamodel().getCollectionDescriptor(role);
+        if (!persister.hasCache()) {
+            return;
+        }
+        Eviction eviction = ownerId != null ? Eviction.of(Type.COLLECTION, role, ownerId) : Eviction.clear(Type.COLLECTION, role);
+        event
+            .getSession()
+            .getActionQueue()
+            .registerProcess((success, session) -> {
+                if (success) {
+                    bus.publish(eviction);
+                }
+            });
+    }
+}
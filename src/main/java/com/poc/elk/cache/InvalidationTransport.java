@@ -0,0 +1,32 @@
+package com.poc.elk.cache;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries the {@link CacheInvalidation} messages between the nodes. Delivery is best effort: the caches expire anyway.
+ */
+public interface InvalidationTransport {
+    /**
+     * Start receiving the messages of the other nodes.
+     *
+     * @param receiver called with each message, on a thread of the transport.
+     * @throws IOException if the transport cannot be opened.
+     */
+    void start(Consumer<byte[]> receiver) throws IOException;
+
+    /**
+     * Send a message to the other nodes.
+     *
+     * @param message the message.
+     * @throws IOException if the message cannot be sent.
+     */
+    void send(byte[] message) throws IOException;
+
+    /**
+     * @return the size of the largest message which can be sent.
+     */
+    int maxMessageSize();
+
+    void close();
+}
@@ -0,0 +1,52 @@
+package com.poc.elk.cache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Transport between the nodes running in the same JVM on the same channel, for the tests.
+ * <p>
+ * Messages are delivered synchronously, on the sending thread.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+    private static final Map<String, Set<LoopbackTransport>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+
+    private volatile Consumer<byte[]> receiver;
+
+    public LoopbackTransport(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        for (LoopbackTransport peer : CHANNELS.getOrDefault(channel, Set.of())) {
+            if (peer != this) {
+                peer.receiver.accept(message);
+            }
+        }
+    }
+
+    @Override
+    public int maxMessageSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void close() {
+        CHANNELS.computeIfPresent(channel, (c, peers) -> {
+            peers.remove(this);
+            return peers.isEmpty() ? null : peers;
+        });
+    }
+}
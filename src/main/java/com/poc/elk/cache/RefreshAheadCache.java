@@ -0,0 +1,230 @@
+package com.poc.elk.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.jcache.JCacheCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A cache refreshing its entries ahead of their expiry: once an entry is due for refresh, the gets keep returning it
+ * while a single background reload replaces it.
+ * <p>
+ * The popular entries are thus reloaded before they expire, instead of all the requests using one missing the cache
+ * at once. Each entry is stored with the time it is due for refresh, shortened by a random jitter so that the entries
+ * put together are not reloaded together.
+ * <p>
+ * A reload only replaces the entry it refreshes: an entry evicted or replaced in the meantime is left alone, so that a
+ * reload racing with an update never restores a stale value. A failed reload keeps the entry until it expires.
+ * <p>
+ * Meters, tagged {@code cache}:
+ * <ul>
+ *     <li>{@value #REFRESHES_METER_NAME}: the reloads, tagged {@code result} ({@code success} or {@code failure});</li>
+ *     <li>{@value #STALE_METER_NAME}: the gets returning an entry due for refresh.</li>
+ * </ul>
+ */
+public class RefreshAheadCache implements CacheDecorator {
+
+    public static final String REFRESHES_METER_NAME = "cache.refresh-ahead.refreshes";
+    public static final String STALE_METER_NAME = "cache.refresh-ahead.stale";
+
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    private final JCacheCache target;
+
+    private final Function<Object, Object> loader;
+
+    private final Duration refreshAfter;
+
+    private final double jitter;
+
+    private final Executor executor;
+
+    private final Clock clock;
+
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter successCounter;
+
+    private final Counter failureCounter;
+
+    private final Counter staleCounter;
+
+    /**
+     * @param target the cache storing the entries.
+     * @param loader the function loading the value of a key; it must not go through this cache.
+     * @param refreshAfter the age after which an entry is due for refresh.
+     * @param jitter the fraction of {@code refreshAfter} randomly taken off each entry.
+     * @param executor the executor of the reloads.
+     * @param clock the clock.
+     * @param registry the meter registry.
+     */
+    public RefreshAheadCache(
+        JCacheCache target,
+        Function<Object, Object> loader,
+        Duration refreshAfter,
+        double jitter,
+        Executor executor,
+        Clock clock,
+        MeterRegistry registry
+    ) {
+        this.target = target;
+        this.loader = loader;
+        this.refreshAfter = refreshAfter;
+        this.jitter = jitter;
+        this.executor = executor;
+        this.clock = clock;
+        this.successCounter = refreshesCounter("success", registry);
+        this.failureCounter = refreshesCounter("failure", registry);
+        this.staleCounter = Counter.builder(STALE_METER_NAME)
+            .description("Number of gets returning an entry due for refresh, while it is reloaded")
+            .tag("cache", target.getName())
+            .register(registry);
+    }
+
+    private Counter refreshesCounter(String result, MeterRegistry registry) {
+        return Counter.builder(REFRESHES_METER_NAME)
+            .description("Number of entries reloaded ahead of their expiry")
+            .tags("cache", target.getName(), "result", result)
+            .register(registry);
+    }
+
+    @Override
+    public Cache getTargetCache() {
+        return target;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = target.get(key);
+        if (wrapper == null || !(wrapper.get() instanceof Stamped stamped)) {
+            return wrapper;
+        }
+        if (clock.millis() >= stamped.refreshAt()) {
+            staleCounter.increment();
+            refresh(key, stamped);
+        }
+        return new SimpleValueWrapper(stamped.value());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        return (T) unstamp(target.get(key, () -> stamp(valueLoader.call())));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, stamp(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = target.putIfAbsent(key, stamp(value));
+        return existing != null ? new SimpleValueWrapper(unstamp(existing.get())) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+
+    private void refresh(Object key, Stamped stale) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> reload(key, stale));
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            LOG.debug("Refresh of an entry of cache {} rejected, the next get will retry it", getName());
+        }
+    }
+
+    private void reload(Object key, Stamped stale) {
+        try {
+            Object value = loader.apply(key);
+            javax.cache.Cache<Object, Object> nativeCache = target.getNativeCache();
+            boolean replaced = value != null ? nativeCache.replace(key, stale, stamp(value)) : nativeCache.remove(key, stale);
+            successCounter.increment();
+            LOG.debug("Refreshed an entry of cache {}, {}", getName(), replaced ? "replaced" : "changed in the meantime");
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            LOG.warn("Could not refresh an entry of cache {}: {}", getName(), e.getMessage());
+        } finally {
+            refreshing.remove(key);
+        }
+    }
+
+    private Stamped stamp(Object value) {
+        if (value == null) {
+            return null;
+        }
+        long delay = refreshAfter.toMillis();
+        return new Stamped(value, clock.millis() + delay - (long) (delay * jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static Object unstamp(Object value) {
+        return value instanceof Stamped stamped ? stamped.value() : value;
+    }
+
+    /**
+     * An entry, with the time it is due for refresh; serializable for the off-heap and disk tiers.
+     *
+     * @param value the value.
+     * @param refreshAt the epoch millisecond after which the entry is due for refresh.
+     */
+    record Stamped(Object value, long refreshAt) implements Serializable {}
+}
@@ -0,0 +1,35 @@
+package com.poc.elk.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Decorates some caches of a {@link CacheManager} as {@link RefreshAheadCache refresh-ahead caches}; the other caches
+ * are returned as they are.
+ */
+public class RefreshAheadCacheManager implements CacheManager {
+
+    private final CacheManager target;
+
+    private final Map<String, RefreshAheadCache> caches;
+
+    public RefreshAheadCacheManager(CacheManager target, Collection<RefreshAheadCache> caches) {
+        this.target = target;
+        this.caches = caches.stream().collect(Collectors.toUnmodifiableMap(Cache::getName, Function.identity()));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        RefreshAheadCache cache = caches.get(name);
+        return cache != null ? cache : target.getCache(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+}
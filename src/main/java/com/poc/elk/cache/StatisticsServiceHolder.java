@@ -0,0 +1,68 @@
+package com.poc.elk.cache;
+
+import org.ehcache.core.spi.service.ServiceFactory;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+import org.ehcache.spi.service.ServiceDependencies;
+import org.ehcache.spi.service.ServiceProvider;
+
+/**
+ * Holds the {@link StatisticsService} of an Ehcache cache manager, which JCache does not expose.
+ * <p>
+ * Added to the services of the cache manager with its {@link #configuration()}: once the cache manager is initialized,
+ * {@link #statisticsService()} is its statistics service.
+ */
+@ServiceDependencies(StatisticsService.class)
+public class StatisticsServiceHolder implements Service {
+
+    private volatile StatisticsService statisticsService;
+
+    /**
+     * @return the configuration that adds this holder to the services of a cache manager.
+     */
+    public ServiceCreationConfiguration<StatisticsServiceHolder, Void> configuration() {
+        return new Configuration(this);
+    }
+
+    /**
+     * @return the statistics service of the cache manager, {@code null} if it is not running.
+     */
+    public StatisticsService statisticsService() {
+        return statisticsService;
+    }
+
+    @Override
+    public void start(ServiceProvider<Service> serviceProvider) {
+        statisticsService = serviceProvider.getService(StatisticsService.class);
+    }
+
+    @Override
+    public void stop() {
+        statisticsService = null;
+    }
+
+    private record Configuration(StatisticsServiceHolder holder) implements ServiceCreationConfiguration<StatisticsServiceHolder, Void> {
+        @Override
+        public Class<StatisticsServiceHolder> getServiceType() {
+            return StatisticsServiceHolder.class;
+        }
+    }
+
+    /**
+     * Registered in {@code META-INF/services}, so that Ehcache creates the holder of a {@link #configuration()}.
+     */
+    @ServiceFactory.RequiresConfiguration
+    public static class Factory implements ServiceFactory<StatisticsServiceHolder> {
+
+        @Override
+        public StatisticsServiceHolder create(ServiceCreationConfiguration<StatisticsServiceHolder, ?> configuration) {
+            return ((Configuration) configuration).holder();
+        }
+
+        @Override
+        public Class<? extends StatisticsServiceHolder> getServiceType() {
+            return StatisticsServiceHolder.class;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.poc.elk.cache;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transport over UDP multicast, for the nodes of a network where multicast is routed.
+ * <p>
+ * Each message is a single datagram; lost datagrams are not sent again.
+ */
+public class UdpMulticastTransport implements InvalidationTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UdpMulticastTransport.class);
+
+    private static final int MAX_DATAGRAM_SIZE = 65_507;
+
+    private final InetSocketAddress group;
+
+    private final NetworkInterface networkInterface;
+
+    private final int timeToLive;
+
+    private MulticastSocket socket;
+
+    private Thread receiverThread;
+
+    public UdpMulticastTransport(String group, int port, String networkInterface, int timeToLive) throws IOException {
+        this.group = new InetSocketAddress(InetAddress.getByName(group), port);
+        this.networkInterface = networkInterface != null ? NetworkInterface.getByName(networkInterface) : null;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) throws IOException {
+        socket = new MulticastSocket(group.getPort());
+        socket.setTimeToLive(timeToLive);
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.joinGroup(group, networkInterface);
+        receiverThread = new Thread(() -> receive(receiver), "cache-invalidation-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    private void receive(Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                receiver.accept(Arrays.copyOfRange(packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength()));
+            } catch (SocketException e) {
+                // Closed
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not receive a cache invalidation", e);
+            }
+        }
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException {
+        socket.send(new DatagramPacket(message, message.length, group));
+    }
+
+    @Override
+    public int maxMessageSize() {
+        return MAX_DATAGRAM_SIZE;
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) {
+            socket.close();
+        }
+    }
+}
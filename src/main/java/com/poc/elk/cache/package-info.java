@@ -0,0 +1,5 @@
+/**
+ * Caching infrastructure: statistics of the Ehcache caches, refresh of the hot entries ahead of their expiry, and
+ * invalidation of the caches of the other nodes of the cluster.
+ */
+package com.poc.elk.cache;
@@ -1,6 +1,13 @@
 package com.poc.elk.config;
 
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Elk POC.
@@ -13,12 +20,42 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Search search = new Search();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Security security = new Security();
+
+    private final Cache cache = new Cache();
+
+    private final Logging logging = new Logging();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Search getSearch() {
+        return search;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Logging getLogging() {
+        return logging;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +70,620 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    public static class Search {
+
+        /**
+         * Read by the {@code @Scheduled} placeholder of the rebuild, so it is set in {@code application.yml} only.
+         */
+        private String rebuildCron;
+
+        private int rebuildChunkSize = 1000;
+
+        public String getRebuildCron() {
+            return rebuildCron;
+        }
+
+        public void setRebuildCron(String rebuildCron) {
+            this.rebuildCron = rebuildCron;
+        }
+
+        public int getRebuildChunkSize() {
+            return rebuildChunkSize;
+        }
+
+        public void setRebuildChunkSize(int rebuildChunkSize) {
+            this.rebuildChunkSize = rebuildChunkSize;
+        }
+    }
+
+    public static class Idempotency {
+
+        public enum Store {
+            MEMORY,
+            JDBC,
+        }
+
+        private Store store = Store.MEMORY;
+
+        private List<String> paths = new ArrayList<>(List.of("/api/test-entities", "/api/register"));
+
+        private Duration timeToLive = Duration.ofHours(24);
+
+        private int maxEntries = 10000;
+
+        /**
+         * How long a duplicate waits for the request in progress, before it is rejected.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(10);
+
+        private Duration lockTimeout = Duration.ofMinutes(1);
+
+        public Store getStore() {
+            return store;
+        }
+
+        public void setStore(Store store) {
+            this.store = store;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        public Duration getLockTimeout() {
+            return lockTimeout;
+        }
+
+        public void setLockTimeout(Duration lockTimeout) {
+            this.lockTimeout = lockTimeout;
+        }
+    }
+
+    public static class Security {
+
+        private int jwtCacheMaxEntries = 10000;
+
+        private Duration unknownUsersTimeToLive = Duration.ofMinutes(1);
+
+        private int unknownUsersMaxEntries = 10000;
+
+        private final PasswordHashing passwordHashing = new PasswordHashing();
+
+        public int getJwtCacheMaxEntries() {
+            return jwtCacheMaxEntries;
+        }
+
+        public void setJwtCacheMaxEntries(int jwtCacheMaxEntries) {
+            this.jwtCacheMaxEntries = jwtCacheMaxEntries;
+        }
+
+        public Duration getUnknownUsersTimeToLive() {
+            return unknownUsersTimeToLive;
+        }
+
+        public void setUnknownUsersTimeToLive(Duration unknownUsersTimeToLive) {
+            this.unknownUsersTimeToLive = unknownUsersTimeToLive;
+        }
+
+        public int getUnknownUsersMaxEntries() {
+            return unknownUsersMaxEntries;
+        }
+
+        public void setUnknownUsersMaxEntries(int unknownUsersMaxEntries) {
+            this.unknownUsersMaxEntries = unknownUsersMaxEntries;
+        }
+
+        public PasswordHashing getPasswordHashing() {
+            return passwordHashing;
+        }
+
+        public static class PasswordHashing {
+
+            /**
+             * 0 for one thread per CPU.
+             */
+            private int threads = 0;
+
+            private int queueCapacity = 64;
+
+            private Duration retryAfter = Duration.ofSeconds(1);
+
+            private Duration targetHashTime = Duration.ofMillis(100);
+
+            private int minStrength = 10;
+
+            private int maxStrength = 16;
+
+            public int getThreads() {
+                return threads;
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public Duration getRetryAfter() {
+                return retryAfter;
+            }
+
+            public void setRetryAfter(Duration retryAfter) {
+                this.retryAfter = retryAfter;
+            }
+
+            public Duration getTargetHashTime() {
+                return targetHashTime;
+            }
+
+            public void setTargetHashTime(Duration targetHashTime) {
+                this.targetHashTime = targetHashTime;
+            }
+
+            public int getMinStrength() {
+                return minStrength;
+            }
+
+            public void setMinStrength(int minStrength) {
+                this.minStrength = minStrength;
+            }
+
+            public int getMaxStrength() {
+                return maxStrength;
+            }
+
+            public void setMaxStrength(int maxStrength) {
+                this.maxStrength = maxStrength;
+            }
+        }
+    }
+
+    public static class Cache {
+
+        private final Invalidation invalidation = new Invalidation();
+
+        /**
+         * Sizing of the caches, by cache name; the others use {@code jhipster.cache.ehcache}.
+         */
+        private final Map<String, Sizing> caches = new LinkedHashMap<>();
+
+        /**
+         * Directory of the disk tiers, which must not be shared by two nodes.
+         */
+        private String diskDirectory = System.getProperty("java.io.tmpdir") + File.separator + "elkPOC-cache";
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        public Map<String, Sizing> getCaches() {
+            return caches;
+        }
+
+        public String getDiskDirectory() {
+            return diskDirectory;
+        }
+
+        public void setDiskDirectory(String diskDirectory) {
+            this.diskDirectory = diskDirectory;
+        }
+
+        public static class Sizing {
+
+            /**
+             * Entries on heap, {@code null} for {@code jhipster.cache.ehcache.max-entries}.
+             */
+            private Long heapEntries;
+
+            /**
+             * Off-heap tier, {@code null} for none; bounded by {@code -XX:MaxDirectMemorySize}.
+             */
+            private DataSize offHeap;
+
+            /**
+             * Disk tier, larger than the off-heap tier, {@code null} for none.
+             */
+            private DataSize disk;
+
+            /**
+             * Time to live, {@code null} for {@code jhipster.cache.ehcache.time-to-live-seconds}.
+             */
+            private Duration timeToLive;
+
+            /**
+             * Time to idle, which replaces the time to live when set: each read or write postpones the expiry.
+             */
+            private Duration timeToIdle;
+
+            /**
+             * Fraction of the time to live randomly taken off each entry, so that the entries put together do not
+             * expire together; {@code null} for {@code 0.1}.
+             */
+            private Double timeToLiveJitter;
+
+            /**
+             * Fraction of the time to live after which a get reloads the entry in the background, while still
+             * returning it; {@code null} for the default of the cache. Only the user caches can be refreshed ahead.
+             */
+            private Double refreshAhead;
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public DataSize getOffHeap() {
+                return offHeap;
+            }
+
+            public void setOffHeap(DataSize offHeap) {
+                this.offHeap = offHeap;
+            }
+
+            public DataSize getDisk() {
+                return disk;
+            }
+
+            public void setDisk(DataSize disk) {
+                this.disk = disk;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getTimeToIdle() {
+                return timeToIdle;
+            }
+
+            public void setTimeToIdle(Duration timeToIdle) {
+                this.timeToIdle = timeToIdle;
+            }
+
+            public Double getTimeToLiveJitter() {
+                return timeToLiveJitter;
+            }
+
+            public void setTimeToLiveJitter(Double timeToLiveJitter) {
+                this.timeToLiveJitter = timeToLiveJitter;
+            }
+
+            public Double getRefreshAhead() {
+                return refreshAhead;
+            }
+
+            public void setRefreshAhead(Double refreshAhead) {
+                this.refreshAhead = refreshAhead;
+            }
+        }
+
+        public static class Invalidation {
+
+            public enum Transport {
+                NONE,
+                LOOPBACK,
+                UDP,
+            }
+
+            private Transport transport = Transport.NONE;
+
+            private String channel = "elkPOC";
+
+            private String group = "239.255.27.1";
+
+            private int port = 45588;
+
+            private String networkInterface;
+
+            private int timeToLive = 1;
+
+            private Duration batchDelay = Duration.ofMillis(10);
+
+            private int maxBatchSize = 128;
+
+            public Transport getTransport() {
+                return transport;
+            }
+
+            public void setTransport(Transport transport) {
+                this.transport = transport;
+            }
+
+            public String getChannel() {
+                return channel;
+            }
+
+            public void setChannel(String channel) {
+                this.channel = channel;
+            }
+
+            public String getGroup() {
+                return group;
+            }
+
+            public void setGroup(String group) {
+                this.group = group;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public String getNetworkInterface() {
+                return networkInterface;
+            }
+
+            public void setNetworkInterface(String networkInterface) {
+                this.networkInterface = networkInterface;
+            }
+
+            public int getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(int timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getBatchDelay() {
+                return batchDelay;
+            }
+
+            public void setBatchDelay(Duration batchDelay) {
+                this.batchDelay = batchDelay;
+            }
+
+            public int getMaxBatchSize() {
+                return maxBatchSize;
+            }
+
+            public void setMaxBatchSize(int maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+            }
+        }
+    }
+
+    public static class Logging {
+
+        private final Logstash logstash = new Logstash();
+
+        private final Elasticsearch elasticsearch = new Elasticsearch();
+
+        public Logstash getLogstash() {
+            return logstash;
+        }
+
+        public Elasticsearch getElasticsearch() {
+            return elasticsearch;
+        }
+
+        /**
+         * Transport of the logs to Logstash, when {@code jhipster.logging.logstash.enabled}.
+         */
+        public static class Logstash {
+
+            public enum Transport {
+                TCP,
+                UDP,
+            }
+
+            private Transport transport = Transport.TCP;
+
+            /**
+             * Largest UDP datagram, packing as many events as fit: the MTU minus the IP and UDP headers.
+             */
+            private DataSize maxDatagramSize = DataSize.ofBytes(1472);
+
+            public Transport getTransport() {
+                return transport;
+            }
+
+            public void setTransport(Transport transport) {
+                this.transport = transport;
+            }
+
+            public DataSize getMaxDatagramSize() {
+                return maxDatagramSize;
+            }
+
+            public void setMaxDatagramSize(DataSize maxDatagramSize) {
+                this.maxDatagramSize = maxDatagramSize;
+            }
+        }
+
+        /**
+         * Indexing of the logs straight into Elasticsearch, without Logstash.
+         */
+        public static class Elasticsearch {
+
+            private boolean enabled = false;
+
+            private String url = "http://localhost:9200";
+
+            private String username;
+
+            private String password;
+
+            /**
+             * Prefix of the daily indices, like those of the bundled Logstash pipeline.
+             */
+            private String index = "jhipster-logs";
+
+            /**
+             * Events waiting to be indexed, beyond which they are dropped.
+             */
+            private int queueSize = 8192;
+
+            /**
+             * Size of a batch before compression, beyond which it is posted.
+             */
+            private DataSize maxBatchSize = DataSize.ofMegabytes(1);
+
+            /**
+             * Age of a batch beyond which it is posted.
+             */
+            private Duration maxBatchAge = Duration.ofSeconds(1);
+
+            private Duration requestTimeout = Duration.ofSeconds(10);
+
+            /**
+             * Directory of the batches spooled while Elasticsearch is unreachable, which must not be shared by two nodes.
+             */
+            private String spoolDirectory = System.getProperty("java.io.tmpdir") + File.separator + "elkPOC-log-spool";
+
+            /**
+             * Size of a spool segment file, larger than a compressed batch.
+             */
+            private DataSize spoolSegmentSize = DataSize.ofMegabytes(16);
+
+            /**
+             * Size of the spool, beyond which the batches are dropped.
+             */
+            private DataSize spoolMaxSize = DataSize.ofMegabytes(256);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+
+            public String getIndex() {
+                return index;
+            }
+
+            public void setIndex(String index) {
+                this.index = index;
+            }
+
+            public int getQueueSize() {
+                return queueSize;
+            }
+
+            public void setQueueSize(int queueSize) {
+                this.queueSize = queueSize;
+            }
+
+            public DataSize getMaxBatchSize() {
+                return maxBatchSize;
+            }
+
+            public void setMaxBatchSize(DataSize maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+            }
+
+            public Duration getMaxBatchAge() {
+                return maxBatchAge;
+            }
+
+            public void setMaxBatchAge(Duration maxBatchAge) {
+                this.maxBatchAge = maxBatchAge;
+            }
+
+            public Duration getRequestTimeout() {
+                return requestTimeout;
+            }
+
+            public void setRequestTimeout(Duration requestTimeout) {
+                this.requestTimeout = requestTimeout;
+            }
+
+            public String getSpoolDirectory() {
+                return spoolDirectory;
+            }
+
+            public void setSpoolDirectory(String spoolDirectory) {
+                this.spoolDirectory = spoolDirectory;
+            }
+
+            public DataSize getSpoolSegmentSize() {
+                return spoolSegmentSize;
+            }
+
+            public void setSpoolSegmentSize(DataSize spoolSegmentSize) {
+                this.spoolSegmentSize = spoolSegmentSize;
+            }
+
+            public DataSize getSpoolMaxSize() {
+                return spoolMaxSize;
+            }
+
+            public void setSpoolMaxSize(DataSize spoolMaxSize) {
+                this.spoolMaxSize = spoolMaxSize;
+            }
+        }
+
+    }
     // jhipster-needle-application-properties-property-class
 }
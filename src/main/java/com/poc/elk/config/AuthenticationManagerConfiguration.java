@@ -0,0 +1,53 @@
+package com.poc.elk.config;
+
+import com.poc.elk.cache.CacheInvalidationBus;
+import com.poc.elk.repository.UserRepository;
+import com.poc.elk.security.LoginAuthenticationManager;
+import com.poc.elk.security.PasswordHashingExecutor;
+import com.poc.elk.security.PrincipalSnapshotCache;
+import com.poc.elk.security.RehashingAuthenticationProvider;
+import java.util.concurrent.Executor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Configuration of the {@link AuthenticationManager} of the username/password login, a {@link LoginAuthenticationManager}
+ * so that the login can be checked asynchronously.
+ * <p>
+ * Its {@link RehashingAuthenticationProvider} is wired explicitly rather than published as a bean, so the global
+ * authentication manager that Spring Security builds from the beans keeps its defaults.
+ */
+@Configuration
+public class AuthenticationManagerConfiguration {
+
+    @Bean
+    public LoginAuthenticationManager authenticationManager(
+        UserDetailsService userDetailsService,
+        PasswordEncoder passwordEncoder,
+        PasswordHashingExecutor passwordHashingExecutor,
+        UserRepository userRepository,
+        CacheManager cacheManager,
+        PrincipalSnapshotCache principalSnapshotCache,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ObjectProvider<CacheInvalidationBus> cacheInvalidationBus
+    ) {
+        return new LoginAuthenticationManager(
+            new RehashingAuthenticationProvider(
+                userDetailsService,
+                passwordEncoder,
+                passwordHashingExecutor,
+                userRepository,
+                cacheManager,
+                principalSnapshotCache,
+                taskExecutor,
+                cacheInvalidationBus
+            )
+        );
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 import org.springframework.boot.ansi.AnsiColor;
@@ -16,6 +17,9 @@ import org.springframework.boot.ansi.AnsiStyle;
 /**
  * Log filter to prevent attackers from forging log entries by submitting input containing CRLF characters.
  * CRLF characters are replaced with a red colored _ character.
+ * <p>
+ * It runs for every message, so the message is only copied when it has characters to replace, and whether a logger
+ * is safe is decided once per logger.
  *
  * @see <a href="https://owasp.org/www-community/attacks/Log_Injection">Log Forging Description</a>
  * @see <a href="https://github.com/jhipster/generator-jhipster/issues/14949">JHipster issue</a>
@@ -43,20 +47,61 @@ public class CRLFLogConverter extends CompositeConverter<ILoggingEvent> {
         ELEMENTS = Collections.unmodifiableMap(ansiElements);
     }
 
+    private final Map<String, Boolean> safeLoggers = new ConcurrentHashMap<>();
+
     @Override
     protected String transform(ILoggingEvent event, String in) {
-        AnsiElement element = ELEMENTS.get(getFirstOption());
+        // Most messages have nothing to replace: they are returned as is, without any allocation
+        int unsafe = indexOfUnsafeChar(in);
+        if (unsafe < 0) {
+            return in;
+        }
         List<Marker> markers = event.getMarkerList();
         if ((markers != null && !markers.isEmpty() && markers.get(0).contains(CRLF_SAFE_MARKER)) || isLoggerSafe(event)) {
             return in;
         }
+        AnsiElement element = ELEMENTS.get(getFirstOption());
         String replacement = element == null ? "_" : toAnsiString("_", element);
-        return in.replaceAll("[\n\r\t]", replacement);
+        StringBuilder sanitized = new StringBuilder(in.length() + replacement.length());
+        sanitized.append(in, 0, unsafe);
+        for (int i = unsafe; i < in.length(); i++) {
+            char c = in.charAt(i);
+            if (isUnsafe(c)) {
+                sanitized.append(replacement);
+            } else {
+                sanitized.append(c);
+            }
+        }
+        return sanitized.toString();
+    }
+
+    private static int indexOfUnsafeChar(String in) {
+        for (int i = 0; i < in.length(); i++) {
+            if (isUnsafe(in.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isUnsafe(char c) {
+        return c == '\n' || c == '\r' || c == '\t';
     }
 
     protected boolean isLoggerSafe(ILoggingEvent event) {
+        // Bounded by the number of loggers, like the cache of the logger context itself
+        String loggerName = event.getLoggerName();
+        Boolean safe = safeLoggers.get(loggerName);
+        if (safe == null) {
+            safe = startsWithSafeLog(loggerName);
+            safeLoggers.putIfAbsent(loggerName, safe);
+        }
+        return safe;
+    }
+
+    private static boolean startsWithSafeLog(String loggerName) {
         for (String safeLogger : SAFE_LOGS) {
-            if (event.getLoggerName().startsWith(safeLogger)) {
+            if (loggerName.startsWith(safeLogger)) {
                 return true;
             }
         }
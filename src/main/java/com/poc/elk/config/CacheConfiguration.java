@@ -1,17 +1,56 @@
 package com.poc.elk.config;
 
+import com.poc.elk.cache.EhcacheMeterBinderProvider;
+import com.poc.elk.cache.EhcacheStatistics;
+import com.poc.elk.cache.RefreshAheadCache;
+import com.poc.elk.cache.RefreshAheadCacheManager;
+import com.poc.elk.cache.StatisticsServiceHolder;
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.management.SingleFlight;
+import com.poc.elk.repository.UserRepository;
+import com.poc.elk.security.PrincipalSnapshot;
+import com.poc.elk.security.PrincipalSnapshotCache;
+import com.poc.elk.security.UnknownUsersCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.File;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.cache.Caching;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.impl.config.persistence.CacheManagerPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.boot.info.GitProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.jcache.JCacheCache;
+import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.*;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
 import tech.jhipster.config.JHipsterProperties;
 import tech.jhipster.config.cache.PrefixedKeyGenerator;
 
@@ -19,22 +58,60 @@ import tech.jhipster.config.cache.PrefixedKeyGenerator;
 @EnableCaching
 public class CacheConfiguration {
 
+    private static final Logger LOG = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private static final double DEFAULT_TIME_TO_LIVE_JITTER = 0.1;
+    private static final double USERS_REFRESH_AHEAD = 0.75;
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_CAPACITY = 256;
+
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final Sizing defaultSizing;
+    private final Sizing usersSizing;
+    private final Sizing unknownUsersSizing;
+    private final ApplicationProperties.Cache cacheProperties;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+        Duration timeToLive = Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
+        defaultSizing = new Sizing(ehcache.getMaxEntries(), null, null, timeToLive, null, DEFAULT_TIME_TO_LIVE_JITTER, null);
+        usersSizing = new Sizing(ehcache.getMaxEntries(), null, null, timeToLive, null, DEFAULT_TIME_TO_LIVE_JITTER, USERS_REFRESH_AHEAD);
+
+        ApplicationProperties.Security security = applicationProperties.getSecurity();
+        unknownUsersSizing = new Sizing(
+            security.getUnknownUsersMaxEntries(),
+            null,
+            null,
+            security.getUnknownUsersTimeToLive(),
+            null,
+            DEFAULT_TIME_TO_LIVE_JITTER,
+            null
+        );
+
+        cacheProperties = applicationProperties.getCache();
+    }
 
-        jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
-            CacheConfigurationBuilder.newCacheConfigurationBuilder(
-                Object.class,
-                Object.class,
-                ResourcePoolsBuilder.heap(ehcache.getMaxEntries())
-            )
-                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                .build()
+    /**
+     * Replaces the cache manager of Spring Boot, to give it a directory when a cache has a disk tier.
+     */
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        boolean persistent = cacheProperties.getCaches().values().stream().anyMatch(sizing -> sizing.getDisk() != null);
+        StatisticsServiceHolder statisticsServiceHolder = new StatisticsServiceHolder();
+        List<ServiceCreationConfiguration<?, ?>> services = new ArrayList<>();
+        services.add(statisticsServiceHolder.configuration());
+        if (persistent) {
+            services.add(new CacheManagerPersistenceConfiguration(new File(cacheProperties.getDiskDirectory())));
+        }
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(
+            provider.getDefaultURI(),
+            new DefaultConfiguration(provider.getDefaultClassLoader(), services.toArray(ServiceCreationConfiguration<?, ?>[]::new))
         );
+        EhcacheStatistics.register(cacheManager, statisticsServiceHolder);
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
     }
 
     @Bean
@@ -45,22 +122,230 @@ public class CacheConfiguration {
     @Bean
     public JCacheManagerCustomizer cacheManagerCustomizer() {
         return cm -> {
-            createCache(cm, com.poc.elk.repository.UserRepository.USERS_BY_LOGIN_CACHE);
-            createCache(cm, com.poc.elk.repository.UserRepository.USERS_BY_EMAIL_CACHE);
+            createCache(cm, com.poc.elk.repository.UserRepository.USERS_BY_LOGIN_CACHE, usersSizing);
+            createCache(cm, com.poc.elk.repository.UserRepository.USERS_BY_EMAIL_CACHE, usersSizing);
             createCache(cm, com.poc.elk.domain.User.class.getName());
             createCache(cm, com.poc.elk.domain.Authority.class.getName());
             createCache(cm, com.poc.elk.domain.User.class.getName() + ".authorities");
             createCache(cm, com.poc.elk.domain.TestEntity.class.getName());
+            createCache(cm, UnknownUsersCache.CACHE_NAME, unknownUsersSizing);
+            createCache(cm, PrincipalSnapshotCache.BY_LOGIN_CACHE_NAME);
+            createCache(cm, PrincipalSnapshotCache.BY_EMAIL_CACHE_NAME);
             // jhipster-needle-ehcache-add-entry
         };
     }
 
+    /**
+     * Replaces the cache manager of Spring Boot, to refresh the user caches ahead of their expiry: the hot accounts are
+     * reloaded in the background instead of all expiring at once.
+     */
+    @Bean
+    public CacheManager cacheManager(
+        javax.cache.CacheManager jCacheCacheManager,
+        ObjectProvider<UserRepository> userRepository,
+        MeterRegistry meterRegistry
+    ) {
+        JCacheCacheManager cacheManager = new JCacheCacheManager(jCacheCacheManager);
+        cacheManager.initializeCaches();
+
+        // The loaders bypass the caches of the repository, which would return the entry being refreshed
+        Map<String, Function<Object, Object>> loaders = Map.of(
+            UserRepository.USERS_BY_LOGIN_CACHE,
+            login -> userRepository.getObject().findOneForAuthenticationByLogin((String) login).orElse(null),
+            UserRepository.USERS_BY_EMAIL_CACHE,
+            email -> userRepository.getObject().findOneForAuthenticationByEmailIgnoreCase((String) email).orElse(null)
+        );
+        cacheProperties
+            .getCaches()
+            .forEach((cacheName, sizing) -> {
+                if (sizing.getRefreshAhead() != null && !loaders.containsKey(cacheName)) {
+                    LOG.warn("Cache {} cannot be refreshed ahead, only {} can", cacheName, loaders.keySet());
+                }
+            });
+
+        ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(
+            REFRESH_THREADS,
+            REFRESH_THREADS,
+            1,
+            TimeUnit.MINUTES,
+            new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+            refreshThreadFactory()
+        );
+        refreshExecutor.allowCoreThreadTimeOut(true);
+        List<RefreshAheadCache> caches = new ArrayList<>();
+        loaders.forEach((cacheName, loader) -> {
+            Sizing sizing = usersSizing.overriddenBy(cacheProperties.getCaches().get(cacheName));
+            if (sizing.refreshAhead() != null && cacheManager.getCache(cacheName) instanceof JCacheCache cache) {
+                caches.add(
+                    new RefreshAheadCache(
+                        cache,
+                        loader,
+                        sizing.refreshAfter(),
+                        sizing.timeToLiveJitter(),
+                        refreshExecutor,
+                        Clock.systemUTC(),
+                        meterRegistry
+                    )
+                );
+            }
+        });
+        return new RefreshAheadCacheManager(cacheManager, caches);
+    }
+
+    private static ThreadFactory refreshThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Binds the entries and the get latency of each cache, besides its JCache statistics.
+     */
+    @Bean
+    public EhcacheMeterBinderProvider ehcacheMeterBinderProvider() {
+        return new EhcacheMeterBinderProvider();
+    }
+
+    /**
+     * Coalesces the concurrent misses of the same login in the {@value UserRepository#USERS_BY_LOGIN_CACHE} cache,
+     * so that a popular login expiring from it is only loaded once. The callers share whether the user exists.
+     */
+    @Bean
+    public SingleFlight<String, Boolean> usersByLoginSingleFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(UserRepository.USERS_BY_LOGIN_CACHE, meterRegistry);
+    }
+
+    /**
+     * Coalesces the concurrent authentications of the same login, so that a popular login expiring from
+     * the {@value PrincipalSnapshotCache#BY_LOGIN_CACHE_NAME} cache is only loaded once.
+     */
+    @Bean
+    public SingleFlight<String, Optional<PrincipalSnapshot>> principalsByLoginSingleFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(PrincipalSnapshotCache.BY_LOGIN_CACHE_NAME, meterRegistry);
+    }
+
+    /**
+     * Coalesces the concurrent misses of the same testEntity in the second-level cache. The callers share whether the
+     * testEntity exists.
+     */
+    @Bean
+    public SingleFlight<Long, Boolean> testEntitySingleFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(TestEntity.class.getName(), meterRegistry);
+    }
+
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        createCache(cm, cacheName, defaultSizing);
+    }
+
+    private void createCache(javax.cache.CacheManager cm, String cacheName, Sizing defaults) {
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            Sizing sizing = defaults.overriddenBy(cacheProperties.getCaches().get(cacheName));
+            LOG.info("Creating cache {}: {}", cacheName, sizing);
+            cm.createCache(cacheName, sizing.toConfiguration());
+            cm.enableStatistics(cacheName, true);
+        }
+    }
+
+    /**
+     * The effective sizing of a cache.
+     *
+     * @param heapEntries the number of entries on heap.
+     * @param offHeap the size of the off-heap tier, {@code null} for none.
+     * @param disk the size of the disk tier, {@code null} for none.
+     * @param timeToLive the time to live, ignored if there is a time to idle.
+     * @param timeToIdle the time to idle, {@code null} for none.
+     * @param timeToLiveJitter the fraction of the time to live randomly taken off each entry.
+     * @param refreshAhead the fraction of the time to live after which an entry is refreshed, {@code null} for never.
+     */
+    private record Sizing(
+        long heapEntries,
+        DataSize offHeap,
+        DataSize disk,
+        Duration timeToLive,
+        Duration timeToIdle,
+        double timeToLiveJitter,
+        Double refreshAhead
+    ) {
+        Sizing {
+            if (timeToLiveJitter < 0 || timeToLiveJitter >= 1) {
+                throw new IllegalArgumentException("The time to live jitter must be between 0 and 1, not " + timeToLiveJitter);
+            }
+            if (refreshAhead != null && (refreshAhead <= 0 || refreshAhead >= 1)) {
+                throw new IllegalArgumentException("The refresh-ahead must be between 0 and 1, not " + refreshAhead);
+            }
+        }
+
+        Sizing overriddenBy(ApplicationProperties.Cache.Sizing properties) {
+            if (properties == null) {
+                return this;
+            }
+            return new Sizing(
+                properties.getHeapEntries() != null ? properties.getHeapEntries() : heapEntries,
+                properties.getOffHeap() != null ? properties.getOffHeap() : offHeap,
+                properties.getDisk() != null ? properties.getDisk() : disk,
+                properties.getTimeToLive() != null ? properties.getTimeToLive() : timeToLive,
+                properties.getTimeToIdle() != null ? properties.getTimeToIdle() : timeToIdle,
+                properties.getTimeToLiveJitter() != null ? properties.getTimeToLiveJitter() : timeToLiveJitter,
+                properties.getRefreshAhead() != null ? properties.getRefreshAhead() : refreshAhead
+            );
+        }
+
+        /**
+         * @return the age after which an entry is refreshed: a fraction of its time to idle or time to live.
+         */
+        Duration refreshAfter() {
+            Duration expiry = timeToIdle != null ? timeToIdle : timeToLive;
+            return Duration.ofMillis((long) (expiry.toMillis() * refreshAhead));
+        }
+
+        javax.cache.configuration.Configuration<Object, Object> toConfiguration() {
+            ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.heap(heapEntries);
+            if (offHeap != null) {
+                resourcePools = resourcePools.offheap(offHeap.toMegabytes(), MemoryUnit.MB);
+            }
+            if (disk != null) {
+                resourcePools = resourcePools.disk(disk.toMegabytes(), MemoryUnit.MB);
+            }
+            ExpiryPolicy<Object, Object> expiry;
+            if (timeToIdle != null) {
+                expiry = ExpiryPolicyBuilder.timeToIdleExpiration(timeToIdle);
+            } else if (timeToLiveJitter > 0) {
+                // Puts and updates are given their own time to live, so that the entries put together expire apart
+                expiry = ExpiryPolicyBuilder.expiry()
+                    .create((key, value) -> jitteredTimeToLive())
+                    .update((key, oldValue, value) -> jitteredTimeToLive())
+                    .build();
+            } else {
+                expiry = ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive);
+            }
+            return Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, resourcePools).withExpiry(expiry).build()
+            );
+        }
+
+        @Override
+        public String toString() {
+            return (
+                heapEntries +
+                " entries on heap, " +
+                (offHeap != null ? offHeap.toMegabytes() + " MB" : "no") +
+                " off-heap, " +
+                (disk != null ? disk.toMegabytes() + " MB" : "nothing") +
+                " on disk, " +
+                (timeToIdle != null ? "time to idle " + timeToIdle : "time to live " + timeToLive + jitter()) +
+                (refreshAhead != null ? ", refreshed after " + refreshAfter() : "")
+            );
+        }
+
+        private Duration jitteredTimeToLive() {
+            return timeToLive.minusMillis((long) (timeToLive.toMillis() * timeToLiveJitter * ThreadLocalRandom.current().nextDouble()));
+        }
+
+        private String jitter() {
+            return timeToLiveJitter > 0 ? " minus up to " + Math.round(timeToLiveJitter * 100) + "%" : "";
         }
     }
 
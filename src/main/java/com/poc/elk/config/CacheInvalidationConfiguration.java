@@ -0,0 +1,105 @@
+package com.poc.elk.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.cache.CacheInvalidationBus;
+import com.poc.elk.cache.ClusterCacheManager;
+import com.poc.elk.cache.HibernateInvalidationListener;
+import com.poc.elk.cache.InvalidationTransport;
+import com.poc.elk.cache.LoopbackTransport;
+import com.poc.elk.cache.UdpMulticastTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.time.Clock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the invalidation of the caches of the other nodes, enabled when
+ * {@code application.cache.invalidation.transport} is not {@code none}.
+ * <p>
+ * The evictions of the Spring caches are broadcast by decorating the {@link CacheManager}, those of the Hibernate
+ * second-level cache by listening to the updates and deletions of the cached entities.
+ */
+@Configuration
+@ConditionalOnExpression("!'${application.cache.invalidation.transport:none}'.equalsIgnoreCase('none')")
+public class CacheInvalidationConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidationConfiguration.class);
+
+    @Bean
+    public static BeanPostProcessor clusterCacheManagerPostProcessor(ObjectProvider<CacheInvalidationBus> bus) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager cacheManager && !(bean instanceof ClusterCacheManager)) {
+                    return new ClusterCacheManager(cacheManager, bus);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public CacheInvalidationBus cacheInvalidationBus(
+        ApplicationProperties applicationProperties,
+        ObjectMapper objectMapper,
+        CacheManager cacheManager,
+        EntityManagerFactory entityManagerFactory,
+        MeterRegistry meterRegistry
+    ) throws IOException {
+        ApplicationProperties.Cache.Invalidation properties = applicationProperties.getCache().getInvalidation();
+        LOG.debug("Creating {} cache invalidation transport", properties.getTransport());
+        InvalidationTransport transport = switch (properties.getTransport()) {
+            case LOOPBACK -> new LoopbackTransport(properties.getChannel());
+            case UDP -> new UdpMulticastTransport(
+                properties.getGroup(),
+                properties.getPort(),
+                properties.getNetworkInterface(),
+                properties.getTimeToLive()
+            );
+            case NONE -> throw new IllegalStateException("No cache invalidation transport");
+        };
+        CacheManager localCacheManager = cacheManager instanceof ClusterCacheManager clusterCacheManager
+            ? clusterCacheManager.getTargetCacheManager()
+            : cacheManager;
+        CacheInvalidationBus bus = new CacheInvalidationBus(
+            transport,
+            objectMapper,
+            localCacheManager,
+            entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache(),
+            properties.getBatchDelay(),
+            properties.getMaxBatchSize(),
+            Clock.systemUTC(),
+            meterRegistry
+        );
+        bus.start();
+        return bus;
+    }
+
+    @Bean
+    public HibernateInvalidationListener hibernateInvalidationListener(
+        CacheInvalidationBus cacheInvalidationBus,
+        EntityManagerFactory entityManagerFactory
+    ) {
+        HibernateInvalidationListener listener = new HibernateInvalidationListener(cacheInvalidationBus);
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+        return listener;
+    }
+}
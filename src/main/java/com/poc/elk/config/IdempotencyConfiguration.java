@@ -0,0 +1,68 @@
+package com.poc.elk.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.web.filter.IdempotencyFilter;
+import com.poc.elk.web.filter.IdempotencyStore;
+import com.poc.elk.web.filter.InMemoryIdempotencyStore;
+import com.poc.elk.web.filter.JdbcIdempotencyStore;
+import java.time.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Configuration of the {@code Idempotency-Key} support.
+ */
+@Configuration
+public class IdempotencyConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyConfiguration.class);
+
+    private final ApplicationProperties.Idempotency properties;
+
+    public IdempotencyConfiguration(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getIdempotency();
+    }
+
+    @Bean
+    public IdempotencyStore idempotencyStore(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ObjectMapper objectMapper
+    ) {
+        LOG.debug("Creating {} idempotency store", properties.getStore());
+        return switch (properties.getStore()) {
+            case MEMORY -> new InMemoryIdempotencyStore(
+                properties.getTimeToLive(),
+                properties.getMaxEntries(),
+                properties.getWaitTimeout(),
+                Clock.systemUTC()
+            );
+            case JDBC -> new JdbcIdempotencyStore(
+                jdbcTemplate,
+                transactionManager,
+                objectMapper,
+                properties.getTimeToLive(),
+                properties.getWaitTimeout(),
+                properties.getLockTimeout(),
+                Clock.systemUTC()
+            );
+        };
+    }
+
+    /**
+     * Runs after the Spring Security filter chain, so that requests are authenticated and keys can be scoped by user.
+     */
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyStore));
+        registration.setUrlPatterns(properties.getPaths());
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
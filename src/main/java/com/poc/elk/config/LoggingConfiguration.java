@@ -2,27 +2,52 @@ package com.poc.elk.config;
 
 import static tech.jhipster.config.logging.LoggingUtils.*;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggerContextListener;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.spi.ContextAwareBase;
+import ch.qos.logback.core.status.ErrorStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.logging.ElasticsearchBulkAppender;
+import com.poc.elk.logging.JsonLogEncoder;
+import com.poc.elk.logging.LogstashUdpAppender;
+import com.poc.elk.logging.MappedSegmentSpool;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import tech.jhipster.config.JHipsterProperties;
 
 /*
- * Configures the console and Logstash log appenders from the app properties
+ * Configures the console, Logstash and Elasticsearch log appenders from the app properties
  */
 @Configuration
 public class LoggingConfiguration {
 
+    private static final String CONSOLE_APPENDER_NAME = "CONSOLE";
+    private static final String LOGSTASH_UDP_APPENDER_NAME = "LOGSTASH_UDP";
+    private static final String ELASTICSEARCH_APPENDER_NAME = "ELASTICSEARCH";
+
     public LoggingConfiguration(
         @Value("${spring.application.name}") String appName,
         @Value("${server.port}") String serverPort,
         JHipsterProperties jHipsterProperties,
-        ObjectMapper mapper
+        ApplicationProperties applicationProperties,
+        ObjectMapper mapper,
+        MeterRegistry meterRegistry
     ) throws JsonProcessingException {
         LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
 
@@ -33,6 +58,32 @@ public class LoggingConfiguration {
 
         JHipsterProperties.Logging loggingProperties = jHipsterProperties.getLogging();
         JHipsterProperties.Logging.Logstash logstashProperties = loggingProperties.getLogstash();
+        ApplicationProperties.Logging.Logstash transportProperties = applicationProperties.getLogging().getLogstash();
+        ApplicationProperties.Logging.Elasticsearch elasticsearchProperties = applicationProperties.getLogging().getElasticsearch();
+        boolean udp =
+            logstashProperties.isEnabled() && transportProperties.getTransport() == ApplicationProperties.Logging.Logstash.Transport.UDP;
+
+        if (udp || elasticsearchProperties.isEnabled()) {
+            // The listener of JHipster would add the TCP appender back on reset
+            Consumer<LoggerContext> appenders = ctx -> {
+                if (loggingProperties.isUseJsonFormat()) {
+                    addJsonLogConsoleAppender(ctx, customFields);
+                }
+                if (udp) {
+                    addLogstashUdpAppender(ctx, customFields, logstashProperties, transportProperties, meterRegistry);
+                } else if (logstashProperties.isEnabled()) {
+                    addLogstashTcpSocketAppender(ctx, customFields, logstashProperties);
+                }
+                if (elasticsearchProperties.isEnabled()) {
+                    addElasticsearchAppender(ctx, customFields, elasticsearchProperties, meterRegistry);
+                }
+            };
+            appenders.accept(context);
+            ResetResistantListener listener = new ResetResistantListener(appenders);
+            listener.setContext(context);
+            context.addListener(listener);
+            return;
+        }
 
         if (loggingProperties.isUseJsonFormat()) {
             addJsonConsoleAppender(context, customFields);
@@ -44,4 +95,127 @@ public class LoggingConfiguration {
             addContextListener(context, customFields, loggingProperties);
         }
     }
+
+    private static void addLogstashUdpAppender(
+        LoggerContext context,
+        String customFields,
+        JHipsterProperties.Logging.Logstash logstashProperties,
+        ApplicationProperties.Logging.Logstash transportProperties,
+        MeterRegistry meterRegistry
+    ) {
+        LogstashUdpAppender appender = new LogstashUdpAppender(
+            logstashProperties.getHost(),
+            logstashProperties.getPort(),
+            (int) transportProperties.getMaxDatagramSize().toBytes(),
+            logstashProperties.getRingBufferSize(),
+            jsonEncoder(context, customFields, ""),
+            meterRegistry
+        );
+        appender.setContext(context);
+        appender.setName(LOGSTASH_UDP_APPENDER_NAME);
+        appender.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+    }
+
+    private static void addElasticsearchAppender(
+        LoggerContext context,
+        String customFields,
+        ApplicationProperties.Logging.Elasticsearch elasticsearchProperties,
+        MeterRegistry meterRegistry
+    ) {
+        MappedSegmentSpool spool;
+        try {
+            spool = new MappedSegmentSpool(
+                Path.of(elasticsearchProperties.getSpoolDirectory()),
+                (int) elasticsearchProperties.getSpoolSegmentSize().toBytes(),
+                elasticsearchProperties.getSpoolMaxSize().toBytes()
+            );
+        } catch (IOException e) {
+            context
+                .getStatusManager()
+                .add(new ErrorStatus("Cannot open the spool of the logs for Elasticsearch", LoggingConfiguration.class.getName(), e));
+            return;
+        }
+        String authorization = null;
+        if (elasticsearchProperties.getUsername() != null) {
+            String credentials = elasticsearchProperties.getUsername() + ":" + Objects.toString(elasticsearchProperties.getPassword(), "");
+            authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ElasticsearchBulkAppender appender = new ElasticsearchBulkAppender(
+            URI.create(elasticsearchProperties.getUrl()),
+            elasticsearchProperties.getIndex(),
+            authorization,
+            (int) elasticsearchProperties.getMaxBatchSize().toBytes(),
+            elasticsearchProperties.getMaxBatchAge(),
+            elasticsearchProperties.getRequestTimeout(),
+            elasticsearchProperties.getQueueSize(),
+            jsonEncoder(context, customFields, ""),
+            spool,
+            meterRegistry
+        );
+        appender.setContext(context);
+        appender.setName(ELASTICSEARCH_APPENDER_NAME);
+        appender.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+    }
+
+    private static void addJsonLogConsoleAppender(LoggerContext context, String customFields) {
+        ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(jsonEncoder(context, customFields, System.lineSeparator()));
+        appender.setName(CONSOLE_APPENDER_NAME);
+        appender.start();
+        Logger rootLogger = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        rootLogger.detachAppender(CONSOLE_APPENDER_NAME);
+        rootLogger.addAppender(appender);
+    }
+
+    /**
+     * @return the encoder of the events into the JSON objects of the Logstash encoder of JHipster.
+     */
+    private static JsonLogEncoder jsonEncoder(LoggerContext context, String customFields, String lineSeparator) {
+        JsonLogEncoder encoder = new JsonLogEncoder();
+        encoder.setCustomFields(customFields);
+        encoder.setLineSeparator(lineSeparator);
+        encoder.setContext(context);
+        return encoder;
+    }
+
+    /**
+     * Adds the appenders back when Logback is reset, such as when Spring Boot reloads its configuration.
+     */
+    private static final class ResetResistantListener extends ContextAwareBase implements LoggerContextListener {
+
+        private final Consumer<LoggerContext> appenders;
+
+        private ResetResistantListener(Consumer<LoggerContext> appenders) {
+            this.appenders = appenders;
+        }
+
+        @Override
+        public boolean isResetResistant() {
+            return true;
+        }
+
+        @Override
+        public void onStart(LoggerContext context) {
+            appenders.accept(context);
+        }
+
+        @Override
+        public void onReset(LoggerContext context) {
+            appenders.accept(context);
+        }
+
+        @Override
+        public void onStop(LoggerContext context) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onLevelChange(Logger logger, Level level) {
+            // Nothing to do
+        }
+    }
 }
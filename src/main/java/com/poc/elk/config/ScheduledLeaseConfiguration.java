@@ -0,0 +1,46 @@
+package com.poc.elk.config;
+
+import com.poc.elk.aop.lease.JdbcLeaseStore;
+import com.poc.elk.aop.lease.ScheduledLeaseAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Configuration of the leases of the {@link com.poc.elk.aop.lease.ScheduledLease} jobs.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+public class ScheduledLeaseConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScheduledLeaseConfiguration.class);
+
+    @Bean
+    public JdbcLeaseStore leaseStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        String owner = hostName() + "/" + UUID.randomUUID();
+        LOG.debug("Scheduled jobs leased as {}", owner);
+        return new JdbcLeaseStore(jdbcTemplate, transactionManager, owner, Clock.systemUTC());
+    }
+
+    @Bean
+    public ScheduledLeaseAspect scheduledLeaseAspect(JdbcLeaseStore leaseStore, MeterRegistry meterRegistry) {
+        return new ScheduledLeaseAspect(leaseStore, meterRegistry);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -5,6 +5,9 @@ import static org.springframework.security.web.util.matcher.AntPathRequestMatche
 
 import com.poc.elk.security.*;
 import com.poc.elk.web.filter.SpaWebFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
@@ -14,7 +17,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer.FrameOptionsConfig;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
 import org.springframework.security.oauth2.server.resource.web.access.BearerTokenAccessDeniedHandler;
@@ -30,18 +32,48 @@ import tech.jhipster.config.JHipsterProperties;
 @EnableMethodSecurity(securedEnabled = true)
 public class SecurityConfiguration {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SecurityConfiguration.class);
+
     private final Environment env;
 
     private final JHipsterProperties jHipsterProperties;
 
-    public SecurityConfiguration(Environment env, JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties.Security.PasswordHashing passwordHashingProperties;
+
+    public SecurityConfiguration(Environment env, JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         this.env = env;
         this.jHipsterProperties = jHipsterProperties;
+        this.passwordHashingProperties = applicationProperties.getSecurity().getPasswordHashing();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHashingExecutor passwordHashingExecutor(MeterRegistry meterRegistry) {
+        return new PasswordHashingExecutor(
+            passwordHashingProperties.getThreads(),
+            passwordHashingProperties.getQueueCapacity(),
+            passwordHashingProperties.getRetryAfter(),
+            meterRegistry
+        );
+    }
+
+    @Bean
+    public BCryptCalibration bCryptCalibration() {
+        BCryptCalibration calibration = BCryptCalibration.calibrate(
+            passwordHashingProperties.getTargetHashTime(),
+            passwordHashingProperties.getMinStrength(),
+            passwordHashingProperties.getMaxStrength()
+        );
+        LOG.info("BCrypt strength calibrated to {}, hashing in {} ms", calibration.strength(), calibration.hashTime().toMillis());
+        return calibration;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+        BCryptCalibration bCryptCalibration,
+        PasswordHashingExecutor passwordHashingExecutor,
+        MeterRegistry meterRegistry
+    ) {
+        return new BoundedPasswordEncoder(bCryptCalibration.passwordEncoder(), passwordHashingExecutor, meterRegistry);
     }
 
     @Bean
@@ -5,10 +5,11 @@ import static com.poc.elk.security.SecurityUtils.JWT_ALGORITHM;
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 import com.nimbusds.jose.util.Base64;
 import com.poc.elk.management.SecurityMetersService;
+import com.poc.elk.security.CachingJwtDecoder;
+import com.poc.elk.security.MeteredJwtDecoder;
+import java.time.Clock;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,34 +21,19 @@ import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 @Configuration
 public class SecurityJwtConfiguration {
 
-    private static final Logger LOG = LoggerFactory.getLogger(SecurityJwtConfiguration.class);
-
     @Value("${jhipster.security.authentication.jwt.base64-secret}")
     private String jwtKey;
 
     @Bean
-    public JwtDecoder jwtDecoder(SecurityMetersService metersService) {
-        NimbusJwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(getSecretKey()).macAlgorithm(JWT_ALGORITHM).build();
-        return token -> {
-            try {
-                return jwtDecoder.decode(token);
-            } catch (Exception e) {
-                if (e.getMessage().contains("Invalid signature")) {
-                    metersService.trackTokenInvalidSignature();
-                } else if (e.getMessage().contains("Jwt expired at")) {
-                    metersService.trackTokenExpired();
-                } else if (
-                    e.getMessage().contains("Invalid JWT serialization") ||
-                    e.getMessage().contains("Malformed token") ||
-                    e.getMessage().contains("Invalid unsecured/JWS/JWE")
-                ) {
-                    metersService.trackTokenMalformed();
-                } else {
-                    LOG.error("Unknown JWT error {}", e.getMessage());
-                }
-                throw e;
-            }
-        };
+    public JwtDecoder jwtDecoder(SecurityMetersService metersService, ApplicationProperties applicationProperties) {
+        int jwtCacheMaxEntries = applicationProperties.getSecurity().getJwtCacheMaxEntries();
+        NimbusJwtDecoder nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(getSecretKey()).macAlgorithm(JWT_ALGORITHM).build();
+        nimbusJwtDecoder.setJwtValidator(MeteredJwtDecoder.expiryValidator());
+        JwtDecoder jwtDecoder = nimbusJwtDecoder;
+        if (jwtCacheMaxEntries > 0) {
+            jwtDecoder = new CachingJwtDecoder(jwtDecoder, jwtCacheMaxEntries, metersService, Clock.systemUTC());
+        }
+        return new MeteredJwtDecoder(jwtDecoder, metersService);
     }
 
     @Bean
@@ -4,26 +4,41 @@ import jakarta.persistence.*;
 import java.io.Serializable;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * A TestEntity.
  */
 @Entity
 @Table(name = "test_entity")
+@EntityListeners(TestEntityListener.class)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class TestEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "testEntityIdGenerator")
+    @TableGenerator(
+        name = "testEntityIdGenerator",
+        table = "jhi_id_generator",
+        pkColumnName = "sequence_name",
+        valueColumnName = "next_val",
+        pkColumnValue = "test_entity",
+        allocationSize = 50
+    )
     @Column(name = "id")
     private Long id;
 
     @Column(name = "name")
     private String name;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -52,6 +67,19 @@ public class TestEntity implements Serializable {
         this.name = name;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public TestEntity version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -77,6 +105,7 @@ public class TestEntity implements Serializable {
         return "TestEntity{" +
             "id=" + getId() +
             ", name='" + getName() + "'" +
+            ", version=" + getVersion() +
             "}";
     }
 }
@@ -0,0 +1,21 @@
+package com.poc.elk.domain;
+
+/**
+ * Application event published when a {@link TestEntity} is saved or deleted.
+ * <p>
+ * It is published inside the transaction: listeners interested in committed state only should use
+ * {@link org.springframework.transaction.event.TransactionalEventListener}.
+ *
+ * @param id the id of the testEntity.
+ * @param name the name of the testEntity, or {@code null} if it was deleted.
+ * @param deleted whether the testEntity was deleted.
+ */
+public record TestEntityChangedEvent(Long id, String name, boolean deleted) {
+    public static TestEntityChangedEvent saved(TestEntity testEntity) {
+        return new TestEntityChangedEvent(testEntity.getId(), testEntity.getName(), false);
+    }
+
+    public static TestEntityChangedEvent deleted(Long id) {
+        return new TestEntityChangedEvent(id, null, true);
+    }
+}
@@ -0,0 +1,31 @@
+package com.poc.elk.domain;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener publishing a {@link TestEntityChangedEvent} for each {@link TestEntity} written by Hibernate.
+ * <p>
+ * Bulk JPQL statements bypass the entity lifecycle: code using them must publish the event itself.
+ */
+public class TestEntityListener {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public TestEntityListener(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void onSave(TestEntity testEntity) {
+        applicationEventPublisher.publishEvent(TestEntityChangedEvent.saved(testEntity));
+    }
+
+    @PostRemove
+    void onRemove(TestEntity testEntity) {
+        applicationEventPublisher.publishEvent(TestEntityChangedEvent.deleted(testEntity.getId()));
+    }
+}
@@ -28,7 +28,15 @@ public class User extends AbstractAuditingEntity<Long> implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "userIdGenerator")
+    @TableGenerator(
+        name = "userIdGenerator",
+        table = "jhi_id_generator",
+        pkColumnName = "sequence_name",
+        valueColumnName = "next_val",
+        pkColumnValue = "jhi_user",
+        allocationSize = 50
+    )
     private Long id;
 
     @NotNull
@@ -0,0 +1,436 @@
+package com.poc.elk.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sends the logging events to the {@code _bulk} endpoint of Elasticsearch, in daily indices like those of the bundled
+ * Logstash pipeline.
+ * <p>
+ * The logging threads never block: they only queue the events, which are dropped when the queue is full. A sender
+ * thread encodes them into a batch, which it posts gzipped once it reaches its maximum size or age.
+ * <p>
+ * When Elasticsearch is unreachable, or overloaded, the batches are spooled to a {@link MappedSegmentSpool}, which
+ * is replayed in order once Elasticsearch answers again, including after a restart. Meanwhile, the new batches are
+ * spooled behind the others, and the replay is retried with an exponential backoff.
+ * <p>
+ * Meters:
+ * <ul>
+ *     <li>{@value #EVENTS_METER_NAME}: the events indexed;</li>
+ *     <li>{@value #BYTES_METER_NAME}: the bytes posted, gzipped;</li>
+ *     <li>{@value #DROPPED_METER_NAME}: the events dropped, tagged {@code reason} ({@code queue-full},
+ *     {@code encoding-failed}, {@code rejected} by Elasticsearch or {@code spool-full});</li>
+ *     <li>{@value #BATCH_LATENCY_METER_NAME}: the duration of the bulk requests, tagged {@code outcome};</li>
+ *     <li>{@value #SPOOL_BATCHES_METER_NAME} and {@value #SPOOL_BYTES_METER_NAME}: the depth of the spool.</li>
+ * </ul>
+ */
+public class ElasticsearchBulkAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    public static final String EVENTS_METER_NAME = "logging.elasticsearch.events";
+    public static final String BYTES_METER_NAME = "logging.elasticsearch.bytes";
+    public static final String DROPPED_METER_NAME = "logging.elasticsearch.dropped";
+    public static final String BATCH_LATENCY_METER_NAME = "logging.elasticsearch.batch.latency";
+    public static final String SPOOL_BATCHES_METER_NAME = "logging.elasticsearch.spool.batches";
+    public static final String SPOOL_BYTES_METER_NAME = "logging.elasticsearch.spool.bytes";
+
+    private static final DateTimeFormatter INDEX_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd").withZone(ZoneOffset.UTC);
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long MAX_POLL_MILLIS = 100;
+    private static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+    private static final byte NEW_LINE = '\n';
+
+    private final URI bulkUri;
+
+    private final String index;
+
+    private final String authorization;
+
+    private final int maxBatchSize;
+
+    private final Duration maxBatchAge;
+
+    private final Duration requestTimeout;
+
+    private final Encoder<ILoggingEvent> encoder;
+
+    private final MappedSegmentSpool spool;
+
+    private final BlockingQueue<ILoggingEvent> queue;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ByteArrayOutputStream batch;
+
+    private final ByteArrayOutputStream compressed;
+
+    private final Counter eventsCounter;
+
+    private final Counter bytesCounter;
+
+    private final Counter queueFullCounter;
+
+    private final Counter encodingFailedCounter;
+
+    private final Counter rejectedCounter;
+
+    private final Counter spoolFullCounter;
+
+    private final Timer successTimer;
+
+    private final Timer failureTimer;
+
+    private final MeterRegistry registry;
+
+    private final List<Gauge> spoolGauges = new ArrayList<>();
+
+    private HttpClient client;
+
+    private Thread sender;
+
+    private int batchEvents;
+
+    private long batchDeadline;
+
+    private long actionDay = -1;
+
+    private byte[] action;
+
+    private long retryAt;
+
+    private Duration retryDelay;
+
+    /**
+     * @param url the URL of Elasticsearch.
+     * @param index the prefix of the daily indices.
+     * @param authorization the value of the {@code Authorization} header, {@code null} for none.
+     * @param maxBatchSize the size of the batches, before compression, beyond which they are posted.
+     * @param maxBatchAge the age of the batches beyond which they are posted.
+     * @param requestTimeout the timeout of the bulk requests, beyond which the batch is spooled.
+     * @param queueSize the number of events waiting to be sent, beyond which the events are dropped.
+     * @param encoder the encoder of the events into JSON objects, without line separator.
+     * @param spool the spool of the batches not sent, which this appender closes when it stops.
+     * @param registry the meter registry.
+     */
+    public ElasticsearchBulkAppender(
+        URI url,
+        String index,
+        String authorization,
+        int maxBatchSize,
+        Duration maxBatchAge,
+        Duration requestTimeout,
+        int queueSize,
+        Encoder<ILoggingEvent> encoder,
+        MappedSegmentSpool spool,
+        MeterRegistry registry
+    ) {
+        // Relative to the path of the URL, such as a prefix of a reverse proxy
+        URI base = url.getPath().endsWith("/") ? url : URI.create(url + "/");
+        this.bulkUri = base.resolve("_bulk");
+        this.index = index;
+        this.authorization = authorization;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchAge = maxBatchAge;
+        this.requestTimeout = requestTimeout;
+        this.encoder = encoder;
+        this.spool = spool;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batch = new ByteArrayOutputStream(maxBatchSize);
+        this.compressed = new ByteArrayOutputStream(maxBatchSize / 4);
+        this.eventsCounter = Counter.builder(EVENTS_METER_NAME).description("Number of logging events indexed").register(registry);
+        this.bytesCounter = Counter.builder(BYTES_METER_NAME)
+            .description("Number of gzipped bytes posted to Elasticsearch")
+            .baseUnit("bytes")
+            .register(registry);
+        this.queueFullCounter = droppedCounter("queue-full", registry);
+        this.encodingFailedCounter = droppedCounter("encoding-failed", registry);
+        this.rejectedCounter = droppedCounter("rejected", registry);
+        this.spoolFullCounter = droppedCounter("spool-full", registry);
+        this.successTimer = batchLatencyTimer("success", registry);
+        this.failureTimer = batchLatencyTimer("failure", registry);
+        this.registry = registry;
+    }
+
+    private static Counter droppedCounter(String reason, MeterRegistry registry) {
+        return Counter.builder(DROPPED_METER_NAME)
+            .description("Number of logging events not indexed")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    private static Timer batchLatencyTimer(String outcome, MeterRegistry registry) {
+        return Timer.builder(BATCH_LATENCY_METER_NAME)
+            .description("Duration of the bulk requests to Elasticsearch")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!encoder.isStarted()) {
+            encoder.start();
+        }
+        client = HttpClient.newBuilder().connectTimeout(requestTimeout).build();
+        retryDelay = MIN_RETRY_DELAY;
+        // Registered on each start, as a reset of Logback replaces the appender and its spool
+        spoolGauges.add(
+            Gauge.builder(SPOOL_BATCHES_METER_NAME, spool, MappedSegmentSpool::size)
+                .description("Number of batches spooled while Elasticsearch is unreachable")
+                .register(registry)
+        );
+        spoolGauges.add(
+            Gauge.builder(SPOOL_BYTES_METER_NAME, spool, MappedSegmentSpool::bytes)
+                .description("Number of bytes spooled while Elasticsearch is unreachable")
+                .baseUnit("bytes")
+                .register(registry)
+        );
+        sender = new Thread(this::sendLoop, "elasticsearch-log-sender");
+        sender.setDaemon(true);
+        super.start();
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        // The sender posts or spools the queued events, then stops
+        super.stop();
+        try {
+            sender.join(requestTimeout.toMillis() * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spool.close();
+        spoolGauges.forEach(registry::remove);
+        spoolGauges.clear();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (!queue.offer(event)) {
+            queueFullCounter.increment();
+        }
+    }
+
+    private void sendLoop() {
+        while (isStarted() || !queue.isEmpty() || batchEvents > 0) {
+            ILoggingEvent event;
+            try {
+                event = queue.poll(pollMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event != null) {
+                add(event);
+            }
+            if (batchEvents > 0 && (batch.size() >= maxBatchSize || System.currentTimeMillis() >= batchDeadline || !isStarted())) {
+                flush();
+            }
+            if (spool.size() > 0 && isStarted() && System.currentTimeMillis() >= retryAt) {
+                replay();
+            }
+        }
+    }
+
+    private long pollMillis() {
+        long now = System.currentTimeMillis();
+        long wakeUp = now + MAX_POLL_MILLIS;
+        if (batchEvents > 0) {
+            wakeUp = Math.min(wakeUp, batchDeadline);
+        }
+        if (spool.size() > 0) {
+            wakeUp = Math.min(wakeUp, retryAt);
+        }
+        return Math.max(0, wakeUp - now);
+    }
+
+    private void add(ILoggingEvent event) {
+        byte[] document;
+        try {
+            document = encoder.encode(event);
+        } catch (RuntimeException e) {
+            encodingFailedCounter.increment();
+            return;
+        }
+        if (batchEvents == 0) {
+            batchDeadline = System.currentTimeMillis() + maxBatchAge.toMillis();
+        }
+        batch.writeBytes(action(event.getTimeStamp()));
+        batch.writeBytes(document);
+        batch.write(NEW_LINE);
+        batchEvents++;
+    }
+
+    private byte[] action(long timestamp) {
+        long day = timestamp / MILLIS_PER_DAY;
+        if (day != actionDay) {
+            String indexName = index + "-" + INDEX_DATE_FORMAT.format(Instant.ofEpochMilli(timestamp));
+            action = ("{\"index\":{\"_index\":\"" + indexName + "\"}}\n").getBytes(StandardCharsets.UTF_8);
+            actionDay = day;
+        }
+        return action;
+    }
+
+    private void flush() {
+        byte[] record = compress();
+        int events = batchEvents;
+        batch.reset();
+        batchEvents = 0;
+        if (record == null) {
+            encodingFailedCounter.increment(events);
+            return;
+        }
+        // The batches spooled before are sent first
+        if (spool.size() > 0) {
+            spool(record, events);
+        } else if (post(record) == Outcome.RETRY) {
+            spool(record, events);
+            backOff();
+        }
+    }
+
+    private void replay() {
+        byte[] record = spool.peek();
+        if (record == null) {
+            return;
+        }
+        if (post(record) == Outcome.RETRY) {
+            backOff();
+        } else {
+            spool.remove();
+            retryDelay = MIN_RETRY_DELAY;
+        }
+    }
+
+    private void backOff() {
+        retryAt = System.currentTimeMillis() + retryDelay.toMillis();
+        Duration doubled = retryDelay.multipliedBy(2);
+        retryDelay = doubled.compareTo(MAX_RETRY_DELAY) < 0 ? doubled : MAX_RETRY_DELAY;
+    }
+
+    private void spool(byte[] record, int events) {
+        try {
+            if (!spool.offer(record)) {
+                spoolFullCounter.increment(events);
+            }
+        } catch (IOException e) {
+            addError("Cannot spool the logs not sent to Elasticsearch", e);
+            spoolFullCounter.increment(events);
+        }
+    }
+
+    /**
+     * @return the record of the batch: its number of events, then the gzipped batch; {@code null} if it fails.
+     */
+    private byte[] compress() {
+        compressed.reset();
+        compressed.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(batchEvents).array());
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            batch.writeTo(gzip);
+        } catch (IOException e) {
+            addError("Cannot compress the logs for Elasticsearch", e);
+            return null;
+        }
+        return compressed.toByteArray();
+    }
+
+    private Outcome post(byte[] record) {
+        int events = ByteBuffer.wrap(record).getInt();
+        HttpRequest.Builder request = HttpRequest.newBuilder(bulkUri)
+            .timeout(requestTimeout)
+            .header("Content-Type", "application/x-ndjson")
+            .header("Content-Encoding", "gzip")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(record, Integer.BYTES, record.length - Integer.BYTES));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Outcome.RETRY;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.RETRY;
+        }
+        int status = response.statusCode();
+        if (status == 429 || status >= 500) {
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Outcome.RETRY;
+        }
+        successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        bytesCounter.increment(record.length - Integer.BYTES);
+        if (status >= 300) {
+            addWarn("Elasticsearch rejected a batch of logs with status " + status);
+            rejectedCounter.increment(events);
+            return Outcome.DONE;
+        }
+        int rejected = rejectedItems(response.body());
+        rejectedCounter.increment(rejected);
+        eventsCounter.increment(events - rejected);
+        return Outcome.DONE;
+    }
+
+    private int rejectedItems(byte[] body) {
+        try {
+            JsonNode response = mapper.readTree(body);
+            if (!response.path("errors").asBoolean()) {
+                return 0;
+            }
+            int rejected = 0;
+            for (JsonNode item : response.path("items")) {
+                if (item.path("index").has("error")) {
+                    rejected++;
+                }
+            }
+            return rejected;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private enum Outcome {
+        /**
+         * Sent, or rejected for good.
+         */
+        DONE,
+        /**
+         * Not sent, to retry later.
+         */
+        RETRY,
+    }
+}
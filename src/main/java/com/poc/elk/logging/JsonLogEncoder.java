@@ -0,0 +1,323 @@
+package com.poc.elk.logging;
+
+import ch.qos.logback.classic.pattern.ThrowableHandlingConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import net.logstash.logback.stacktrace.ShortenedThrowableConverter;
+import org.slf4j.Marker;
+
+/**
+ * Encodes the logging events into the JSON objects of the {@code LogstashEncoder}: the same fields, without the
+ * caller data and the structured arguments, which this application does not log.
+ * <p>
+ * The events are written straight into a byte buffer reused by each thread, without going through Jackson or
+ * intermediate strings: the only allocation of an event is the returned array. The date and time of the timestamps
+ * are formatted once per second, and the stack traces by a {@link ShortenedThrowableConverter}, root cause first.
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Size beyond which a buffer grown by a large event is not kept.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss");
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private String customFields;
+
+    private String lineSeparator = System.lineSeparator();
+
+    private ThrowableHandlingConverter throwableConverter;
+
+    private ZoneId zone = ZoneId.systemDefault();
+
+    private byte[] customFieldsBytes = new byte[0];
+
+    private byte[] lineSeparatorBytes;
+
+    /**
+     * @param customFields the fields added to every event, as a JSON object.
+     */
+    public void setCustomFields(String customFields) {
+        this.customFields = customFields;
+    }
+
+    /**
+     * @param lineSeparator the separator written after every event, empty for none.
+     */
+    public void setLineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator;
+    }
+
+    public void setThrowableConverter(ThrowableHandlingConverter throwableConverter) {
+        this.throwableConverter = throwableConverter;
+    }
+
+    public void setZone(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public void start() {
+        if (customFields != null && !customFields.isBlank()) {
+            try {
+                JsonNode fields = new ObjectMapper().readTree(customFields);
+                if (!fields.isObject()) {
+                    addError("The custom fields are not a JSON object: " + customFields);
+                    return;
+                }
+                // The fields of the object, without its braces, appended to the fields of the event
+                String object = fields.toString();
+                if (fields.size() > 0) {
+                    customFieldsBytes = ("," + object.substring(1, object.length() - 1)).getBytes(StandardCharsets.UTF_8);
+                }
+            } catch (JsonProcessingException e) {
+                addError("The custom fields are not valid JSON: " + customFields, e);
+                return;
+            }
+        }
+        if (throwableConverter == null) {
+            ShortenedThrowableConverter converter = new ShortenedThrowableConverter();
+            converter.setRootCauseFirst(true);
+            throwableConverter = converter;
+        }
+        throwableConverter.setContext(getContext());
+        throwableConverter.start();
+        lineSeparatorBytes = lineSeparator == null ? new byte[0] : lineSeparator.getBytes(StandardCharsets.UTF_8);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        throwableConverter.stop();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        Buffer buffer = BUFFERS.get();
+        buffer.length = 0;
+        try {
+            write(event, buffer);
+            return Arrays.copyOf(buffer.bytes, buffer.length);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private void write(ILoggingEvent event, Buffer buffer) {
+        buffer.writeAscii("{\"@timestamp\":\"");
+        writeTimestamp(event.getTimeStamp(), buffer);
+        buffer.writeAscii("\",\"@version\":\"1\",\"message\":");
+        buffer.writeString(event.getFormattedMessage());
+        buffer.writeAscii(",\"logger_name\":");
+        buffer.writeString(event.getLoggerName());
+        buffer.writeAscii(",\"thread_name\":");
+        buffer.writeString(event.getThreadName());
+        buffer.writeAscii(",\"level\":\"");
+        buffer.writeAscii(event.getLevel().levelStr);
+        buffer.writeAscii("\",\"level_value\":");
+        buffer.writeInt(event.getLevel().toInt());
+        if (event.getThrowableProxy() != null) {
+            buffer.writeAscii(",\"stack_trace\":");
+            buffer.writeString(throwableConverter.convert(event));
+        }
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null && !mdc.isEmpty()) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                buffer.write((byte) ',');
+                buffer.writeString(entry.getKey());
+                buffer.write((byte) ':');
+                buffer.writeString(entry.getValue());
+            }
+        }
+        List<Marker> markers = event.getMarkerList();
+        if (markers != null && !markers.isEmpty()) {
+            buffer.writeAscii(",\"tags\":[");
+            for (int i = 0; i < markers.size(); i++) {
+                if (i > 0) {
+                    buffer.write((byte) ',');
+                }
+                buffer.writeString(markers.get(i).getName());
+            }
+            buffer.write((byte) ']');
+        }
+        buffer.write(customFieldsBytes);
+        buffer.write((byte) '}');
+        buffer.write(lineSeparatorBytes);
+    }
+
+    /**
+     * Writes the timestamp in the ISO-8601 format of the {@code LogstashEncoder}, with milliseconds.
+     */
+    private void writeTimestamp(long timestamp, Buffer buffer) {
+        long second = Math.floorDiv(timestamp, 1000);
+        if (second != buffer.timestampSecond || !zone.equals(buffer.timestampZone)) {
+            ZoneOffset offset = zone.getRules().getOffset(Instant.ofEpochSecond(second));
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(second, 0, offset);
+            buffer.timestampDateTime = DATE_TIME_FORMAT.format(dateTime).getBytes(StandardCharsets.US_ASCII);
+            buffer.timestampOffset = offset.getId().getBytes(StandardCharsets.US_ASCII);
+            buffer.timestampSecond = second;
+            buffer.timestampZone = zone;
+        }
+        int millis = (int) Math.floorMod(timestamp, 1000);
+        buffer.write(buffer.timestampDateTime);
+        buffer.write((byte) '.');
+        buffer.write((byte) ('0' + millis / 100));
+        buffer.write((byte) ('0' + millis / 10 % 10));
+        buffer.write((byte) ('0' + millis % 10));
+        buffer.write(buffer.timestampOffset);
+    }
+
+    /**
+     * A growable byte array, with the date and time of the last second written.
+     */
+    private static final class Buffer {
+
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+
+        private int length;
+
+        private long timestampSecond = Long.MIN_VALUE;
+
+        private ZoneId timestampZone;
+
+        private byte[] timestampDateTime;
+
+        private byte[] timestampOffset;
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        private void release() {
+            if (bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+                bytes = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+
+        private void write(byte b) {
+            ensureCapacity(1);
+            bytes[length++] = b;
+        }
+
+        private void write(byte[] b) {
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, bytes, length, b.length);
+            length += b.length;
+        }
+
+        private void writeAscii(String s) {
+            ensureCapacity(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[length++] = (byte) s.charAt(i);
+            }
+        }
+
+        private void writeInt(int value) {
+            long rest = value;
+            ensureCapacity(11);
+            if (rest < 0) {
+                bytes[length++] = '-';
+                rest = -rest;
+            }
+            int digits = 1;
+            for (long r = rest / 10; r > 0; r /= 10) {
+                digits++;
+            }
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + rest % 10);
+                rest /= 10;
+            }
+            length += digits;
+        }
+
+        /**
+         * Writes a JSON string, escaped like Jackson does, encoded in UTF-8; {@code null} is written as such.
+         */
+        private void writeString(String s) {
+            if (s == null) {
+                writeAscii("null");
+                return;
+            }
+            // At most 6 bytes per char, for the escaped control characters
+            ensureCapacity(s.length() * 6 + 2);
+            bytes[length++] = '"';
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c >= 0x20 && c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        bytes[length++] = '\\';
+                    }
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x20) {
+                    writeEscaped(c);
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | c >> 6);
+                    bytes[length++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    bytes[length++] = (byte) (0xf0 | codePoint >> 18);
+                    bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    bytes[length++] = (byte) (0x80 | codePoint & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    bytes[length++] = '?';
+                } else {
+                    bytes[length++] = (byte) (0xe0 | c >> 12);
+                    bytes[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    bytes[length++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+            bytes[length++] = '"';
+        }
+
+        private void writeEscaped(char c) {
+            bytes[length++] = '\\';
+            switch (c) {
+                case '\n' -> bytes[length++] = 'n';
+                case '\r' -> bytes[length++] = 'r';
+                case '\t' -> bytes[length++] = 't';
+                case '\b' -> bytes[length++] = 'b';
+                case '\f' -> bytes[length++] = 'f';
+                default -> {
+                    bytes[length++] = 'u';
+                    bytes[length++] = '0';
+                    bytes[length++] = '0';
+                    bytes[length++] = HEX_DIGITS[c >> 4];
+                    bytes[length++] = HEX_DIGITS[c & 0xf];
+                }
+            }
+        }
+    }
+}
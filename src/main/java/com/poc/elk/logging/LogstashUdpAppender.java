@@ -0,0 +1,253 @@
+package com.poc.elk.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the logging events to the {@code udp} input of Logstash, with its {@code json} codec.
+ * <p>
+ * The logging threads never block: they only queue the events, which are dropped when the queue is full. A sender
+ * thread encodes them and packs as many as fit in a datagram, as a JSON array that Logstash splits into events; an
+ * event larger than a datagram is sent alone, up to the largest UDP datagram. The datagrams are written from reused
+ * direct buffers to a non-blocking channel, and dropped when the socket cannot take them.
+ * <p>
+ * Meters:
+ * <ul>
+ *     <li>{@value #DATAGRAMS_METER_NAME}: the datagrams sent;</li>
+ *     <li>{@value #DROPPED_METER_NAME}: the events dropped, tagged {@code reason} ({@code queue-full},
+ *     {@code too-large}, {@code encoding-failed} or {@code send-failed}).</li>
+ * </ul>
+ */
+public class LogstashUdpAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    public static final String DATAGRAMS_METER_NAME = "logging.logstash.datagrams";
+    public static final String DROPPED_METER_NAME = "logging.logstash.dropped";
+
+    /**
+     * The largest payload of a UDP datagram over IPv4.
+     */
+    public static final int MAX_UDP_PAYLOAD = 65_507;
+
+    private static final byte ARRAY_START = '[';
+    private static final byte SEPARATOR = ',';
+    private static final byte ARRAY_END = ']';
+    private static final long POLL_MILLIS = 100;
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    private final String host;
+
+    private final int port;
+
+    private final int maxDatagramSize;
+
+    private final Encoder<ILoggingEvent> encoder;
+
+    private final BlockingQueue<ILoggingEvent> queue;
+
+    private final Counter datagramsCounter;
+
+    private final Counter queueFullCounter;
+
+    private final Counter tooLargeCounter;
+
+    private final Counter encodingFailedCounter;
+
+    private final Counter sendFailedCounter;
+
+    private DatagramChannel channel;
+
+    private ByteBuffer datagram;
+
+    private ByteBuffer largeDatagram;
+
+    private Thread sender;
+
+    /**
+     * @param host the host of Logstash.
+     * @param port the port of its {@code udp} input.
+     * @param maxDatagramSize the size of the datagrams packing several events, usually the MTU minus the IP and UDP
+     * headers.
+     * @param queueSize the number of events waiting to be sent, beyond which the events are dropped.
+     * @param encoder the encoder of the events into JSON objects, without line separator.
+     * @param registry the meter registry.
+     */
+    public LogstashUdpAppender(
+        String host,
+        int port,
+        int maxDatagramSize,
+        int queueSize,
+        Encoder<ILoggingEvent> encoder,
+        MeterRegistry registry
+    ) {
+        if (maxDatagramSize < 3 || maxDatagramSize > MAX_UDP_PAYLOAD) {
+            throw new IllegalArgumentException(
+                "The datagrams must hold between 3 and " + MAX_UDP_PAYLOAD + " bytes, not " + maxDatagramSize
+            );
+        }
+        this.host = host;
+        this.port = port;
+        this.maxDatagramSize = maxDatagramSize;
+        this.encoder = encoder;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.datagramsCounter = Counter.builder(DATAGRAMS_METER_NAME)
+            .description("Number of datagrams sent to Logstash")
+            .register(registry);
+        this.queueFullCounter = droppedCounter("queue-full", registry);
+        this.tooLargeCounter = droppedCounter("too-large", registry);
+        this.encodingFailedCounter = droppedCounter("encoding-failed", registry);
+        this.sendFailedCounter = droppedCounter("send-failed", registry);
+    }
+
+    private static Counter droppedCounter(String reason, MeterRegistry registry) {
+        return Counter.builder(DROPPED_METER_NAME)
+            .description("Number of logging events not sent to Logstash")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(new InetSocketAddress(host, port));
+        } catch (IOException | UnresolvedAddressException e) {
+            addError("Cannot send the logs to Logstash on " + host + ":" + port, e);
+            closeChannel();
+            return;
+        }
+        if (!encoder.isStarted()) {
+            encoder.start();
+        }
+        datagram = ByteBuffer.allocateDirect(maxDatagramSize);
+        sender = new Thread(this::sendLoop, "logstash-udp-sender");
+        sender.setDaemon(true);
+        super.start();
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        // The sender sends the queued events, then stops
+        super.stop();
+        try {
+            sender.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeChannel();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (!queue.offer(event)) {
+            queueFullCounter.increment();
+        }
+    }
+
+    private void sendLoop() {
+        byte[] pending = null;
+        while (isStarted() || pending != null || !queue.isEmpty()) {
+            byte[] first;
+            try {
+                first = pending != null ? pending : encode(queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pending = null;
+            if (first == null) {
+                continue;
+            }
+            if (first.length + 2 > maxDatagramSize) {
+                sendAlone(first);
+                continue;
+            }
+            datagram.clear();
+            datagram.put(ARRAY_START).put(first);
+            int events = 1;
+            ILoggingEvent next;
+            while (pending == null && (next = queue.poll()) != null) {
+                byte[] encoded = encode(next);
+                if (encoded == null) {
+                    continue;
+                }
+                if (datagram.position() + encoded.length + 2 > maxDatagramSize) {
+                    pending = encoded;
+                } else {
+                    datagram.put(SEPARATOR).put(encoded);
+                    events++;
+                }
+            }
+            datagram.put(ARRAY_END).flip();
+            send(datagram, events);
+        }
+    }
+
+    private byte[] encode(ILoggingEvent event) {
+        if (event == null) {
+            return null;
+        }
+        try {
+            return encoder.encode(event);
+        } catch (RuntimeException e) {
+            encodingFailedCounter.increment();
+            return null;
+        }
+    }
+
+    private void sendAlone(byte[] event) {
+        if (event.length + 2 > MAX_UDP_PAYLOAD) {
+            tooLargeCounter.increment();
+            return;
+        }
+        if (largeDatagram == null) {
+            largeDatagram = ByteBuffer.allocateDirect(MAX_UDP_PAYLOAD);
+        }
+        largeDatagram.clear();
+        largeDatagram.put(ARRAY_START).put(event).put(ARRAY_END).flip();
+        send(largeDatagram, 1);
+    }
+
+    private void send(ByteBuffer buffer, int events) {
+        try {
+            // A non-blocking channel writes the whole datagram, or nothing when the socket buffer is full
+            if (channel.write(buffer) > 0) {
+                datagramsCounter.increment();
+                return;
+            }
+        } catch (IOException e) {
+            // Such as the port unreachable while Logstash is down
+        }
+        sendFailedCounter.increment(events);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            addWarn("Cannot close the channel to Logstash", e);
+        }
+    }
+}
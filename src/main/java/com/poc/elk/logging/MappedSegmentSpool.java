@@ -0,0 +1,258 @@
+package com.poc.elk.logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A first-in first-out queue of records spooled to memory-mapped segment files, which survives restarts.
+ * <p>
+ * Each segment file holds records written one after the other: their length, then their bytes. The length is written
+ * last, so that a record interrupted by a crash reads as the end of the segment. A consumed record has its length
+ * negated, and a segment is deleted once all its records are consumed and another one is written.
+ * <p>
+ * Not thread-safe: a single thread offers and consumes the records; the sizes can be read from any thread.
+ */
+public class MappedSegmentSpool implements Closeable {
+
+    static final String SEGMENT_SUFFIX = ".spool";
+
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long maxSize;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSequence;
+
+    private volatile int size;
+
+    private volatile long bytes;
+
+    /**
+     * Open a spool, with the records left in its directory.
+     *
+     * @param directory the directory of the segment files, which must not be shared by two spools.
+     * @param segmentSize the size of a segment file, which bounds the size of a record.
+     * @param maxSize the total size of the segment files, beyond which records are refused.
+     * @throws IOException if the directory or its segments cannot be read.
+     */
+    public MappedSegmentSpool(Path directory, int segmentSize, long maxSize) throws IOException {
+        if (segmentSize <= LENGTH_BYTES || maxSize < segmentSize) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentSize + " for a spool of " + maxSize + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list
+                .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted(Comparator.comparingLong(MappedSegmentSpool::sequence))
+                .toList();
+        }
+        for (Path file : files) {
+            Segment segment = new Segment(file, sequence(file));
+            segments.addLast(segment);
+            nextSequence = segment.sequence + 1;
+            size += segment.pendingRecords;
+            bytes += segment.pendingBytes;
+        }
+    }
+
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param record the record, not empty.
+     * @return {@code false} if the record is larger than a segment, or the spool is full.
+     * @throws IOException if a segment file cannot be created.
+     */
+    public boolean offer(byte[] record) throws IOException {
+        int recordSize = LENGTH_BYTES + record.length;
+        if (record.length == 0 || recordSize > segmentSize) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || segmentSize - tail.writePosition < recordSize) {
+            // The consumed segments are deleted, including the last one since it is full
+            while (!segments.isEmpty() && segments.peekFirst().pendingRecords == 0) {
+                segments.pollFirst().delete();
+            }
+            if ((long) (segments.size() + 1) * segmentSize > maxSize) {
+                return false;
+            }
+            tail = new Segment(directory.resolve(String.format("%019d", nextSequence) + SEGMENT_SUFFIX), nextSequence);
+            nextSequence++;
+            segments.addLast(tail);
+        }
+        tail.append(record);
+        size++;
+        bytes += record.length;
+        return true;
+    }
+
+    /**
+     * @return the oldest record, which stays in the spool until {@link #remove() removed}; {@code null} if empty.
+     */
+    public byte[] peek() {
+        deleteConsumedHead();
+        Segment head = segments.peekFirst();
+        return head != null ? head.peek() : null;
+    }
+
+    /**
+     * Remove the oldest record, if any.
+     */
+    public void remove() {
+        deleteConsumedHead();
+        Segment head = segments.peekFirst();
+        if (head != null) {
+            int length = head.consume();
+            if (length > 0) {
+                size--;
+                bytes -= length;
+            }
+        }
+    }
+
+    /**
+     * @return the number of records in the spool.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes of the records in the spool.
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        segments.forEach(Segment::close);
+        segments.clear();
+    }
+
+    private void deleteConsumedHead() {
+        // The last segment is kept, to write the next records
+        while (segments.size() > 1 && segments.peekFirst().pendingRecords == 0) {
+            segments.pollFirst().delete();
+        }
+    }
+
+    private final class Segment {
+
+        private final Path file;
+
+        private final long sequence;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private int readPosition;
+
+        private int writePosition;
+
+        private int pendingRecords;
+
+        private long pendingBytes;
+
+        private Segment(Path file, long sequence) throws IOException {
+            this.file = file;
+            this.sequence = sequence;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            scan();
+        }
+
+        private void scan() {
+            int position = 0;
+            boolean consumed = true;
+            while (position + LENGTH_BYTES <= segmentSize) {
+                int length = buffer.getInt(position);
+                if (length == 0 || position + LENGTH_BYTES + Math.abs(length) > segmentSize) {
+                    break;
+                }
+                if (length > 0) {
+                    consumed = false;
+                    pendingRecords++;
+                    pendingBytes += length;
+                } else if (consumed) {
+                    readPosition = position + LENGTH_BYTES - length;
+                }
+                position += LENGTH_BYTES + Math.abs(length);
+            }
+            writePosition = position;
+        }
+
+        private void append(byte[] record) {
+            buffer.put(writePosition + LENGTH_BYTES, record);
+            buffer.putInt(writePosition, record.length);
+            buffer.force();
+            writePosition += LENGTH_BYTES + record.length;
+            pendingRecords++;
+            pendingBytes += record.length;
+        }
+
+        private byte[] peek() {
+            if (pendingRecords == 0) {
+                return null;
+            }
+            byte[] record = new byte[buffer.getInt(readPosition)];
+            buffer.get(readPosition + LENGTH_BYTES, record);
+            return record;
+        }
+
+        private int consume() {
+            if (pendingRecords == 0) {
+                return 0;
+            }
+            int length = buffer.getInt(readPosition);
+            buffer.putInt(readPosition, -length);
+            buffer.force(readPosition, LENGTH_BYTES);
+            readPosition += LENGTH_BYTES + length;
+            pendingRecords--;
+            pendingBytes -= length;
+            return length;
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The mapping stays valid until garbage collected
+            }
+        }
+
+        private void delete() {
+            close();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Deleted again on the next start, as it only holds consumed records
+            }
+        }
+    }
+}
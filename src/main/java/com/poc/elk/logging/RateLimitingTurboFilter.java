@@ -0,0 +1,354 @@
+package com.poc.elk.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Limits the floods of log events, such as one error per request while a dependency is down.
+ * <p>
+ * The events at or above a level must take a token from the bucket of their logger, and from the bucket of their
+ * message template: the format, before its arguments are substituted. When a bucket is empty, a sample of the events
+ * still gets through, the others are suppressed. Every summary interval, the number of events suppressed is logged by
+ * their logger, once per template.
+ * <p>
+ * The buckets are lock-free, each a single compare-and-set on the time it would be full again; the suppressed events
+ * are counted in striped counters. An event below the level, or not enabled for its logger, only costs a comparison.
+ * The templates of a logger are bounded: beyond that, its new templates share the bucket of the logger alone.
+ * <p>
+ * Configured in {@code logback-spring.xml}, from the {@code logging.rate-limit} properties: the properties not set are
+ * empty, and keep the defaults of this filter, as do the invalid ones.
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+    /**
+     * The marker of the summaries, which are never limited.
+     */
+    public static final Marker SUMMARY_MARKER = MarkerFactory.getMarker("RATE_LIMIT_SUMMARY");
+
+    static final String OTHER_TEMPLATES = "(other messages)";
+
+    private static final String FQCN = RateLimitingTurboFilter.class.getName();
+
+    private boolean enabled = true;
+
+    private Level level = Level.WARN;
+
+    private double loggerRate = 100;
+
+    private int loggerBurst = 500;
+
+    private double templateRate = 10;
+
+    private int templateBurst = 50;
+
+    private double sampleRate = 0.01;
+
+    private Duration summaryInterval = Duration.ofSeconds(10);
+
+    private int maxTemplates = 100;
+
+    private LongSupplier nanoClock = System::nanoTime;
+
+    private final Map<String, LoggerState> loggers = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService summarizer;
+
+    public void setEnabled(String enabled) {
+        this.enabled = parse("enabled", enabled, Boolean::parseBoolean, this.enabled);
+    }
+
+    /**
+     * @param level the level at and above which the events are limited.
+     */
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, this.level);
+    }
+
+    /**
+     * @param loggerRate the events per second of a logger.
+     */
+    public void setLoggerRate(String loggerRate) {
+        this.loggerRate = parse("loggerRate", loggerRate, Double::parseDouble, this.loggerRate);
+    }
+
+    /**
+     * @param loggerBurst the events a logger can log at once, after a quiet period.
+     */
+    public void setLoggerBurst(String loggerBurst) {
+        this.loggerBurst = parse("loggerBurst", loggerBurst, Integer::parseInt, this.loggerBurst);
+    }
+
+    /**
+     * @param templateRate the events per second of a message template.
+     */
+    public void setTemplateRate(String templateRate) {
+        this.templateRate = parse("templateRate", templateRate, Double::parseDouble, this.templateRate);
+    }
+
+    /**
+     * @param templateBurst the events of a message template that can be logged at once, after a quiet period.
+     */
+    public void setTemplateBurst(String templateBurst) {
+        this.templateBurst = parse("templateBurst", templateBurst, Integer::parseInt, this.templateBurst);
+    }
+
+    /**
+     * @param sampleRate the probability that an event beyond the rates is logged anyway.
+     */
+    public void setSampleRate(String sampleRate) {
+        this.sampleRate = parse("sampleRate", sampleRate, Double::parseDouble, this.sampleRate);
+    }
+
+    /**
+     * @param summaryInterval the interval of the summaries, such as {@code 10s}; positive.
+     */
+    public void setSummaryInterval(String summaryInterval) {
+        this.summaryInterval = parse("summaryInterval", summaryInterval, RateLimitingTurboFilter::parseInterval, this.summaryInterval);
+    }
+
+    /**
+     * @param maxTemplates the message templates of a logger with buckets of their own.
+     */
+    public void setMaxTemplates(String maxTemplates) {
+        this.maxTemplates = parse("maxTemplates", maxTemplates, Integer::parseInt, this.maxTemplates);
+    }
+
+    void setNanoClock(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (loggerRate <= 0 || templateRate <= 0 || loggerBurst < 1 || templateBurst < 1 || sampleRate < 0 || sampleRate > 1) {
+            addError("Invalid rate limits, the log events are not limited");
+            return;
+        }
+        summarizer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-rate-limit-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = summaryInterval.toMillis();
+        summarizer.scheduleWithFixedDelay(this::summarize, interval, interval, TimeUnit.MILLISECONDS);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (summarizer != null) {
+            summarizer.shutdownNow();
+        }
+        loggers.clear();
+        super.stop();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // The is*Enabled() checks have no format
+        if (
+            !isStarted() ||
+            format == null ||
+            level.levelInt < this.level.levelInt ||
+            level.levelInt < logger.getEffectiveLevel().levelInt ||
+            marker == SUMMARY_MARKER
+        ) {
+            return FilterReply.NEUTRAL;
+        }
+        LoggerState loggerState = loggers.get(logger.getName());
+        if (loggerState == null) {
+            loggerState = loggers.computeIfAbsent(logger.getName(), name -> new LoggerState(newBucket(loggerRate, loggerBurst)));
+        }
+        TemplateState templateState = loggerState.template(format);
+        long now = nanoClock.getAsLong();
+        boolean allowed = templateState.bucket == null || templateState.bucket.tryAcquire(now);
+        if (allowed && !loggerState.bucket.tryAcquire(now)) {
+            // The event is suppressed by its logger: its template keeps the token for its next event
+            if (templateState.bucket != null) {
+                templateState.bucket.release();
+            }
+            allowed = false;
+        }
+        if (allowed || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            return FilterReply.NEUTRAL;
+        }
+        templateState.suppressed.increment();
+        if (templateState.level != level) {
+            templateState.level = level;
+        }
+        return FilterReply.DENY;
+    }
+
+    /**
+     * Logs the events suppressed since the last summary, and forgets the templates and loggers back to rest.
+     */
+    void summarize() {
+        long now = nanoClock.getAsLong();
+        String interval = print(summaryInterval);
+        loggers.forEach((loggerName, loggerState) -> {
+            loggerState.templates.forEach((format, templateState) -> {
+                long suppressed = templateState.suppressed.sumThenReset();
+                if (suppressed > 0) {
+                    logSummary(loggerName, templateState.level, suppressed, interval, format);
+                } else if (templateState.bucket == null || templateState.bucket.isFull(now)) {
+                    loggerState.templates.remove(format, templateState);
+                }
+            });
+            if (loggerState.templates.isEmpty() && loggerState.bucket.isFull(now)) {
+                loggers.remove(loggerName, loggerState);
+            }
+        });
+    }
+
+    private void logSummary(String loggerName, Level level, long suppressed, String interval, String format) {
+        Logger logger = ((LoggerContext) getContext()).getLogger(loggerName);
+        logger.log(
+            SUMMARY_MARKER,
+            FQCN,
+            Level.toLocationAwareLoggerInteger(level),
+            "{} similar events suppressed in the last {}: {}",
+            new Object[] { suppressed, interval, format },
+            null
+        );
+    }
+
+    /**
+     * @return the value, or the current one if the value is empty or invalid.
+     */
+    private <T> T parse(String name, String value, Function<String, T> parser, T current) {
+        if (value == null || value.isBlank()) {
+            return current;
+        }
+        try {
+            return parser.apply(value.trim());
+        } catch (IllegalArgumentException e) {
+            addError("Invalid " + name + " " + value + ", keeping " + current, e);
+            return current;
+        }
+    }
+
+    private static Duration parseInterval(String value) {
+        Duration interval = DurationStyle.detectAndParse(value);
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("The interval must be positive");
+        }
+        return interval;
+    }
+
+    /**
+     * @return the duration in its largest exact unit, such as {@code 10s}.
+     */
+    private static String print(Duration duration) {
+        for (ChronoUnit unit : new ChronoUnit[] { ChronoUnit.HOURS, ChronoUnit.MINUTES, ChronoUnit.SECONDS }) {
+            if (duration.toMillis() % unit.getDuration().toMillis() == 0) {
+                return DurationStyle.SIMPLE.print(duration, unit);
+            }
+        }
+        return DurationStyle.SIMPLE.print(duration, ChronoUnit.MILLIS);
+    }
+
+    private static TokenBucket newBucket(double rate, int burst) {
+        return new TokenBucket((long) (TimeUnit.SECONDS.toNanos(1) / rate), burst);
+    }
+
+    private final class LoggerState {
+
+        private final TokenBucket bucket;
+
+        private final Map<String, TemplateState> templates = new ConcurrentHashMap<>();
+
+        private LoggerState(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+
+        private TemplateState template(String format) {
+            TemplateState state = templates.get(format);
+            if (state != null) {
+                return state;
+            }
+            if (templates.size() >= maxTemplates) {
+                return templates.computeIfAbsent(OTHER_TEMPLATES, other -> new TemplateState(null));
+            }
+            return templates.computeIfAbsent(format, key -> new TemplateState(newBucket(templateRate, templateBurst)));
+        }
+    }
+
+    private static final class TemplateState {
+
+        /**
+         * {@code null} for the templates beyond the maximum, only limited by the bucket of their logger.
+         */
+        private final TokenBucket bucket;
+
+        private final LongAdder suppressed = new LongAdder();
+
+        private volatile Level level = Level.WARN;
+
+        private TemplateState(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * A token bucket, as the time at which it would be full again: each event takes it one emission interval further,
+     * as long as it stays within the burst from now.
+     */
+    private static final class TokenBucket {
+
+        private final long emissionInterval;
+
+        private final long burstInterval;
+
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        private TokenBucket(long emissionInterval, int burst) {
+            this.emissionInterval = Math.max(1, emissionInterval);
+            this.burstInterval = this.emissionInterval * burst;
+        }
+
+        private boolean tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + emissionInterval;
+                if (next - now > burstInterval) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gives back a token taken by {@link #tryAcquire(long)}.
+         */
+        private void release() {
+            fullAt.addAndGet(-emissionInterval);
+        }
+
+        private boolean isFull(long now) {
+            long current = fullAt.get();
+            return current == Long.MIN_VALUE || current - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Logging infrastructure: shipping of the logs to the ELK stack.
+ */
+package com.poc.elk.logging;
@@ -0,0 +1,21 @@
+package com.poc.elk.management;
+
+/**
+ * Loads entries into caches ahead of their first use, on demand of the {@link EhcacheEndpoint}.
+ */
+public interface CacheWarmer {
+    /**
+     * @param cacheName the name of a cache.
+     * @return {@code true} if this warmer can load entries into the cache.
+     */
+    boolean supports(String cacheName);
+
+    /**
+     * Load entries into a cache; entries beyond its capacity evict the others.
+     *
+     * @param cacheName the name of the cache, which this warmer {@link #supports(String) supports}.
+     * @param limit the maximum number of entries to load.
+     * @return the number of entries loaded.
+     */
+    int warm(String cacheName, int limit);
+}
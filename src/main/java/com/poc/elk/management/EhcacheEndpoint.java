@@ -0,0 +1,180 @@
+package com.poc.elk.management;
+
+import com.poc.elk.cache.EhcacheStatistics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import javax.cache.management.CacheStatisticsMXBean;
+import org.ehcache.config.ResourcePool;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the Ehcache caches on {@code /management/ehcache}: their tiers, entries and statistics.
+ * <p>
+ * A cache can also be cleared ({@code DELETE /management/ehcache/{name}}), and resized or pre-warmed
+ * ({@code POST /management/ehcache/{name}} with {@code heapEntries} or {@code prewarm}). Clearing goes through the
+ * Spring {@link CacheManager}, so that the other nodes clear the cache too; resizing only applies to this node.
+ */
+@Component
+@Endpoint(id = "ehcache")
+public class EhcacheEndpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EhcacheEndpoint.class);
+
+    private final javax.cache.CacheManager jCacheManager;
+
+    private final CacheManager cacheManager;
+
+    private final List<CacheWarmer> cacheWarmers;
+
+    public EhcacheEndpoint(javax.cache.CacheManager jCacheManager, CacheManager cacheManager, List<CacheWarmer> cacheWarmers) {
+        this.jCacheManager = jCacheManager;
+        this.cacheManager = cacheManager;
+        this.cacheWarmers = cacheWarmers;
+    }
+
+    @ReadOperation
+    public Map<String, CacheDescriptor> caches() {
+        Map<String, CacheDescriptor> caches = new TreeMap<>();
+        for (String name : jCacheManager.getCacheNames()) {
+            javax.cache.Cache<?, ?> cache = jCacheManager.getCache(name);
+            if (cache != null) {
+                caches.put(name, describe(cache));
+            }
+        }
+        return caches;
+    }
+
+    @ReadOperation
+    public CacheDescriptor cache(@Selector String name) {
+        javax.cache.Cache<?, ?> cache = jCacheManager.getCache(name);
+        return cache != null ? describe(cache) : null;
+    }
+
+    @DeleteOperation
+    public CacheDescriptor clear(@Selector String name) {
+        javax.cache.Cache<?, ?> cache = jCacheManager.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        LOG.info("Clearing cache {}", name);
+        Objects.requireNonNull(cacheManager.getCache(name)).clear();
+        return describe(cache);
+    }
+
+    /**
+     * Resize the heap tier of a cache, and/or pre-warm it.
+     *
+     * @param name the name of the cache.
+     * @param heapEntries the new number of entries of the heap tier, {@code null} to keep it.
+     * @param prewarm the maximum number of entries to load, {@code null} not to.
+     * @return the cache, {@code null} if there is none.
+     */
+    @WriteOperation
+    public CacheDescriptor update(@Selector String name, @Nullable Long heapEntries, @Nullable Integer prewarm) {
+        javax.cache.Cache<?, ?> cache = jCacheManager.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        if (heapEntries != null) {
+            resize(cache, heapEntries);
+        }
+        if (prewarm != null) {
+            prewarm(name, prewarm);
+        }
+        return describe(cache);
+    }
+
+    private void resize(javax.cache.Cache<?, ?> cache, long heapEntries) {
+        org.ehcache.Cache<?, ?> ehcache = EhcacheStatistics.unwrap(cache);
+        if (ehcache == null || heapEntries <= 0) {
+            throw new InvalidEndpointRequestException("Cannot resize " + cache.getName(), "Invalid heap size");
+        }
+        LOG.info("Resizing the heap of cache {} to {} entries", cache.getName(), heapEntries);
+        try {
+            ehcache.getRuntimeConfiguration().updateResourcePools(ResourcePoolsBuilder.heap(heapEntries).build());
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), "Invalid heap size");
+        }
+    }
+
+    private void prewarm(String name, int limit) {
+        if (limit <= 0) {
+            throw new InvalidEndpointRequestException("Cannot pre-warm " + name + " with " + limit + " entries", "Invalid pre-warm");
+        }
+        CacheWarmer cacheWarmer = cacheWarmers
+            .stream()
+            .filter(warmer -> warmer.supports(name))
+            .findFirst()
+            .orElseThrow(() -> new InvalidEndpointRequestException("Cache " + name + " cannot be pre-warmed", "Invalid pre-warm"));
+        int loaded = cacheWarmer.warm(name, limit);
+        LOG.info("Pre-warmed cache {} with {} entries", name, loaded);
+    }
+
+    private static CacheDescriptor describe(javax.cache.Cache<?, ?> cache) {
+        Map<String, String> resourcePools = new LinkedHashMap<>();
+        org.ehcache.Cache<?, ?> ehcache = EhcacheStatistics.unwrap(cache);
+        if (ehcache != null) {
+            for (ResourceType<?> type : ehcache.getRuntimeConfiguration().getResourcePools().getResourceTypeSet()) {
+                ResourcePool pool = ehcache.getRuntimeConfiguration().getResourcePools().getPoolForResource(type);
+                resourcePools.put(type.toString().toLowerCase(Locale.ENGLISH), pool.toString());
+            }
+        }
+        return new CacheDescriptor(
+            resourcePools,
+            EhcacheStatistics.tierEntries(cache),
+            EhcacheStatistics.jcacheStatistics(cache).map(CacheStatistics::of).orElse(null)
+        );
+    }
+
+    /**
+     * @param resourcePools the size of each tier.
+     * @param tierEntries the entries of each tier.
+     * @param statistics the statistics, {@code null} if they are disabled.
+     */
+    public record CacheDescriptor(Map<String, String> resourcePools, Map<String, Long> tierEntries, CacheStatistics statistics) {}
+
+    /**
+     * The JCache statistics of a cache, since it was created; the durations are in microseconds.
+     */
+    public record CacheStatistics(
+        long gets,
+        long hits,
+        long misses,
+        float hitPercentage,
+        long puts,
+        long removals,
+        long evictions,
+        float averageGetMicros,
+        float averagePutMicros
+    ) {
+        static CacheStatistics of(CacheStatisticsMXBean bean) {
+            return new CacheStatistics(
+                bean.getCacheGets(),
+                bean.getCacheHits(),
+                bean.getCacheMisses(),
+                bean.getCacheHitPercentage(),
+                bean.getCachePuts(),
+                bean.getCacheRemovals(),
+                bean.getCacheEvictions(),
+                bean.getAverageGetTime(),
+                bean.getAveragePutTime()
+            );
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.poc.elk.management;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Warms the second-level cache region of an entity by loading its first entities, by id.
+ */
+@Component
+public class EntityCacheWarmer implements CacheWarmer {
+
+    private final EntityManager entityManager;
+
+    public EntityCacheWarmer(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public boolean supports(String cacheName) {
+        EntityPersister persister = findPersister(cacheName);
+        return persister != null && persister.canWriteToCache();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int warm(String cacheName, int limit) {
+        EntityPersister persister = findPersister(cacheName);
+        String idName = persister.getIdentifierPropertyName();
+        return entityManager
+            .createQuery("select e from " + persister.getEntityName() + " e order by e." + idName, Object.class)
+            .setMaxResults(limit)
+            .getResultList()
+            .size();
+    }
+
+    private EntityPersister findPersister(String cacheName) {
+        return entityManager
+            .getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .findEntityDescriptor(cacheName);
+    }
+}
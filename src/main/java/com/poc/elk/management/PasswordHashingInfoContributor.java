@@ -0,0 +1,35 @@
+package com.poc.elk.management;
+
+import com.poc.elk.security.BCryptCalibration;
+import java.util.Map;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the calibrated BCrypt strength on the {@code /management/info} endpoint.
+ */
+@Component
+public class PasswordHashingInfoContributor implements InfoContributor {
+
+    private final BCryptCalibration bCryptCalibration;
+
+    public PasswordHashingInfoContributor(BCryptCalibration bCryptCalibration) {
+        this.bCryptCalibration = bCryptCalibration;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail(
+            "passwordHashing",
+            Map.of(
+                "algorithm",
+                "bcrypt",
+                "strength",
+                bCryptCalibration.strength(),
+                "hashTimeMillis",
+                bCryptCalibration.hashTime().toMillis()
+            )
+        );
+    }
+}
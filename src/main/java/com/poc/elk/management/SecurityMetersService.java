@@ -2,6 +2,10 @@ package com.poc.elk.management;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,16 +17,70 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    public static final String JWT_CACHE_METER_NAME = "security.authentication.jwt-cache";
+    public static final String JWT_CACHE_METER_DESCRIPTION =
+        "Indicates how many of the tokens presented by the clients were already verified.";
+    public static final String JWT_CACHE_METER_RESULT_DIMENSION = "result";
+
+    public static final String UNKNOWN_USERS_METER_NAME = "security.authentication.unknown-users";
+    public static final String UNKNOWN_USERS_METER_DESCRIPTION =
+        "Indicates how many lookups of the users presented by the clients were answered by the cache of unknown users.";
+    public static final String UNKNOWN_USERS_METER_RESULT_DIMENSION = "result";
+
+    public static final String JWT_DECODE_METER_NAME = "security.authentication.jwt-decode";
+    public static final String JWT_DECODE_METER_DESCRIPTION = "Indicates how long it takes to decode the tokens presented by the clients.";
+    public static final String JWT_DECODE_METER_OUTCOME_DIMENSION = "outcome";
+
+    /**
+     * Outcome of the decoding of a token.
+     */
+    public enum JwtDecodeOutcome {
+        VALID("valid"),
+        EXPIRED("expired"),
+        INVALID_SIGNATURE("invalid-signature"),
+        UNSUPPORTED("unsupported"),
+        MALFORMED("malformed"),
+        UNKNOWN("unknown");
+
+        private final String tag;
+
+        JwtDecodeOutcome(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
+    private final Counter jwtCacheHitCounter;
+    private final Counter jwtCacheMissCounter;
+    private final Counter unknownUsersHitCounter;
+    private final Counter unknownUsersMissCounter;
+    private final Map<JwtDecodeOutcome, Timer> jwtDecodeTimers = new EnumMap<>(JwtDecodeOutcome.class);
 
     public SecurityMetersService(MeterRegistry registry) {
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
         this.tokenMalformedCounter = invalidTokensCounterForCauseBuilder("malformed").register(registry);
+        this.jwtCacheHitCounter = jwtCacheCounterForResultBuilder("hit").register(registry);
+        this.jwtCacheMissCounter = jwtCacheCounterForResultBuilder("miss").register(registry);
+        this.unknownUsersHitCounter = unknownUsersCounterForResultBuilder("hit").register(registry);
+        this.unknownUsersMissCounter = unknownUsersCounterForResultBuilder("miss").register(registry);
+        for (JwtDecodeOutcome outcome : JwtDecodeOutcome.values()) {
+            jwtDecodeTimers.put(
+                outcome,
+                Timer.builder(JWT_DECODE_METER_NAME)
+                    .description(JWT_DECODE_METER_DESCRIPTION)
+                    .tag(JWT_DECODE_METER_OUTCOME_DIMENSION, outcome.getTag())
+                    .register(registry)
+            );
+        }
     }
 
     private Counter.Builder invalidTokensCounterForCauseBuilder(String cause) {
@@ -32,6 +90,18 @@ public class SecurityMetersService {
             .tag(INVALID_TOKENS_METER_CAUSE_DIMENSION, cause);
     }
 
+    private Counter.Builder jwtCacheCounterForResultBuilder(String result) {
+        return Counter.builder(JWT_CACHE_METER_NAME)
+            .description(JWT_CACHE_METER_DESCRIPTION)
+            .tag(JWT_CACHE_METER_RESULT_DIMENSION, result);
+    }
+
+    private Counter.Builder unknownUsersCounterForResultBuilder(String result) {
+        return Counter.builder(UNKNOWN_USERS_METER_NAME)
+            .description(UNKNOWN_USERS_METER_DESCRIPTION)
+            .tag(UNKNOWN_USERS_METER_RESULT_DIMENSION, result);
+    }
+
     public void trackTokenInvalidSignature() {
         this.tokenInvalidSignatureCounter.increment();
     }
@@ -47,4 +117,39 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    public void trackJwtCacheHit() {
+        this.jwtCacheHitCounter.increment();
+    }
+
+    public void trackJwtCacheMiss() {
+        this.jwtCacheMissCounter.increment();
+    }
+
+    public void trackUnknownUserHit() {
+        this.unknownUsersHitCounter.increment();
+    }
+
+    public void trackUnknownUserMiss() {
+        this.unknownUsersMissCounter.increment();
+    }
+
+    /**
+     * Track the decoding of a token: its duration, and its cause if the token was rejected.
+     *
+     * @param outcome the outcome of the decoding.
+     * @param durationNanos how long the decoding took.
+     */
+    public void trackJwtDecode(JwtDecodeOutcome outcome, long durationNanos) {
+        jwtDecodeTimers.get(outcome).record(durationNanos, TimeUnit.NANOSECONDS);
+        switch (outcome) {
+            case EXPIRED -> trackTokenExpired();
+            case INVALID_SIGNATURE -> trackTokenInvalidSignature();
+            case UNSUPPORTED -> trackTokenUnsupported();
+            case MALFORMED -> trackTokenMalformed();
+            default -> {
+                // Not a cause of rejection tracked by a counter
+            }
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.poc.elk.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load is in flight, other callers asking for the same key
+ * wait for its result instead of starting their own.
+ * <p>
+ * This protects the database when a popular entry expires from a cache and many requests miss it at once.
+ * Nothing is cached here: once the load completes, the next call for the key loads it again.
+ * <p>
+ * The waiting callers share the value, and the exception, of the load: values must be immutable, such as snapshots or
+ * flags, and never JPA entities, which belong to the persistence context of the thread that loaded them. To coalesce
+ * the load of an entity, load it into a cache and share whether it was found: each caller then reads its own
+ * instance from the cache.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the loaded values.
+ */
+public class SingleFlight<K, V> {
+
+    public static final String LOADS_METER_NAME = "cache.single-flight.loads";
+    public static final String COALESCED_METER_NAME = "cache.single-flight.coalesced";
+    public static final String IN_FLIGHT_METER_NAME = "cache.single-flight.in-flight";
+    public static final String NAME_DIMENSION = "name";
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter loadsCounter;
+
+    private final Counter coalescedCounter;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.loadsCounter = Counter.builder(LOADS_METER_NAME)
+            .description("Number of loads actually executed")
+            .tag(NAME_DIMENSION, name)
+            .register(registry);
+        this.coalescedCounter = Counter.builder(COALESCED_METER_NAME)
+            .description("Number of loads served by waiting for an identical load already in flight")
+            .tag(NAME_DIMENSION, name)
+            .register(registry);
+        Gauge.builder(IN_FLIGHT_METER_NAME, inFlight, ConcurrentMap::size)
+            .description("Number of keys being loaded")
+            .tag(NAME_DIMENSION, name)
+            .register(registry);
+    }
+
+    /**
+     * Load the value of a key, or wait for the load of the same key already in flight.
+     *
+     * @param key the key.
+     * @param loader the function loading the value, only called if no load of the key is in flight.
+     * @return the loaded value.
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return join(existing);
+        }
+        loadsCounter.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
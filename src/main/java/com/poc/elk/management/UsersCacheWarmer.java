@@ -0,0 +1,32 @@
+package com.poc.elk.management;
+
+import com.poc.elk.repository.UserRepository;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the {@value UserRepository#USERS_BY_LOGIN_CACHE} cache with the most recently modified activated users.
+ */
+@Component
+public class UsersCacheWarmer implements CacheWarmer {
+
+    private final UserRepository userRepository;
+
+    public UsersCacheWarmer(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public boolean supports(String cacheName) {
+        return UserRepository.USERS_BY_LOGIN_CACHE.equals(cacheName);
+    }
+
+    @Override
+    public int warm(String cacheName, int limit) {
+        List<String> logins = userRepository.findRecentlyModifiedActivatedLogins(Limit.of(limit));
+        // Each lookup goes through the cache of the repository
+        logins.forEach(userRepository::findOneWithAuthoritiesByLogin);
+        return logins.size();
+    }
+}
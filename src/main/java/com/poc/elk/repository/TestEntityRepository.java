@@ -1,7 +1,13 @@
 package com.poc.elk.repository;
 
 import com.poc.elk.domain.TestEntity;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +15,58 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TestEntityRepository extends JpaRepository<TestEntity, Long> {}
+public interface TestEntityRepository extends JpaRepository<TestEntity, Long> {
+    int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * Keyset (seek) query: returns the entities whose id is strictly greater than the cursor, in id order.
+     * <p>
+     * Unlike an {@code OFFSET} query, the cost of a page only depends on its size, not on how deep the client paged.
+     *
+     * @param cursor the last id the client has seen.
+     * @param limit the maximum number of entities to return.
+     * @return the next entities after the cursor.
+     */
+    @Query("select testEntity from TestEntity testEntity where testEntity.id > :cursor order by testEntity.id asc")
+    List<TestEntity> findAllAfter(@Param("cursor") Long cursor, Limit limit);
+
+    /**
+     * Id and name of a {@link TestEntity}, as read by {@link #findNamesAfter(Long, Limit)}.
+     */
+    interface IdAndName {
+        Long getId();
+
+        String getName();
+    }
+
+    /**
+     * Keyset query returning only the id and name of the entities whose id is strictly greater than the cursor, in id order.
+     * <p>
+     * Being a projection, it does not load entities in the persistence context nor in the second-level cache.
+     *
+     * @param cursor the last id already read.
+     * @param limit the maximum number of rows to return.
+     * @return the ids and names of the next entities after the cursor.
+     */
+    @Query("select testEntity.id as id, testEntity.name as name from TestEntity testEntity where testEntity.id > :cursor order by testEntity.id asc")
+    List<IdAndName> findNamesAfter(@Param("cursor") Long cursor, Limit limit);
+
+    /**
+     * Streams the entities whose id is strictly greater than the given one, in id order.
+     * <p>
+     * Rows are fetched {@value #EXPORT_FETCH_SIZE} at a time, bypass the second-level cache and are not dirty-checked.
+     * The stream must be consumed, and closed, inside a transaction.
+     *
+     * @param fromId the last id already read.
+     * @return the stream of entities after {@code fromId}.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"),
+        }
+    )
+    @Query("select testEntity from TestEntity testEntity where testEntity.id > :fromId order by testEntity.id asc")
+    Stream<TestEntity> streamAllAfter(@Param("fromId") Long fromId);
+}
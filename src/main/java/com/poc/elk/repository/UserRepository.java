@@ -2,13 +2,18 @@ package com.poc.elk.repository;
 
 import com.poc.elk.domain.User;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Spring Data JPA repository for the {@link User} entity.
@@ -32,5 +37,82 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Cacheable(cacheNames = USERS_BY_EMAIL_CACHE, unless = "#result == null")
     Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
 
+    /**
+     * Like {@link #findOneWithAuthoritiesByLogin(String)}, without caching the entity: the authentication caches a
+     * {@link com.poc.elk.security.PrincipalSnapshot} instead.
+     */
+    @EntityGraph(attributePaths = "authorities")
+    Optional<User> findOneForAuthenticationByLogin(String login);
+
+    /**
+     * Like {@link #findOneWithAuthoritiesByEmailIgnoreCase(String)}, without caching the entity: the authentication
+     * caches a {@link com.poc.elk.security.PrincipalSnapshot} instead.
+     */
+    @EntityGraph(attributePaths = "authorities")
+    Optional<User> findOneForAuthenticationByEmailIgnoreCase(String email);
+
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+
+    /**
+     * Replace the password hash of a user, unless it was changed since it was read.
+     *
+     * @param login the login of the user.
+     * @param currentPassword the password hash that was read.
+     * @param newPassword the new password hash.
+     * @return the number of users updated, 0 or 1.
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newPassword where u.login = :login and u.password = :currentPassword")
+    int updatePasswordIfUnchanged(
+        @Param("login") String login,
+        @Param("currentPassword") String currentPassword,
+        @Param("newPassword") String newPassword
+    );
+
+    /**
+     * The keys of a user, enough to evict it from the caches.
+     */
+    interface UserKeys {
+        Long getId();
+
+        String getLogin();
+
+        String getEmail();
+    }
+
+    /**
+     * Find the next chunk of the users which were not activated in time, by increasing id.
+     *
+     * @param dateTime the date before which the users were created.
+     * @param afterId the id after which to look, the last id of the previous chunk.
+     * @param limit the size of the chunk.
+     * @return the keys of the users.
+     */
+    @Query(
+        "select u.id as id, u.login as login, u.email as email from User u" +
+        " where u.activated = false and u.activationKey is not null and u.createdDate < :dateTime and u.id > :afterId" +
+        " order by u.id"
+    )
+    List<UserKeys> findNotActivatedUsersCreatedBefore(@Param("dateTime") Instant dateTime, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Find the logins of the most recently modified activated users, the most likely to log in again.
+     *
+     * @param limit the number of logins.
+     * @return the logins.
+     */
+    @Query("select u.login from User u where u.activated = true order by u.lastModifiedDate desc")
+    List<String> findRecentlyModifiedActivatedLogins(Limit limit);
+
+    /**
+     * Delete users in bulk, along with their rows of the {@code jhi_user_authority} join table, which Hibernate deletes
+     * first. Managed users are detached, as they would be stale.
+     *
+     * @param ids the ids of the users.
+     * @return the number of users deleted.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from User u where u.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,73 @@
+package com.poc.elk.security;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt strength matching the speed of the hardware.
+ * <p>
+ * Each additional unit of strength doubles the cost of a hash: the strength is extrapolated from the time taken by a
+ * hash at the minimum strength, so that a hash takes about the target time, then measured.
+ *
+ * @param strength the BCrypt strength, stored as usual in every hash.
+ * @param hashTime the measured time of a hash at this strength.
+ */
+public record BCryptCalibration(int strength, Duration hashTime) {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private static final String SAMPLE_PASSWORD = "calibration";
+
+    /**
+     * Find the strongest strength whose hashes take at most {@code targetHashTime}.
+     *
+     * @param targetHashTime the target time of a hash.
+     * @param minStrength the strength to use even if its hashes take longer.
+     * @param maxStrength the strength not to exceed even if its hashes are faster.
+     * @return the calibration.
+     */
+    public static BCryptCalibration calibrate(Duration targetHashTime, int minStrength, int maxStrength) {
+        // The quickest of a few hashes is the least disturbed by the JIT compiler and the garbage collector
+        long minStrengthNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            minStrengthNanos = Math.min(minStrengthNanos, measure(minStrength));
+        }
+        int strength = minStrength;
+        while (strength < maxStrength && (minStrengthNanos << (strength + 1 - minStrength)) <= targetHashTime.toNanos()) {
+            strength++;
+        }
+        long hashNanos = strength == minStrength ? minStrengthNanos : measure(strength);
+        return new BCryptCalibration(strength, Duration.ofNanos(hashNanos));
+    }
+
+    private static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * A BCrypt encoder at this strength, which wants to upgrade the hashes of any other strength, lower or higher.
+     *
+     * @return the encoder.
+     */
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder(strength) {
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return isOtherStrength(encodedPassword);
+            }
+        };
+    }
+
+    boolean isOtherStrength(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(2)) != strength;
+    }
+}
@@ -0,0 +1,50 @@
+package com.poc.elk.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} hashing on the {@link PasswordHashingExecutor}, and timing every hash.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    public static final String HASH_METER_NAME = "security.password-hashing.duration";
+    public static final String HASH_METER_OPERATION_DIMENSION = "operation";
+
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingExecutor executor;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.encodeTimer = hashTimerBuilder("encode").register(registry);
+        this.matchesTimer = hashTimerBuilder("matches").register(registry);
+    }
+
+    private static Timer.Builder hashTimerBuilder(String operation) {
+        return Timer.builder(HASH_METER_NAME)
+            .description("Time spent hashing passwords, excluding the wait for a thread")
+            .tag(HASH_METER_OPERATION_DIMENSION, operation);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.call(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.call(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
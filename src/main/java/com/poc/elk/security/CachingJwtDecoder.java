@@ -0,0 +1,97 @@
+package com.poc.elk.security;
+
+import com.poc.elk.management.SecurityMetersService;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * {@link JwtDecoder} remembering the tokens it already verified, so that a token sent again is neither re-verified
+ * nor re-parsed.
+ * <p>
+ * Tokens are kept until they expire, with the same clock skew as the default validator, and are keyed by their
+ * SHA-256 hash so that the cache does not hold credentials. At most {@code maxEntries} tokens are kept: when full,
+ * expired tokens are evicted first, then arbitrary ones. Only successfully decoded tokens are cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    /**
+     * Same as {@link org.springframework.security.oauth2.jwt.JwtTimestampValidator}.
+     */
+    static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private record Entry(Jwt jwt, Instant notAfter) {}
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final JwtDecoder delegate;
+
+    private final int maxEntries;
+
+    private final SecurityMetersService metersService;
+
+    private final Clock clock;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, SecurityMetersService metersService, Clock clock) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.metersService = metersService;
+        this.clock = clock;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = hash(token);
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (clock.instant().isBefore(entry.notAfter())) {
+                metersService.trackJwtCacheHit();
+                return entry.jwt();
+            }
+            // Expired: let the delegate reject it
+            cache.remove(key, entry);
+        }
+        metersService.trackJwtCacheMiss();
+        Jwt jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null) {
+            put(key, new Entry(jwt, jwt.getExpiresAt().plus(CLOCK_SKEW)));
+        }
+        return jwt;
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        if (cache.size() >= maxEntries && !cache.containsKey(key)) {
+            Instant now = clock.instant();
+            cache.values().removeIf(cached -> !now.isBefore(cached.notAfter()));
+            Iterator<String> keys = cache.keySet().iterator();
+            while (cache.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        cache.put(key, entry);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
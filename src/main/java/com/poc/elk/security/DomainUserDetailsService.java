@@ -1,7 +1,7 @@
 package com.poc.elk.security;
 
-import com.poc.elk.domain.Authority;
 import com.poc.elk.domain.User;
+import com.poc.elk.management.SingleFlight;
 import com.poc.elk.repository.UserRepository;
 import java.util.*;
 import org.hibernate.validator.internal.constraintvalidators.hv.EmailValidator;
@@ -25,8 +25,22 @@ public class DomainUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final SingleFlight<String, Optional<PrincipalSnapshot>> principalsByLoginSingleFlight;
+
+    private final PrincipalSnapshotCache principalSnapshotCache;
+
+    private final UnknownUsersCache unknownUsersCache;
+
+    public DomainUserDetailsService(
+        UserRepository userRepository,
+        SingleFlight<String, Optional<PrincipalSnapshot>> principalsByLoginSingleFlight,
+        PrincipalSnapshotCache principalSnapshotCache,
+        UnknownUsersCache unknownUsersCache
+    ) {
         this.userRepository = userRepository;
+        this.principalsByLoginSingleFlight = principalsByLoginSingleFlight;
+        this.principalSnapshotCache = principalSnapshotCache;
+        this.unknownUsersCache = unknownUsersCache;
     }
 
     @Override
@@ -35,24 +49,53 @@ public class DomainUserDetailsService implements UserDetailsService {
         LOG.debug("Authenticating {}", login);
 
         if (new EmailValidator().isValid(login, null)) {
-            return userRepository
-                .findOneWithAuthoritiesByEmailIgnoreCase(login)
-                .map(user -> createSpringSecurityUser(login, user))
-                .orElseThrow(() -> new UsernameNotFoundException("User with email " + login + " was not found in the database"));
+            if (unknownUsersCache.isUnknown(login)) {
+                throw new UsernameNotFoundException("User with email " + login + " was not found in the database");
+            }
+            return Optional.ofNullable(principalSnapshotCache.getByEmail(login))
+                .or(() -> {
+                    Optional<PrincipalSnapshot> principal = userRepository
+                        .findOneForAuthenticationByEmailIgnoreCase(login)
+                        .map(PrincipalSnapshot::of);
+                    principal.ifPresent(p -> principalSnapshotCache.putByEmail(login, p));
+                    return principal;
+                })
+                .map(principal -> createSpringSecurityUser(login, principal))
+                .orElseThrow(() -> {
+                    unknownUsersCache.add(login);
+                    return new UsernameNotFoundException("User with email " + login + " was not found in the database");
+                });
         }
 
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        return userRepository
-            .findOneWithAuthoritiesByLogin(lowercaseLogin)
-            .map(user -> createSpringSecurityUser(lowercaseLogin, user))
-            .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database"));
+        if (unknownUsersCache.isUnknown(lowercaseLogin)) {
+            throw new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database");
+        }
+        return Optional.ofNullable(principalSnapshotCache.getByLogin(lowercaseLogin))
+            .or(() ->
+                principalsByLoginSingleFlight.load(lowercaseLogin, () -> {
+                    Optional<PrincipalSnapshot> principal = userRepository
+                        .findOneForAuthenticationByLogin(lowercaseLogin)
+                        .map(PrincipalSnapshot::of);
+                    principal.ifPresent(p -> principalSnapshotCache.putByLogin(lowercaseLogin, p));
+                    return principal;
+                })
+            )
+            .map(principal -> createSpringSecurityUser(lowercaseLogin, principal))
+            .orElseThrow(() -> {
+                unknownUsersCache.add(lowercaseLogin);
+                return new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database");
+            });
     }
 
-    private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
-        if (!user.isActivated()) {
+    private org.springframework.security.core.userdetails.User createSpringSecurityUser(
+        String lowercaseLogin,
+        PrincipalSnapshot principal
+    ) {
+        if (!principal.activated()) {
             throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
         }
-        return UserWithId.fromUser(user);
+        return UserWithId.fromPrincipal(principal);
     }
 
     public static class UserWithId extends org.springframework.security.core.userdetails.User {
@@ -79,11 +122,15 @@ public class DomainUserDetailsService implements UserDetailsService {
         }
 
         public static UserWithId fromUser(User user) {
+            return fromPrincipal(PrincipalSnapshot.of(user));
+        }
+
+        public static UserWithId fromPrincipal(PrincipalSnapshot principal) {
             return new UserWithId(
-                user.getLogin(),
-                user.getPassword(),
-                user.getAuthorities().stream().map(Authority::getName).map(SimpleGrantedAuthority::new).toList(),
-                user.getId()
+                principal.login(),
+                principal.password(),
+                principal.authorities().stream().map(SimpleGrantedAuthority::new).toList(),
+                principal.id()
             );
         }
     }
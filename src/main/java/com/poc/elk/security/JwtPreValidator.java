@@ -0,0 +1,94 @@
+package com.poc.elk.security;
+
+import static com.poc.elk.security.SecurityUtils.JWT_ALGORITHM;
+
+import com.poc.elk.management.SecurityMetersService.JwtDecodeOutcome;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cheap structural checks of a token, run before any cryptography so that garbage and forged tokens are rejected
+ * without parsing them.
+ * <p>
+ * A token passing these checks is a compact JWS of a sensible length, whose header declares {@link SecurityUtils#JWT_ALGORITHM};
+ * it may still be rejected by the actual decoder.
+ */
+final class JwtPreValidator {
+
+    /**
+     * Far above the size of the tokens issued by the application.
+     */
+    static final int MAX_TOKEN_LENGTH = 8 * 1024;
+
+    /**
+     * Only the header is decoded here: larger headers are not worth it.
+     */
+    static final int MAX_HEADER_LENGTH = 1024;
+
+    /**
+     * The header of the tokens issued by the application, {@code {"alg":"HS512"}}, which needs no decoding.
+     */
+    private static final String ISSUED_HEADER = Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(("{\"alg\":\"" + JWT_ALGORITHM.getName() + "\"}").getBytes(StandardCharsets.UTF_8));
+
+    private static final Pattern ALG = Pattern.compile("\"alg\"\\s*:\\s*\"([^\"]*)\"");
+
+    private JwtPreValidator() {}
+
+    /**
+     * Check the structure of a token.
+     *
+     * @param token the token.
+     * @return {@code null} if the token may be decoded, {@link JwtDecodeOutcome#MALFORMED} or
+     * {@link JwtDecodeOutcome#UNSUPPORTED} otherwise.
+     */
+    static JwtDecodeOutcome check(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return JwtDecodeOutcome.MALFORMED;
+        }
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return JwtDecodeOutcome.MALFORMED;
+                }
+            } else if (!isBase64Url(c)) {
+                return JwtDecodeOutcome.MALFORMED;
+            }
+        }
+        // header.payload.signature, none of them empty
+        if (secondDot < 0 || firstDot == 0 || secondDot == firstDot + 1 || secondDot == token.length() - 1) {
+            return JwtDecodeOutcome.MALFORMED;
+        }
+        return checkHeader(token, firstDot);
+    }
+
+    private static JwtDecodeOutcome checkHeader(String token, int headerLength) {
+        if (headerLength == ISSUED_HEADER.length() && token.startsWith(ISSUED_HEADER)) {
+            return null;
+        }
+        // A single character left over cannot be decoded
+        if (headerLength > MAX_HEADER_LENGTH || headerLength % 4 == 1) {
+            return JwtDecodeOutcome.MALFORMED;
+        }
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, headerLength)), StandardCharsets.UTF_8);
+        Matcher alg = ALG.matcher(header);
+        if (!alg.find()) {
+            return JwtDecodeOutcome.MALFORMED;
+        }
+        return JWT_ALGORITHM.getName().equals(alg.group(1)) ? null : JwtDecodeOutcome.UNSUPPORTED;
+    }
+
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+}
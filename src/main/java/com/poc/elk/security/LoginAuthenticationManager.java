@@ -0,0 +1,40 @@
+package com.poc.elk.security;
+
+import java.util.concurrent.CompletableFuture;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.CredentialsContainer;
+
+/**
+ * {@link AuthenticationManager} of the username/password login, which can also authenticate without holding the
+ * calling thread while the password is checked.
+ */
+public class LoginAuthenticationManager extends ProviderManager {
+
+    private final RehashingAuthenticationProvider provider;
+
+    public LoginAuthenticationManager(RehashingAuthenticationProvider provider) {
+        super(provider);
+        this.provider = provider;
+    }
+
+    /**
+     * Authenticate a username and password, the password being checked on the {@link PasswordHashingExecutor}.
+     *
+     * @param authentication the username and password.
+     * @return the future authentication, without its credentials, failing with an
+     * {@link org.springframework.security.core.AuthenticationException} if it is refused.
+     * @throws PasswordHashingRejectedException if the hashing queue is full.
+     */
+    public CompletableFuture<Authentication> authenticateAsync(Authentication authentication) {
+        return provider
+            .authenticateAsync(authentication)
+            .thenApply(result -> {
+                if (isEraseCredentialsAfterAuthentication() && result instanceof CredentialsContainer container) {
+                    container.eraseCredentials();
+                }
+                return result;
+            });
+    }
+}
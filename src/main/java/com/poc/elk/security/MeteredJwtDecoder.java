@@ -0,0 +1,118 @@
+package com.poc.elk.security;
+
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.poc.elk.management.SecurityMetersService;
+import com.poc.elk.management.SecurityMetersService.JwtDecodeOutcome;
+import java.text.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+/**
+ * {@link JwtDecoder} rejecting malformed tokens before handing them to its delegate, and tracking the outcome and the
+ * duration of every decoding with the {@link SecurityMetersService}.
+ * <p>
+ * Outcomes are told apart by the type of the failures, never by their message. Tokens rejected by the
+ * {@link JwtPreValidator} share a preallocated exception, without stack trace.
+ */
+public class MeteredJwtDecoder implements JwtDecoder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MeteredJwtDecoder.class);
+
+    /**
+     * Reported by {@link #expiryValidator()}.
+     */
+    static final OAuth2Error TOKEN_EXPIRED = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN, "Jwt expired", null);
+
+    private static final BadJwtException MALFORMED = new PreValidationException("Malformed token");
+
+    private static final BadJwtException UNSUPPORTED = new PreValidationException("Unsupported token algorithm");
+
+    private final JwtDecoder delegate;
+
+    private final SecurityMetersService metersService;
+
+    public MeteredJwtDecoder(JwtDecoder delegate, SecurityMetersService metersService) {
+        this.delegate = delegate;
+        this.metersService = metersService;
+    }
+
+    /**
+     * The timestamp validation of the delegate, reporting {@link #TOKEN_EXPIRED} so that expired tokens are recognized.
+     *
+     * @return the validator to set on the delegate.
+     */
+    public static OAuth2TokenValidator<Jwt> expiryValidator() {
+        JwtTimestampValidator timestampValidator = new JwtTimestampValidator();
+        return jwt ->
+            timestampValidator.validate(jwt).hasErrors()
+                ? OAuth2TokenValidatorResult.failure(TOKEN_EXPIRED)
+                : OAuth2TokenValidatorResult.success();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long start = System.nanoTime();
+        JwtDecodeOutcome rejection = JwtPreValidator.check(token);
+        if (rejection != null) {
+            metersService.trackJwtDecode(rejection, System.nanoTime() - start);
+            throw rejection == JwtDecodeOutcome.UNSUPPORTED ? UNSUPPORTED : MALFORMED;
+        }
+        try {
+            Jwt jwt = delegate.decode(token);
+            metersService.trackJwtDecode(JwtDecodeOutcome.VALID, System.nanoTime() - start);
+            return jwt;
+        } catch (RuntimeException e) {
+            JwtDecodeOutcome outcome = classify(e);
+            if (outcome == JwtDecodeOutcome.UNKNOWN) {
+                LOG.error("Unknown JWT error {}", e.getMessage());
+            }
+            metersService.trackJwtDecode(outcome, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    static JwtDecodeOutcome classify(RuntimeException e) {
+        if (e instanceof JwtValidationException validationException) {
+            return validationException.getErrors().contains(TOKEN_EXPIRED) ? JwtDecodeOutcome.EXPIRED : JwtDecodeOutcome.UNKNOWN;
+        }
+        if (e instanceof BadJwtException) {
+            Throwable cause = e.getCause();
+            // An unparseable payload is only found out once the signature is verified, and reported as a BadJOSEException
+            if (cause instanceof ParseException || (cause != null && cause.getCause() instanceof ParseException)) {
+                return JwtDecodeOutcome.MALFORMED;
+            }
+            if (cause instanceof BadJWSException) {
+                return JwtDecodeOutcome.INVALID_SIGNATURE;
+            }
+            if (cause instanceof BadJOSEException) {
+                return JwtDecodeOutcome.UNSUPPORTED;
+            }
+        }
+        return JwtDecodeOutcome.UNKNOWN;
+    }
+
+    private static final class PreValidationException extends BadJwtException {
+
+        private static final long serialVersionUID = 1L;
+
+        PreValidationException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.poc.elk.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of threads dedicated to password hashing, which is CPU bound and deliberately slow.
+ * <p>
+ * Hashing out of the request threads keeps a burst of logins from stalling the rest of the traffic. Tasks wait in a
+ * queue of {@code queueCapacity} while all the threads, one per CPU unless configured, are busy; beyond that, they are rejected with a
+ * {@link PasswordHashingRejectedException}.
+ */
+public class PasswordHashingExecutor {
+
+    public static final String QUEUE_METER_NAME = "security.password-hashing.queue";
+    public static final String ACTIVE_METER_NAME = "security.password-hashing.active";
+    public static final String REJECTED_METER_NAME = "security.password-hashing.rejected";
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration retryAfter;
+
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(int threads, int queueCapacity, Duration retryAfter, MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger workerCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> new Worker(this, runnable, "password-hashing-" + workerCount.incrementAndGet())
+        );
+        this.retryAfter = retryAfter;
+        this.rejectedCounter = Counter.builder(REJECTED_METER_NAME)
+            .description("Number of password hashing tasks rejected because the queue was full")
+            .register(registry);
+        Gauge.builder(QUEUE_METER_NAME, executor, e -> e.getQueue().size())
+            .description("Number of password hashing tasks waiting for a thread")
+            .register(registry);
+        Gauge.builder(ACTIVE_METER_NAME, executor, ThreadPoolExecutor::getActiveCount)
+            .description("Number of password hashing tasks running")
+            .register(registry);
+    }
+
+    /**
+     * Run a task on the pool.
+     *
+     * @param task the task.
+     * @return the future result of the task.
+     * @throws PasswordHashingRejectedException if the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException(retryAfter);
+        }
+    }
+
+    /**
+     * Run a task on the pool and wait for its result; tasks already running on the pool are run directly.
+     *
+     * @param task the task.
+     * @return the result of the task.
+     * @throws PasswordHashingRejectedException if the queue is full.
+     */
+    public <T> T call(Supplier<T> task) {
+        if (Thread.currentThread() instanceof Worker worker && worker.owner == this) {
+            return task.get();
+        }
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class Worker extends Thread {
+
+        private final PasswordHashingExecutor owner;
+
+        Worker(PasswordHashingExecutor owner, Runnable runnable, String name) {
+            super(runnable, name);
+            this.owner = owner;
+        }
+    }
+}
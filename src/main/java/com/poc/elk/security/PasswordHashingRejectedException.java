@@ -0,0 +1,22 @@
+package com.poc.elk.security;
+
+import java.time.Duration;
+
+/**
+ * This exception is thrown when the {@link PasswordHashingExecutor} is saturated: the client should retry later.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(Duration retryAfter) {
+        super("Too many password hashing requests");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
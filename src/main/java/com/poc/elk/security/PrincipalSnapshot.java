@@ -0,0 +1,39 @@
+package com.poc.elk.security;
+
+import com.poc.elk.domain.Authority;
+import com.poc.elk.domain.User;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * What the authentication needs to know about a {@link User}, detached from Hibernate so that it can be cached cheaply
+ * and read without touching the database.
+ *
+ * @param id the id of the user.
+ * @param login the login of the user.
+ * @param password the password hash of the user.
+ * @param activated whether the user is activated.
+ * @param authorities the names of the authorities of the user.
+ */
+public record PrincipalSnapshot(Long id, String login, String password, boolean activated, List<String> authorities)
+    implements Serializable {
+    public PrincipalSnapshot {
+        authorities = List.copyOf(authorities);
+    }
+
+    /**
+     * Take a snapshot of a user, whose authorities must be loaded.
+     *
+     * @param user the user.
+     * @return the snapshot.
+     */
+    public static PrincipalSnapshot of(User user) {
+        return new PrincipalSnapshot(
+            user.getId(),
+            user.getLogin(),
+            user.getPassword(),
+            user.isActivated(),
+            user.getAuthorities().stream().map(Authority::getName).toList()
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package com.poc.elk.security;
+
+import java.util.Locale;
+import java.util.Objects;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link PrincipalSnapshot}s of the users who authenticated recently, by login and by email.
+ * <p>
+ * Unlike the caches of {@link com.poc.elk.repository.UserRepository}, which hold whole {@link com.poc.elk.domain.User}
+ * entities with their Hibernate collections, entries only hold what the authentication reads. A user changed on this
+ * node must be {@linkplain #evict(String, String) evicted}.
+ */
+@Component
+public class PrincipalSnapshotCache {
+
+    public static final String BY_LOGIN_CACHE_NAME = "principalsByLogin";
+
+    public static final String BY_EMAIL_CACHE_NAME = "principalsByEmail";
+
+    private final Cache byLogin;
+
+    private final Cache byEmail;
+
+    public PrincipalSnapshotCache(CacheManager cacheManager) {
+        this.byLogin = Objects.requireNonNull(cacheManager.getCache(BY_LOGIN_CACHE_NAME));
+        this.byEmail = Objects.requireNonNull(cacheManager.getCache(BY_EMAIL_CACHE_NAME));
+    }
+
+    /**
+     * @param login the login, in any case.
+     * @return the cached snapshot, or {@code null}.
+     */
+    public PrincipalSnapshot getByLogin(String login) {
+        return byLogin.get(key(login), PrincipalSnapshot.class);
+    }
+
+    /**
+     * @param email the email, in any case.
+     * @return the cached snapshot, or {@code null}.
+     */
+    public PrincipalSnapshot getByEmail(String email) {
+        return byEmail.get(key(email), PrincipalSnapshot.class);
+    }
+
+    public void putByLogin(String login, PrincipalSnapshot principal) {
+        byLogin.put(key(login), principal);
+    }
+
+    public void putByEmail(String email, PrincipalSnapshot principal) {
+        byEmail.put(key(email), principal);
+    }
+
+    /**
+     * Forget the snapshot of a user now and, if a transaction is active, once it is committed: a lookup running
+     * meanwhile would still read the previous state of the user.
+     *
+     * @param login the login of the user, in any case; ignored if {@code null}.
+     * @param email the email of the user, in any case; ignored if {@code null}.
+     */
+    public void evict(String login, String email) {
+        String loginKey = login != null ? key(login) : null;
+        String emailKey = email != null ? key(email) : null;
+        evictKeys(loginKey, emailKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evictKeys(loginKey, emailKey);
+                    }
+                }
+            );
+        }
+    }
+
+    private void evictKeys(String loginKey, String emailKey) {
+        if (loginKey != null) {
+            byLogin.evictIfPresent(loginKey);
+        }
+        if (emailKey != null) {
+            byEmail.evictIfPresent(emailKey);
+        }
+    }
+
+    private static String key(String loginOrEmail) {
+        return loginOrEmail.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,183 @@
+package com.poc.elk.security;
+
+import com.poc.elk.cache.CacheInvalidation;
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidationBus;
+import com.poc.elk.domain.User;
+import com.poc.elk.repository.UserRepository;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Authenticate a user from the database, and rehash their password when the {@link PasswordEncoder} asks for an
+ * upgrade of its encoding, for instance after a change of BCrypt strength.
+ * <p>
+ * Unlike the synchronous upgrade of the {@link DaoAuthenticationProvider}, the new hash is computed in the background,
+ * on the {@link PasswordHashingExecutor}, then stored on the task executor so that the hashing threads never wait on the
+ * database: the login is not slowed down, and the rehash is simply skipped while the hashing is saturated, to be tried
+ * again on a later login.
+ * <p>
+ * It can also {@linkplain #authenticateAsync authenticate asynchronously}: the user is loaded on the calling thread,
+ * and only the password check runs on the {@link PasswordHashingExecutor}, so that the caller is not held meanwhile.
+ * <p>
+ * Not a bean: it is wired into the authentication manager of the login by the
+ * {@link com.poc.elk.config.AuthenticationManagerConfiguration}.
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    private final UserRepository userRepository;
+
+    private final CacheManager cacheManager;
+
+    private final PrincipalSnapshotCache principalSnapshotCache;
+
+    private final Executor executor;
+
+    private final ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
+    private volatile String userNotFoundEncodedPassword;
+
+    public RehashingAuthenticationProvider(
+        UserDetailsService userDetailsService,
+        PasswordEncoder passwordEncoder,
+        PasswordHashingExecutor passwordHashingExecutor,
+        UserRepository userRepository,
+        CacheManager cacheManager,
+        PrincipalSnapshotCache principalSnapshotCache,
+        Executor executor,
+        ObjectProvider<CacheInvalidationBus> cacheInvalidationBus
+    ) {
+        super(passwordEncoder);
+        setUserDetailsService(userDetailsService);
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+        this.principalSnapshotCache = principalSnapshotCache;
+        this.executor = executor;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    /**
+     * Authenticate a username and password without waiting for the password check, which is CPU bound and deliberately
+     * slow.
+     *
+     * @param authentication the username and password.
+     * @return the future authentication, failing with an {@link AuthenticationException} if it is refused.
+     * @throws PasswordHashingRejectedException if the hashing queue is full.
+     */
+    public CompletableFuture<Authentication> authenticateAsync(Authentication authentication) {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return CompletableFuture.failedFuture(badCredentials());
+        }
+        String presentedPassword = credentials.toString();
+        UserDetails user;
+        try {
+            user = getUserDetailsService().loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            // Checked against a hash anyway, so that an unknown user takes as long as a wrong password
+            return passwordHashingExecutor.submit(() -> {
+                getPasswordEncoder().matches(presentedPassword, userNotFoundEncodedPassword());
+                throw isHideUserNotFoundExceptions() ? badCredentials() : e;
+            });
+        } catch (AuthenticationException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(new InternalAuthenticationServiceException(e.getMessage(), e));
+        }
+        try {
+            getPreAuthenticationChecks().check(user);
+        } catch (AuthenticationException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return passwordHashingExecutor.submit(() -> {
+            if (!getPasswordEncoder().matches(presentedPassword, user.getPassword())) {
+                throw badCredentials();
+            }
+            getPostAuthenticationChecks().check(user);
+            return createSuccessAuthentication(user, authentication, user);
+        });
+    }
+
+    private BadCredentialsException badCredentials() {
+        return new BadCredentialsException(
+            messages.getMessage("AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad credentials")
+        );
+    }
+
+    /**
+     * @return the hash of a password for the unknown users, computed once on the calling hashing thread.
+     */
+    private String userNotFoundEncodedPassword() {
+        String encodedPassword = userNotFoundEncodedPassword;
+        if (encodedPassword == null) {
+            encodedPassword = getPasswordEncoder().encode(USER_NOT_FOUND_PASSWORD);
+            userNotFoundEncodedPassword = encodedPassword;
+        }
+        return encodedPassword;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (getPasswordEncoder().upgradeEncoding(user.getPassword())) {
+            String login = user.getUsername();
+            String currentPassword = user.getPassword();
+            String presentedPassword = authentication.getCredentials().toString();
+            try {
+                passwordHashingExecutor
+                    .submit(() -> getPasswordEncoder().encode(presentedPassword))
+                    .thenAcceptAsync(newPassword -> store(login, currentPassword, newPassword), executor)
+                    .exceptionally(e -> {
+                        LOG.warn("Could not rehash the password of {}", login, e);
+                        return null;
+                    });
+            } catch (PasswordHashingRejectedException e) {
+                LOG.debug("Not rehashing the password of {} while hashing is saturated", login);
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+
+    private void store(String login, String currentPassword, String newPassword) {
+        // The password may have been changed in the meantime
+        if (userRepository.updatePasswordIfUnchanged(login, currentPassword, newPassword) == 0) {
+            return;
+        }
+        LOG.debug("Rehashed the password of {}", login);
+        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evictIfPresent(login);
+        Optional<User> user = userRepository.findOneByLogin(login);
+        // The bulk update is not reported to the HibernateInvalidationListener
+        user.ifPresent(u ->
+            cacheInvalidationBus.ifAvailable(bus ->
+                bus.publishAfterCommit(Eviction.of(CacheInvalidation.Type.ENTITY, User.class.getName(), u.getId()))
+            )
+        );
+        String email = user.map(User::getEmail).orElse(null);
+        if (email != null) {
+            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evictIfPresent(email);
+        }
+        principalSnapshotCache.evict(login, email);
+    }
+}
@@ -0,0 +1,85 @@
+package com.poc.elk.security;
+
+import com.poc.elk.management.SecurityMetersService;
+import java.util.Locale;
+import java.util.Objects;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Logins and emails recently looked up without finding any user, so that guessing them again costs a memory lookup
+ * instead of a database query.
+ * <p>
+ * Entries expire quickly, so that a user created on another node can soon log in. A user created or updated on this
+ * node must be {@linkplain #evict(String) evicted}.
+ */
+@Component
+public class UnknownUsersCache {
+
+    public static final String CACHE_NAME = "unknownUsers";
+
+    private final Cache cache;
+
+    private final SecurityMetersService metersService;
+
+    public UnknownUsersCache(CacheManager cacheManager, SecurityMetersService metersService) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME));
+        this.metersService = metersService;
+    }
+
+    /**
+     * Check whether a login or an email is known not to exist.
+     *
+     * @param loginOrEmail the login or email, in any case.
+     * @return {@code true} if no user was found with it recently.
+     */
+    public boolean isUnknown(String loginOrEmail) {
+        boolean unknown = cache.get(key(loginOrEmail)) != null;
+        if (unknown) {
+            metersService.trackUnknownUserHit();
+        } else {
+            metersService.trackUnknownUserMiss();
+        }
+        return unknown;
+    }
+
+    /**
+     * Remember that no user has this login or email.
+     *
+     * @param loginOrEmail the login or email, in any case.
+     */
+    public void add(String loginOrEmail) {
+        cache.put(key(loginOrEmail), Boolean.TRUE);
+    }
+
+    /**
+     * Forget that no user had this login or email, now and, if a transaction is active, once it is committed: a lookup
+     * running meanwhile would not see the user yet.
+     *
+     * @param loginOrEmail the login or email, in any case; ignored if {@code null}.
+     */
+    public void evict(String loginOrEmail) {
+        if (loginOrEmail == null) {
+            return;
+        }
+        String key = key(loginOrEmail);
+        cache.evictIfPresent(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cache.evictIfPresent(key);
+                    }
+                }
+            );
+        }
+    }
+
+    private static String key(String loginOrEmail) {
+        return loginOrEmail.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,140 @@
+package com.poc.elk.service;
+
+import com.poc.elk.cache.CacheInvalidation;
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidationBus;
+import com.poc.elk.domain.Authority;
+import com.poc.elk.repository.AuthorityRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * All the {@link Authority authorities}, held in memory so that resolving the authorities of a user does not query
+ * the {@code jhi_authority} table, which almost never changes.
+ * <p>
+ * The authorities are loaded at startup, or on first use if that comes first, and must be {@linkplain #refresh()
+ * refreshed} whenever the table is written to. A refresh also invalidates the authorities of the other nodes, through
+ * the {@link CacheInvalidationBus} if there is one: they reload them on their next use.
+ */
+@Service
+public class AuthorityRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    /**
+     * The {@link CacheInvalidation.Type#REGION region} of the authorities on the {@link CacheInvalidationBus}.
+     */
+    public static final String REGION = AuthorityRegistry.class.getName();
+
+    private final AuthorityRepository authorityRepository;
+
+    private final ObjectProvider<CacheInvalidationBus> bus;
+
+    /**
+     * Immutable; {@code null} until loaded.
+     */
+    private volatile SortedSet<String> authorityNames;
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository, ObjectProvider<CacheInvalidationBus> bus) {
+        this.authorityRepository = authorityRepository;
+        this.bus = bus;
+        bus.ifAvailable(b -> b.subscribe(REGION, this::invalidate));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not load the authorities, they will be loaded on first use", e);
+        }
+    }
+
+    /**
+     * Reload the authorities, once the current transaction is committed if there is one.
+     */
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        load();
+                        publish();
+                    }
+                }
+            );
+        } else {
+            load();
+            publish();
+        }
+    }
+
+    /**
+     * Resolve authority names, ignoring the unknown ones.
+     * <p>
+     * The authorities are references of the current persistence context: unlike detached instances, Hibernate adds
+     * them to the associations of a user without checking that they exist in the database.
+     *
+     * @param names the names of the authorities.
+     * @return a new mutable set of the authorities.
+     */
+    public Set<Authority> resolve(Collection<String> names) {
+        SortedSet<String> known = getAll();
+        Set<Authority> resolved = new HashSet<>();
+        for (String name : names) {
+            if (known.contains(name)) {
+                resolved.add(authorityRepository.getReferenceById(name));
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * @return the names of all the authorities, sorted.
+     */
+    public List<String> getNames() {
+        return List.copyOf(getAll());
+    }
+
+    private SortedSet<String> getAll() {
+        SortedSet<String> all = authorityNames;
+        return all != null ? all : load();
+    }
+
+    private void publish() {
+        bus.ifAvailable(b -> b.publish(Eviction.clear(CacheInvalidation.Type.REGION, REGION)));
+    }
+
+    /**
+     * Forget the authorities, changed by another node. Waits for a load in progress, which may have read them before
+     * the change.
+     */
+    private synchronized void invalidate() {
+        authorityNames = null;
+        LOG.debug("Authorities changed by another node, they will be reloaded on next use");
+    }
+
+    private synchronized SortedSet<String> load() {
+        SortedSet<String> loaded = Collections.unmodifiableSortedSet(
+            authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toCollection(TreeSet::new))
+        );
+        authorityNames = loaded;
+        LOG.debug("Loaded {} authorities", loaded.size());
+        return loaded;
+    }
+}
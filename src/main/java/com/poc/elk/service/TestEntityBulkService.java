@@ -0,0 +1,56 @@
+package com.poc.elk.service;
+
+import com.poc.elk.domain.TestEntity;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service creating {@link TestEntity} in bulk.
+ * <p>
+ * Entities are persisted in chunks of {@code hibernate.jdbc.batch_size}, each chunk being flushed as one JDBC batch
+ * and then evicted from the persistence context, so that large requests neither grow the session nor slow down
+ * dirty checking.
+ */
+@Service
+@Transactional
+public class TestEntityBulkService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TestEntityBulkService.class);
+
+    private final EntityManager entityManager;
+
+    private final int batchSize;
+
+    public TestEntityBulkService(
+        EntityManager entityManager,
+        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}") int batchSize
+    ) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Save new testEntities.
+     *
+     * @param testEntities the testEntities to create, without ids.
+     * @return the created testEntities, detached from the persistence context.
+     */
+    public List<TestEntity> createAll(List<TestEntity> testEntities) {
+        LOG.debug("Request to save {} TestEntities", testEntities.size());
+        for (int i = 0; i < testEntities.size(); i++) {
+            entityManager.persist(testEntities.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return testEntities;
+    }
+}
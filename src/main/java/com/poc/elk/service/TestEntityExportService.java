@@ -0,0 +1,72 @@
+package com.poc.elk.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.repository.TestEntityRepository;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service exporting the {@link TestEntity} table as newline-delimited JSON.
+ * <p>
+ * Rows are read through a forward-only JDBC cursor and detached as soon as they are written,
+ * so memory usage stays constant whatever the size of the table.
+ */
+@Service
+public class TestEntityExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TestEntityExportService.class);
+
+    private final TestEntityRepository testEntityRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter writer;
+
+    public TestEntityExportService(TestEntityRepository testEntityRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.testEntityRepository = testEntityRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // Flushing after each row would defeat the output buffering (and gzip compression)
+        this.writer = objectMapper.writerFor(TestEntity.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Write all the testEntities with an id greater than {@code fromId}, in id order, one JSON document per line.
+     *
+     * @param fromId the last id already exported, or {@code null} to export the whole table.
+     * @param out the stream to write to; it is closed once the export is complete.
+     * @return the number of exported testEntities.
+     * @throws IOException if the stream could not be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportAfter(Long fromId, OutputStream out) throws IOException {
+        LOG.debug("Exporting TestEntities after id {}", fromId);
+        long count = 0;
+        try (
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            Stream<TestEntity> testEntities = testEntityRepository.streamAllAfter(fromId == null ? Long.MIN_VALUE : fromId)
+        ) {
+            generator.setRootValueSeparator(null);
+            for (TestEntity testEntity : (Iterable<TestEntity>) testEntities::iterator) {
+                writer.writeValue(generator, testEntity);
+                generator.writeRaw('\n');
+                entityManager.detach(testEntity);
+                count++;
+            }
+        }
+        LOG.debug("Exported {} TestEntities", count);
+        return count;
+    }
+}
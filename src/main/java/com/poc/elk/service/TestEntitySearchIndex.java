@@ -0,0 +1,197 @@
+package com.poc.elk.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of the {@link com.poc.elk.domain.TestEntity} names.
+ * <p>
+ * Names are split into lower-case, accent-free terms. Terms are kept sorted, so that a prefix query is a range scan;
+ * fuzzy queries compare the query terms with every indexed term of a close length, with a bounded edit distance.
+ * <p>
+ * Reads are lock-free and may run concurrently with writes, which are serialized.
+ */
+class TestEntitySearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int EXACT_SCORE = 3;
+
+    private static final int PREFIX_SCORE = 2;
+
+    private static final int FUZZY_SCORE = 1;
+
+    private final NavigableMap<String, Set<Long>> idsByTerm = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, String[]> termsById = new ConcurrentHashMap<>();
+
+    /**
+     * A search hit.
+     *
+     * @param id the id of the matching testEntity.
+     * @param score the relevance of the match, higher is better.
+     */
+    record Hit(Long id, int score) {}
+
+    /**
+     * Index a testEntity, replacing its previous name if any.
+     *
+     * @param id the id of the testEntity.
+     * @param name its name, may be {@code null}.
+     */
+    synchronized void put(Long id, String name) {
+        remove(id);
+        String[] terms = terms(name);
+        if (terms.length == 0) {
+            return;
+        }
+        termsById.put(id, terms);
+        for (String term : terms) {
+            idsByTerm.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * Remove a testEntity from the index.
+     *
+     * @param id the id of the testEntity.
+     */
+    synchronized void remove(Long id) {
+        String[] terms = termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<Long> ids = idsByTerm.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByTerm.remove(term);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return termsById.size();
+    }
+
+    /**
+     * Find the testEntities whose name contains, for each term of the query, a term starting with it
+     * (or, if {@code fuzzy}, close to it).
+     *
+     * @param query the query.
+     * @param fuzzy whether to also match terms within an edit distance of the query terms.
+     * @return the hits, most relevant first, then in id order.
+     */
+    List<Hit> search(String query, boolean fuzzy) {
+        String[] queryTerms = terms(query);
+        if (queryTerms.length == 0) {
+            return List.of();
+        }
+        Map<Long, Integer> scores = null;
+        for (String queryTerm : queryTerms) {
+            Map<Long, Integer> termScores = match(queryTerm, fuzzy);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // Every query term must match
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> hits.add(new Hit(id, score)));
+        hits.sort(Comparator.comparingInt(Hit::score).reversed().thenComparing(Hit::id));
+        return hits;
+    }
+
+    private Map<Long, Integer> match(String queryTerm, boolean fuzzy) {
+        Map<Long, Integer> termScores = new HashMap<>();
+        // The prefix range also holds the exact term, which sorts first
+        idsByTerm
+            .subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false)
+            .forEach((term, ids) -> score(termScores, ids, term.equals(queryTerm) ? EXACT_SCORE : PREFIX_SCORE));
+        int maxEdits = fuzzy ? maxEdits(queryTerm) : 0;
+        if (maxEdits > 0) {
+            idsByTerm.forEach((term, ids) -> {
+                if (Math.abs(term.length() - queryTerm.length()) <= maxEdits && withinDistance(queryTerm, term, maxEdits)) {
+                    score(termScores, ids, FUZZY_SCORE);
+                }
+            });
+        }
+        return termScores;
+    }
+
+    private static void score(Map<Long, Integer> termScores, Set<Long> ids, int score) {
+        for (Long id : ids) {
+            termScores.merge(id, score, Math::max);
+        }
+    }
+
+    /**
+     * Same bounds as the {@code AUTO} fuzziness of Lucene: short terms must match exactly.
+     */
+    static int maxEdits(String term) {
+        if (term.length() < 3) {
+            return 0;
+        }
+        return term.length() < 6 ? 1 : 2;
+    }
+
+    /**
+     * Levenshtein distance, computed row by row and abandoned as soon as it exceeds {@code maxEdits}.
+     */
+    static boolean withinDistance(String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+
+    static String[] terms(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        Set<String> terms = new HashSet<>(Arrays.asList(NON_WORD.split(normalized)));
+        terms.remove("");
+        return terms.toArray(String[]::new);
+    }
+}
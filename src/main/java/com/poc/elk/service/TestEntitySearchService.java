@@ -0,0 +1,171 @@
+package com.poc.elk.service;
+
+import com.poc.elk.config.ApplicationProperties;
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.domain.TestEntityChangedEvent;
+import com.poc.elk.repository.TestEntityRepository;
+import jakarta.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service for searching {@link TestEntity} by name, from an in-memory index.
+ * <p>
+ * The index is built from the table at startup, rebuilt every night, and kept up to date in between
+ * with the {@link TestEntityChangedEvent}s of committed transactions.
+ */
+@Service
+public class TestEntitySearchService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TestEntitySearchService.class);
+
+    private final TestEntityRepository testEntityRepository;
+
+    private final EntityManager entityManager;
+
+    private final int rebuildChunkSize;
+
+    private volatile TestEntitySearchIndex index = new TestEntitySearchIndex();
+
+    // Guarded by this: the index being rebuilt, and the ids changed since its rebuild started
+    private TestEntitySearchIndex rebuiltIndex;
+
+    private Set<Long> changedDuringRebuild;
+
+    public TestEntitySearchService(
+        TestEntityRepository testEntityRepository,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.testEntityRepository = testEntityRepository;
+        this.entityManager = entityManager;
+        this.rebuildChunkSize = applicationProperties.getSearch().getRebuildChunkSize();
+    }
+
+    /**
+     * Search the testEntities by name.
+     *
+     * @param query the words to look for: each of them must start a word of the name.
+     * @param fuzzy whether to also match words with a few typos.
+     * @param pageable the pagination information.
+     * @return the page of matching testEntities, most relevant first.
+     */
+    @Transactional(readOnly = true)
+    public Page<TestEntity> search(String query, boolean fuzzy, Pageable pageable) {
+        LOG.debug("Request to search for a page of TestEntities for query {}", query);
+        List<TestEntitySearchIndex.Hit> hits = index.search(query, fuzzy);
+        List<Long> ids = hits
+            .stream()
+            .skip(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .map(TestEntitySearchIndex.Hit::id)
+            .toList();
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.size());
+        }
+        // Served from the second-level cache when possible, the misses being loaded with a single query, in id order
+        List<TestEntity> content = entityManager
+            .unwrap(Session.class)
+            .byMultipleIds(TestEntity.class)
+            .multiLoad(ids)
+            .stream()
+            .filter(Objects::nonNull)
+            .toList();
+        return new PageImpl<>(content, pageable, hits.size());
+    }
+
+    @TransactionalEventListener
+    public synchronized void onTestEntityChanged(TestEntityChangedEvent event) {
+        apply(index, event);
+        if (rebuiltIndex != null) {
+            apply(rebuiltIndex, event);
+            changedDuringRebuild.add(event.id());
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not build the TestEntity search index, it will be rebuilt at the next scheduled run", e);
+        }
+    }
+
+    /**
+     * Rebuild the search index from the database, reading the table in chunks.
+     * <p>
+     * Searches keep using the current index until the new one is complete.
+     * <p>
+     * This is scheduled by {@code application.search.rebuild-cron}, every day at 01:30 (am) in {@code application.yml}.
+     */
+    @Scheduled(cron = "${application.search.rebuild-cron}")
+    public void rebuild() {
+        TestEntitySearchIndex newIndex = new TestEntitySearchIndex();
+        synchronized (this) {
+            if (rebuiltIndex != null) {
+                LOG.debug("The TestEntity search index is already being rebuilt");
+                return;
+            }
+            rebuiltIndex = newIndex;
+            changedDuringRebuild = new HashSet<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Long cursor = Long.MIN_VALUE;
+            List<TestEntityRepository.IdAndName> chunk;
+            do {
+                chunk = testEntityRepository.findNamesAfter(cursor, Limit.of(rebuildChunkSize));
+                synchronized (this) {
+                    for (TestEntityRepository.IdAndName row : chunk) {
+                        // A change committed after the chunk was read is already in the new index, and is more recent
+                        if (!changedDuringRebuild.contains(row.getId())) {
+                            newIndex.put(row.getId(), row.getName());
+                        }
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    cursor = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == rebuildChunkSize);
+            synchronized (this) {
+                index = newIndex;
+            }
+            LOG.info(
+                "Rebuilt the TestEntity search index with {} entries in {} ms",
+                newIndex.size(),
+                (System.nanoTime() - start) / 1_000_000
+            );
+        } finally {
+            synchronized (this) {
+                rebuiltIndex = null;
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    private static void apply(TestEntitySearchIndex index, TestEntityChangedEvent event) {
+        if (event.deleted()) {
+            index.remove(event.id());
+        } else {
+            index.put(event.id(), event.name());
+        }
+    }
+}
@@ -1,27 +1,44 @@
 package com.poc.elk.service;
 
+import com.poc.elk.aop.lease.JdbcLeaseStore;
+import com.poc.elk.aop.lease.Lease;
+import com.poc.elk.aop.lease.ScheduledLease;
+import com.poc.elk.cache.CacheInvalidation;
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidationBus;
 import com.poc.elk.config.Constants;
 import com.poc.elk.domain.Authority;
 import com.poc.elk.domain.User;
-import com.poc.elk.repository.AuthorityRepository;
+import com.poc.elk.management.SingleFlight;
 import com.poc.elk.repository.UserRepository;
 import com.poc.elk.security.AuthoritiesConstants;
+import com.poc.elk.security.PrincipalSnapshotCache;
 import com.poc.elk.security.SecurityUtils;
+import com.poc.elk.security.UnknownUsersCache;
 import com.poc.elk.service.dto.AdminUserDTO;
 import com.poc.elk.service.dto.UserDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tech.jhipster.security.RandomUtil;
 
 /**
@@ -33,24 +50,64 @@ public class UserService {
 
     private static final Logger LOG = LoggerFactory.getLogger(UserService.class);
 
+    public static final String NOT_ACTIVATED_USERS_DELETED_METER_NAME = "users.not-activated.deleted";
+    public static final String NOT_ACTIVATED_USERS_CLEANUP_METER_NAME = "users.not-activated.cleanup";
+
+    private static final int NOT_ACTIVATED_USERS_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityRegistry authorityRegistry;
 
     private final CacheManager cacheManager;
 
+    private final SingleFlight<String, Boolean> usersByLoginSingleFlight;
+
+    private final UnknownUsersCache unknownUsersCache;
+
+    private final PrincipalSnapshotCache principalSnapshotCache;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter notActivatedUsersDeletedCounter;
+
+    private final Timer notActivatedUsersCleanupTimer;
+
+    private final JdbcLeaseStore leaseStore;
+
+    private final ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
-        AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        AuthorityRegistry authorityRegistry,
+        CacheManager cacheManager,
+        SingleFlight<String, Boolean> usersByLoginSingleFlight,
+        UnknownUsersCache unknownUsersCache,
+        PrincipalSnapshotCache principalSnapshotCache,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        JdbcLeaseStore leaseStore,
+        ObjectProvider<CacheInvalidationBus> cacheInvalidationBus
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authorityRepository = authorityRepository;
+        this.authorityRegistry = authorityRegistry;
         this.cacheManager = cacheManager;
+        this.usersByLoginSingleFlight = usersByLoginSingleFlight;
+        this.unknownUsersCache = unknownUsersCache;
+        this.principalSnapshotCache = principalSnapshotCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.notActivatedUsersDeletedCounter = Counter.builder(NOT_ACTIVATED_USERS_DELETED_METER_NAME)
+            .description("Number of users deleted because they were not activated in time")
+            .register(meterRegistry);
+        this.notActivatedUsersCleanupTimer = Timer.builder(NOT_ACTIVATED_USERS_CLEANUP_METER_NAME)
+            .description("Duration of the deletion of the users not activated in time")
+            .register(meterRegistry);
+        this.leaseStore = leaseStore;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -126,11 +183,10 @@ public class UserService {
         newUser.setActivated(false);
         // new user gets registration key
         newUser.setActivationKey(RandomUtil.generateActivationKey());
-        Set<Authority> authorities = new HashSet<>();
-        authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
-        newUser.setAuthorities(authorities);
+        newUser.setAuthorities(authorityRegistry.resolve(Set.of(AuthoritiesConstants.USER)));
         userRepository.save(newUser);
         this.clearUserCaches(newUser);
+        this.clearUnknownUsersCache(newUser);
         LOG.debug("Created Information for User: {}", newUser);
         return newUser;
     }
@@ -165,17 +221,11 @@ public class UserService {
         user.setResetDate(Instant.now());
         user.setActivated(true);
         if (userDTO.getAuthorities() != null) {
-            Set<Authority> authorities = userDTO
-                .getAuthorities()
-                .stream()
-                .map(authorityRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toSet());
-            user.setAuthorities(authorities);
+            user.setAuthorities(authorityRegistry.resolve(userDTO.getAuthorities()));
         }
         userRepository.save(user);
         this.clearUserCaches(user);
+        this.clearUnknownUsersCache(user);
         LOG.debug("Created Information for User: {}", user);
         return user;
     }
@@ -203,15 +253,10 @@ public class UserService {
                 user.setLangKey(userDTO.getLangKey());
                 Set<Authority> managedAuthorities = user.getAuthorities();
                 managedAuthorities.clear();
-                userDTO
-                    .getAuthorities()
-                    .stream()
-                    .map(authorityRepository::findById)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .forEach(managedAuthorities::add);
+                managedAuthorities.addAll(authorityRegistry.resolve(userDTO.getAuthorities()));
                 userRepository.save(user);
                 this.clearUserCaches(user);
+                this.clearUnknownUsersCache(user);
                 LOG.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -250,6 +295,7 @@ public class UserService {
                 user.setImageUrl(imageUrl);
                 userRepository.save(user);
                 this.clearUserCaches(user);
+                this.clearUnknownUsersCache(user);
                 LOG.debug("Changed Information for User: {}", user);
             });
     }
@@ -282,28 +328,83 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
+        // Only the load into the cache is shared: each caller then reads the user from the cache, never an entity
+        // managed by the transaction of another thread
+        if (!usersByLoginSingleFlight.load(login, () -> userRepository.findOneWithAuthoritiesByLogin(login).isPresent())) {
+            return Optional.empty();
+        }
         return userRepository.findOneWithAuthoritiesByLogin(login);
     }
 
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthorities() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
+        return SecurityUtils.getCurrentUserLogin().flatMap(this::getUserWithAuthoritiesByLogin);
     }
 
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired every day, at 01:00 (am).
+     * They are deleted in bulk, by chunks, so that a wave of spam registrations does not hold a long transaction.
+     * Each chunk is fenced by the lease of the job: its transaction locks the lease row, and is only committed while
+     * the lease is held, so another node taking the job over waits for it. The deletion stops once the lease is lost.
+     * Within the transaction of a caller, the lease is only checked before each chunk: its lock would outlive the
+     * release of the lease.
+     * <p>
+     * This is scheduled to get fired every day, at 01:00 (am), on one node of the cluster.
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @ScheduledLease(name = "removeNotActivatedUsers")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(user -> {
-                LOG.debug("Deleting not activated user {}", user.getLogin());
-                userRepository.delete(user);
-                this.clearUserCaches(user);
+        Instant createdBefore = Instant.now().minus(3, ChronoUnit.DAYS);
+        Optional<Lease> lease = Lease.current();
+        long start = System.nanoTime();
+        long deleted = 0;
+        long afterId = Long.MIN_VALUE;
+        List<UserRepository.UserKeys> chunk;
+        do {
+            // Each chunk is deleted in its own short transaction, unless the caller has one
+            long lastId = afterId;
+            chunk = transactionTemplate.execute(status -> {
+                if (lease.isPresent() && !fence(lease.orElseThrow(), status)) {
+                    return null;
+                }
+                List<UserRepository.UserKeys> users = userRepository.findNotActivatedUsersCreatedBefore(
+                    createdBefore,
+                    lastId,
+                    Limit.of(NOT_ACTIVATED_USERS_CHUNK_SIZE)
+                );
+                if (!users.isEmpty()) {
+                    userRepository.deleteAllByIdIn(users.stream().map(UserRepository.UserKeys::getId).toList());
+                }
+                return users;
             });
+            if (chunk == null) {
+                LOG.warn("Lost the lease of the deletion of not activated users, stopping after {} users", deleted);
+                break;
+            }
+            if (chunk.isEmpty()) {
+                break;
+            }
+            chunk.forEach(user -> {
+                clearUserCaches(user.getLogin(), user.getEmail());
+                evictDeletedUserFromOtherNodes(user.getId());
+            });
+            deleted += chunk.size();
+            notActivatedUsersDeletedCounter.increment(chunk.size());
+            afterId = chunk.get(chunk.size() - 1).getId();
+            LOG.debug("Deleted {} not activated users so far", deleted);
+        } while (chunk.size() == NOT_ACTIVATED_USERS_CHUNK_SIZE);
+        long duration = System.nanoTime() - start;
+        notActivatedUsersCleanupTimer.record(duration, TimeUnit.NANOSECONDS);
+        LOG.info("Deleted {} not activated users in {} ms", deleted, TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+    /**
+     * @return {@code true} if the lease is held, and locked until the end of the transaction if it is a new one.
+     */
+    private boolean fence(Lease lease, TransactionStatus status) {
+        return status.isNewTransaction() ? leaseStore.lockIfHeld(lease) : leaseStore.isHeld(lease);
     }
 
     /**
@@ -312,13 +413,33 @@ public class UserService {
      */
     @Transactional(readOnly = true)
     public List<String> getAuthorities() {
-        return authorityRepository.findAll().stream().map(Authority::getName).toList();
+        return authorityRegistry.getNames();
+    }
+
+    private void clearUnknownUsersCache(User user) {
+        unknownUsersCache.evict(user.getLogin());
+        unknownUsersCache.evict(user.getEmail());
     }
 
     private void clearUserCaches(User user) {
-        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evictIfPresent(user.getLogin());
-        if (user.getEmail() != null) {
-            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evictIfPresent(user.getEmail());
+        clearUserCaches(user.getLogin(), user.getEmail());
+    }
+
+    /**
+     * The bulk deletes are not reported to the {@link com.poc.elk.cache.HibernateInvalidationListener}.
+     */
+    private void evictDeletedUserFromOtherNodes(Long id) {
+        cacheInvalidationBus.ifAvailable(bus -> {
+            bus.publishAfterCommit(Eviction.of(CacheInvalidation.Type.ENTITY, User.class.getName(), id));
+            bus.publishAfterCommit(Eviction.of(CacheInvalidation.Type.COLLECTION, User.class.getName() + ".authorities", id));
+        });
+    }
+
+    private void clearUserCaches(String login, String email) {
+        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evictIfPresent(login);
+        if (email != null) {
+            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evictIfPresent(email);
         }
+        principalSnapshotCache.evict(login, email);
     }
 }
@@ -0,0 +1,230 @@
+package com.poc.elk.web.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Makes the {@code POST} requests carrying an {@code Idempotency-Key} header safe to retry.
+ * <p>
+ * The first request with a given key runs the handler, and its successful response is stored. Retries with the same
+ * key get that response back, with an {@code Idempotent-Replayed} header, without running the handler again; a retry
+ * arriving while the first request is still running waits for it, and gets a {@code 409 (Conflict)} if it is still
+ * running after {@code application.idempotency.wait-timeout}. Unsuccessful responses are not stored, so the request
+ * can be retried after fixing it.
+ * <p>
+ * A retry must have the same method and body as the first request: a key reused for another request gets a
+ * {@code 422 (Unprocessable Entity)}.
+ * <p>
+ * Keys are scoped by user and by path. Anonymous requests, such as registrations, are also scoped by their body: any
+ * client may pick the same key, and must not get the response to the request of another.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final Set<String> NOT_STORED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        NOT_STORED_HEADERS.addAll(
+            List.of(HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.DATE, HttpHeaders.SET_COOKIE)
+        );
+    }
+
+    private final IdempotencyStore idempotencyStore;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + IDEMPOTENCY_KEY_HEADER + " header");
+            return;
+        }
+        // Read once, to hash it, then served from memory to the handler
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        String requestHash = sha256(request.getMethod().getBytes(StandardCharsets.UTF_8), body);
+        String key = storeKey(request, idempotencyKey, requestHash);
+
+        Optional<IdempotentResponse> storedResponse;
+        try {
+            storedResponse = idempotencyStore.claim(key);
+        } catch (IdempotencyKeyInUseException e) {
+            response.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
+            return;
+        }
+        if (storedResponse.isPresent()) {
+            IdempotentResponse stored = storedResponse.orElseThrow();
+            // The responses stored before the requests were hashed have no hash
+            if (stored.requestHash() != null && !stored.requestHash().equals(requestHash)) {
+                response.sendError(
+                    HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                    "The " + IDEMPOTENCY_KEY_HEADER + " header was already used for another request"
+                );
+                return;
+            }
+            replay(stored, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), responseWrapper);
+            if (responseWrapper.getStatus() >= 200 && responseWrapper.getStatus() < 300) {
+                idempotencyStore.complete(key, snapshot(requestHash, responseWrapper));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(key);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private static IdempotentResponse snapshot(String requestHash, ContentCachingResponseWrapper response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!NOT_STORED_HEADERS.contains(name)) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        // Not always exposed as a header before the response is committed
+        if (response.getContentType() != null) {
+            headers.keySet().removeIf(HttpHeaders.CONTENT_TYPE::equalsIgnoreCase);
+            headers.put(HttpHeaders.CONTENT_TYPE, List.of(response.getContentType()));
+        }
+        return new IdempotentResponse(requestHash, response.getStatus(), headers, response.getContentAsByteArray());
+    }
+
+    private static void replay(IdempotentResponse storedResponse, HttpServletResponse response) throws IOException {
+        response.setStatus(storedResponse.status());
+        storedResponse
+            .headers()
+            .forEach((name, values) -> {
+                for (int i = 0; i < values.size(); i++) {
+                    if (i == 0) {
+                        response.setHeader(name, values.get(i));
+                    } else {
+                        response.addHeader(name, values.get(i));
+                    }
+                }
+            });
+        response.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+        response.setContentLength(storedResponse.body().length);
+        response.getOutputStream().write(storedResponse.body());
+    }
+
+    private static String storeKey(HttpServletRequest request, String idempotencyKey, String requestHash) {
+        String user = request.getRemoteUser();
+        return sha256(
+            (user == null ? "" : user).getBytes(StandardCharsets.UTF_8),
+            request.getRequestURI().getBytes(StandardCharsets.UTF_8),
+            idempotencyKey.getBytes(StandardCharsets.UTF_8),
+            (user == null ? requestHash : "").getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private static String sha256(byte[]... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (byte[] part : parts) {
+                digest.update(part);
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A request whose body was already read, served again from memory.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.poc.elk.web.filter;
+
+/**
+ * Thrown when a request with an {@code Idempotency-Key} is still being processed when its duplicate claims the key.
+ */
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyInUseException() {
+        super("A request with the same idempotency key is still being processed");
+    }
+}
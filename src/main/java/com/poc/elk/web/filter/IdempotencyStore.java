@@ -0,0 +1,36 @@
+package com.poc.elk.web.filter;
+
+import java.util.Optional;
+
+/**
+ * Store of the responses to requests carrying an {@code Idempotency-Key}, see {@link IdempotencyFilter}.
+ * <p>
+ * A key is first claimed by the request executing the handler, then either completed with its response or released.
+ */
+public interface IdempotencyStore {
+    /**
+     * Claim a key, or get the response stored for it. If another request holds the key, wait until it is completed or
+     * released, for a timeout set by the store.
+     *
+     * @param key the key.
+     * @return empty if the key was claimed by the caller, which must then {@link #complete} or {@link #release} it,
+     * or the response stored for the key.
+     * @throws IdempotencyKeyInUseException if the key is still held by another request after the timeout.
+     */
+    Optional<IdempotentResponse> claim(String key);
+
+    /**
+     * Store the response for a claimed key, and wake up the requests waiting for it.
+     *
+     * @param key the key.
+     * @param response the response to replay.
+     */
+    void complete(String key, IdempotentResponse response);
+
+    /**
+     * Release a claimed key without storing a response, so that the next request with that key runs the handler.
+     *
+     * @param key the key.
+     */
+    void release(String key);
+}
@@ -0,0 +1,16 @@
+package com.poc.elk.web.filter;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of a response, replayed to the retries of the request that produced it.
+ *
+ * @param requestHash the hash of the method and body of the request that produced it, which the retries must have too.
+ * @param status the HTTP status.
+ * @param headers the response headers.
+ * @param body the response body.
+ */
+public record IdempotentResponse(String requestHash, int status, Map<String, List<String>> headers, byte[] body)
+    implements Serializable {}
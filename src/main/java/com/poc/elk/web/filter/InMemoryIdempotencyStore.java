@@ -0,0 +1,129 @@
+package com.poc.elk.web.filter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link IdempotencyStore} keeping the responses in memory, for a single node.
+ * <p>
+ * At most {@code maxEntries} responses are kept, each for {@code timeToLive}: as they all live as long,
+ * the oldest one is always the first to expire or to be evicted.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private record Entry(IdempotentResponse response, Instant expiresAt) {}
+
+    private final ConcurrentMap<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+
+    // Guarded by itself, in insertion order
+    private final LinkedHashMap<String, Entry> completed = new LinkedHashMap<>();
+
+    private final Duration timeToLive;
+
+    private final int maxEntries;
+
+    private final Duration waitTimeout;
+
+    private final Clock clock;
+
+    public InMemoryIdempotencyStore(Duration timeToLive, int maxEntries, Duration waitTimeout, Clock clock) {
+        this.timeToLive = timeToLive;
+        this.maxEntries = maxEntries;
+        this.waitTimeout = waitTimeout;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<IdempotentResponse> claim(String key) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            IdempotentResponse response = getCompleted(key);
+            if (response != null) {
+                return Optional.of(response);
+            }
+            CompletableFuture<IdempotentResponse> claim = new CompletableFuture<>();
+            CompletableFuture<IdempotentResponse> holder = inFlight.putIfAbsent(key, claim);
+            if (holder == null) {
+                // The previous holder may have completed between the two lookups
+                response = getCompleted(key);
+                if (response != null) {
+                    inFlight.remove(key, claim);
+                    claim.complete(response);
+                    return Optional.of(response);
+                }
+                return Optional.empty();
+            }
+            response = await(holder, deadline - System.nanoTime());
+            if (response != null) {
+                return Optional.of(response);
+            }
+            // Released: compete for the key again
+        }
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        synchronized (completed) {
+            completed.remove(key);
+            completed.put(key, new Entry(response, clock.instant().plus(timeToLive)));
+            evict();
+        }
+        CompletableFuture<IdempotentResponse> claim = inFlight.remove(key);
+        if (claim != null) {
+            claim.complete(response);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        CompletableFuture<IdempotentResponse> claim = inFlight.remove(key);
+        if (claim != null) {
+            claim.complete(null);
+        }
+    }
+
+    private IdempotentResponse getCompleted(String key) {
+        synchronized (completed) {
+            evict();
+            Entry entry = completed.get(key);
+            return entry == null ? null : entry.response();
+        }
+    }
+
+    private void evict() {
+        Instant now = clock.instant();
+        Iterator<Map.Entry<String, Entry>> oldestFirst = completed.entrySet().iterator();
+        while (oldestFirst.hasNext()) {
+            Map.Entry<String, Entry> oldest = oldestFirst.next();
+            if (completed.size() <= maxEntries && oldest.getValue().expiresAt().isAfter(now)) {
+                return;
+            }
+            oldestFirst.remove();
+        }
+    }
+
+    private static IdempotentResponse await(CompletableFuture<IdempotentResponse> claim, long timeoutNanos) {
+        try {
+            return claim.get(Math.max(timeoutNanos, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInUseException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInUseException();
+        } catch (ExecutionException e) {
+            // Claims are never completed exceptionally
+            throw new IllegalStateException(e);
+        }
+    }
+}
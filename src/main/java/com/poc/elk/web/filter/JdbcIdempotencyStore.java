@@ -0,0 +1,219 @@
+package com.poc.elk.web.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.aop.lease.ScheduledLease;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link IdempotencyStore} keeping the responses in the {@code jhi_idempotency_key} table, shared by all the nodes.
+ * <p>
+ * A key is claimed by inserting its row, the primary key making sure that only one node succeeds; the row is completed
+ * with the response. A duplicate arriving before then waits for it, reading the row again with an increasing backoff,
+ * and fails if it is still in progress after {@code waitTimeout}. Rows still not completed after {@code lockTimeout} are
+ * considered abandoned by a crashed node, and can be claimed again.
+ */
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcIdempotencyStore.class);
+
+    private static final TypeReference<Map<String, List<String>>> HEADERS_TYPE = new TypeReference<>() {};
+
+    private static final long MIN_BACKOFF_MILLIS = 10;
+
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    private record Row(String requestHash, Integer status, String headers, byte[] body, Instant createdDate) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeToLive;
+
+    private final Duration waitTimeout;
+
+    private final Duration lockTimeout;
+
+    private final Clock clock;
+
+    public JdbcIdempotencyStore(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ObjectMapper objectMapper,
+        Duration timeToLive,
+        Duration waitTimeout,
+        Duration lockTimeout,
+        Clock clock
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Each statement commits on its own, whatever the transaction of the caller
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.timeToLive = timeToLive;
+        this.waitTimeout = waitTimeout;
+        this.lockTimeout = lockTimeout;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<IdempotentResponse> claim(String key) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (true) {
+            if (insert(key)) {
+                return Optional.empty();
+            }
+            Row row = find(key);
+            if (row == null) {
+                // Released in the meantime
+                continue;
+            }
+            Instant now = clock.instant();
+            if (row.status() != null) {
+                if (row.createdDate().plus(timeToLive).isAfter(now)) {
+                    return Optional.of(toResponse(row));
+                }
+                delete(key, row.createdDate());
+                continue;
+            }
+            if (row.createdDate().plus(lockTimeout).isBefore(now)) {
+                LOG.warn("Taking over the abandoned idempotency key {}", key);
+                delete(key, row.createdDate());
+                continue;
+            }
+            // In progress, on this node or another: wait for its response
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                throw new IdempotencyKeyInUseException();
+            }
+            sleep(Math.min(backoff, remainingMillis));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        String headers;
+        try {
+            headers = objectMapper.writeValueAsString(response.headers());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update(
+                "update jhi_idempotency_key set request_hash = ?, response_status = ?, response_headers = ?, response_body = ? " +
+                "where idempotency_key = ?",
+                response.requestHash(),
+                response.status(),
+                headers,
+                response.body(),
+                key
+            )
+        );
+    }
+
+    @Override
+    public void release(String key) {
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update("delete from jhi_idempotency_key where idempotency_key = ? and response_status is null", key)
+        );
+    }
+
+    /**
+     * Expired responses are deleted every hour, by a single node.
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    @ScheduledLease(name = "removeExpiredIdempotencyKeys")
+    public void removeExpiredKeys() {
+        Timestamp expired = Timestamp.from(clock.instant().minus(timeToLive));
+        Integer deleted = transactionTemplate.execute(status ->
+            jdbcTemplate.update("delete from jhi_idempotency_key where created_date < ?", expired)
+        );
+        LOG.debug("Deleted {} expired idempotency keys", deleted);
+    }
+
+    private boolean insert(String key) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update(
+                    "insert into jhi_idempotency_key (idempotency_key, created_date) values (?, ?)",
+                    key,
+                    Timestamp.from(clock.instant())
+                )
+            );
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private Row find(String key) {
+        return transactionTemplate.execute(status ->
+            jdbcTemplate
+                .query(
+                    "select request_hash, response_status, response_headers, response_body, created_date from jhi_idempotency_key " +
+                    "where idempotency_key = ?",
+                    (rs, rowNum) ->
+                        new Row(
+                            rs.getString("request_hash"),
+                            rs.getObject("response_status", Integer.class),
+                            rs.getString("response_headers"),
+                            rs.getBytes("response_body"),
+                            rs.getTimestamp("created_date").toInstant()
+                        ),
+                    key
+                )
+                .stream()
+                .findFirst()
+                .orElse(null)
+        );
+    }
+
+    private void delete(String key, Instant createdDate) {
+        // Only the row that was read: another node may have claimed the key again since
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update(
+                "delete from jhi_idempotency_key where idempotency_key = ? and created_date = ?",
+                key,
+                Timestamp.from(createdDate)
+            )
+        );
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInUseException();
+        }
+    }
+
+    private IdempotentResponse toResponse(Row row) {
+        try {
+            return new IdempotentResponse(row.requestHash(), row.status(), objectMapper.readValue(row.headers(), HEADERS_TYPE), row.body());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
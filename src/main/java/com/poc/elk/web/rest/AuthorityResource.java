@@ -2,6 +2,7 @@ package com.poc.elk.web.rest;
 
 import com.poc.elk.domain.Authority;
 import com.poc.elk.repository.AuthorityRepository;
+import com.poc.elk.service.AuthorityRegistry;
 import com.poc.elk.web.rest.errors.BadRequestAlertException;
 import jakarta.validation.Valid;
 import java.net.URI;
@@ -35,8 +36,11 @@ public class AuthorityResource {
 
     private final AuthorityRepository authorityRepository;
 
-    public AuthorityResource(AuthorityRepository authorityRepository) {
+    private final AuthorityRegistry authorityRegistry;
+
+    public AuthorityResource(AuthorityRepository authorityRepository, AuthorityRegistry authorityRegistry) {
         this.authorityRepository = authorityRepository;
+        this.authorityRegistry = authorityRegistry;
     }
 
     /**
@@ -54,6 +58,7 @@ public class AuthorityResource {
             throw new BadRequestAlertException("authority already exists", ENTITY_NAME, "idexists");
         }
         authority = authorityRepository.save(authority);
+        authorityRegistry.refresh();
         return ResponseEntity.created(new URI("/api/authorities/" + authority.getName()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, authority.getName()))
             .body(authority);
@@ -96,6 +101,7 @@ public class AuthorityResource {
     public ResponseEntity<Void> deleteAuthority(@PathVariable("id") String id) {
         LOG.debug("REST request to delete Authority : {}", id);
         authorityRepository.deleteById(id);
+        authorityRegistry.refresh();
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id)).build();
     }
 }
@@ -1,19 +1,34 @@
 package com.poc.elk.web.rest;
 
 import com.poc.elk.domain.TestEntity;
+import com.poc.elk.management.SingleFlight;
 import com.poc.elk.repository.TestEntityRepository;
+import com.poc.elk.service.TestEntityBulkService;
+import com.poc.elk.service.TestEntityExportService;
 import com.poc.elk.web.rest.errors.BadRequestAlertException;
+import com.poc.elk.web.rest.errors.PreconditionFailedException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -29,13 +44,35 @@ public class TestEntityResource {
 
     private static final String ENTITY_NAME = "testEntity";
 
+    static final int DEFAULT_PAGE_SIZE = 20;
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int MAX_BULK_SIZE = 10000;
+
+    static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final TestEntityRepository testEntityRepository;
 
-    public TestEntityResource(TestEntityRepository testEntityRepository) {
+    private final TestEntityExportService testEntityExportService;
+
+    private final TestEntityBulkService testEntityBulkService;
+
+    private final SingleFlight<Long, Boolean> testEntitySingleFlight;
+
+    public TestEntityResource(
+        TestEntityRepository testEntityRepository,
+        TestEntityExportService testEntityExportService,
+        TestEntityBulkService testEntityBulkService,
+        SingleFlight<Long, Boolean> testEntitySingleFlight
+    ) {
         this.testEntityRepository = testEntityRepository;
+        this.testEntityExportService = testEntityExportService;
+        this.testEntityBulkService = testEntityBulkService;
+        this.testEntitySingleFlight = testEntitySingleFlight;
     }
 
     /**
@@ -57,19 +94,49 @@ public class TestEntityResource {
             .body(testEntity);
     }
 
+    /**
+     * {@code POST  /test-entities/bulk} : Create new testEntities, using JDBC batching.
+     *
+     * @param testEntities the testEntities to create, at most {@value #MAX_BULK_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new testEntities,
+     * or with status {@code 400 (Bad Request)} if the request is empty, too big, or if a testEntity has already an ID.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<List<TestEntity>> createTestEntities(@RequestBody List<TestEntity> testEntities) {
+        LOG.debug("REST request to save {} TestEntities", testEntities.size());
+        if (testEntities.isEmpty() || testEntities.size() > MAX_BULK_SIZE) {
+            throw new BadRequestAlertException(
+                "A bulk request must contain between 1 and " + MAX_BULK_SIZE + " testEntities",
+                ENTITY_NAME,
+                "bulksizeinvalid"
+            );
+        }
+        if (testEntities.stream().anyMatch(testEntity -> testEntity.getId() != null)) {
+            throw new BadRequestAlertException("A new testEntity cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        List<TestEntity> result = testEntityBulkService.createAll(testEntities);
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .headers(HeaderUtil.createAlert(applicationName, applicationName + ".testEntity.bulkCreated", String.valueOf(result.size())))
+            .body(result);
+    }
+
     /**
      * {@code PUT  /test-entities/:id} : Updates an existing testEntity.
      *
      * @param id the id of the testEntity to save.
+     * @param ifMatch the optional {@code If-Match} request header, holding the ETag of the testEntity being replaced.
      * @param testEntity the testEntity to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated testEntity,
      * or with status {@code 400 (Bad Request)} if the testEntity is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the testEntity was modified since the given ETag,
+     * or does not exist while an {@code If-Match} header was given,
      * or with status {@code 500 (Internal Server Error)} if the testEntity couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/{id}")
     public ResponseEntity<TestEntity> updateTestEntity(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody TestEntity testEntity
     ) throws URISyntaxException {
         LOG.debug("REST request to update TestEntity : {}, {}", id, testEntity);
@@ -80,30 +147,38 @@ public class TestEntityResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!testEntityRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        // Merged into the loaded entity, so that the version is checked and incremented by Hibernate, the entity listeners
+        // are called, and only this entry of the second-level cache is replaced
+        Long expectedVersion = versionFromIfMatch(ifMatch);
+        TestEntity result = testEntityRepository.findById(id).orElseThrow(() -> notFound(ifMatch));
+        checkVersion(result, expectedVersion);
+        result.setName(testEntity.getName());
+        // Flush now, so that the returned ETag holds the incremented version
+        testEntityRepository.flush();
 
-        testEntity = testEntityRepository.save(testEntity);
-        return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, testEntity.getId().toString()))
-            .body(testEntity);
+        HttpHeaders headers = HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, testEntity.getId().toString());
+        headers.setETag(eTag(result));
+        return ResponseEntity.ok().headers(headers).body(result);
     }
 
     /**
      * {@code PATCH  /test-entities/:id} : Partial updates given fields of an existing testEntity, field will ignore if it is null
      *
      * @param id the id of the testEntity to save.
+     * @param ifMatch the optional {@code If-Match} request header, holding the ETag of the testEntity being updated.
      * @param testEntity the testEntity to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated testEntity,
      * or with status {@code 400 (Bad Request)} if the testEntity is not valid,
      * or with status {@code 404 (Not Found)} if the testEntity is not found,
+     * or with status {@code 412 (Precondition Failed)} if the testEntity was modified since the given ETag,
+     * or does not exist while an {@code If-Match} header was given,
      * or with status {@code 500 (Internal Server Error)} if the testEntity couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<TestEntity> partialUpdateTestEntity(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody TestEntity testEntity
     ) throws URISyntaxException {
         LOG.debug("REST request to partial update TestEntity partially : {}, {}", id, testEntity);
@@ -114,63 +189,232 @@ public class TestEntityResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!testEntityRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        // The loaded entity stays managed: only the changed columns are written, with a version check, when flushed
+        Long expectedVersion = versionFromIfMatch(ifMatch);
+        TestEntity result = testEntityRepository.findById(testEntity.getId()).orElseThrow(() -> notFound(ifMatch));
+        checkVersion(result, expectedVersion);
+        if (testEntity.getName() != null) {
+            result.setName(testEntity.getName());
         }
+        // Flush now, so that the returned ETag holds the incremented version
+        testEntityRepository.flush();
 
-        Optional<TestEntity> result = testEntityRepository
-            .findById(testEntity.getId())
-            .map(existingTestEntity -> {
-                if (testEntity.getName() != null) {
-                    existingTestEntity.setName(testEntity.getName());
-                }
-
-                return existingTestEntity;
-            })
-            .map(testEntityRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, testEntity.getId().toString())
-        );
+        HttpHeaders headers = HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, testEntity.getId().toString());
+        headers.setETag(eTag(result));
+        return ResponseEntity.ok().headers(headers).body(result);
     }
 
     /**
-     * {@code GET  /test-entities} : get all the testEntities.
+     * {@code GET  /test-entities} : get a page of testEntities, using keyset pagination on the id.
+     * <p>
+     * The next page, if any, is advertised in the {@code Link} header with an opaque {@code cursor} parameter.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of testEntities in body.
+     * @param cursor the opaque cursor returned by the previous page, or nothing to get the first page.
+     * @param size the page size, {@value #DEFAULT_PAGE_SIZE} by default and capped at {@value #MAX_PAGE_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of testEntities in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid.
      */
     @GetMapping("")
-    public List<TestEntity> getAllTestEntities() {
-        LOG.debug("REST request to get all TestEntities");
-        return testEntityRepository.findAll();
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<TestEntity>> getAllTestEntities(
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        LOG.debug("REST request to get a page of TestEntities after cursor {}", cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether there is a next page, without a count query
+        List<TestEntity> entities = testEntityRepository.findAllAfter(decodeCursor(cursor), Limit.of(pageSize + 1));
+        HttpHeaders headers = new HttpHeaders();
+        if (entities.size() > pageSize) {
+            entities = entities.subList(0, pageSize);
+            String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", encodeCursor(entities.get(pageSize - 1).getId()))
+                .replaceQueryParam("size", pageSize)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(entities, headers, HttpStatus.OK);
+    }
+
+    /**
+     * {@code GET  /test-entities/export} : stream all the testEntities as newline-delimited JSON.
+     * <p>
+     * The body is gzip-compressed when the client accepts it. An interrupted export can be resumed by passing
+     * the id of the last received testEntity as {@code from}.
+     *
+     * @param from the id of the last testEntity already exported, or nothing to export the whole table.
+     * @param acceptEncoding the {@code Accept-Encoding} request header.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed testEntities in body.
+     */
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<StreamingResponseBody> exportTestEntities(
+        @RequestParam(value = "from", required = false) Long from,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        LOG.debug("REST request to export TestEntities after id {}", from);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // The body is written by an async request thread, so the export opens its own read-only transaction
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+            testEntityExportService.exportAfter(from, out);
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     /**
      * {@code GET  /test-entities/:id} : get the "id" testEntity.
+     * <p>
+     * The response carries the version of the testEntity as a strong {@code ETag}. When it matches the
+     * {@code If-None-Match} request header, Spring MVC answers {@code 304 (Not Modified)} without writing the body.
+     * <p>
+     * Concurrent requests for the same id missing from the second-level cache share a single database lookup.
      *
      * @param id the id of the testEntity to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the testEntity, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the testEntity,
+     * or with status {@code 304 (Not Modified)} if the client already has this version, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/{id}")
     public ResponseEntity<TestEntity> getTestEntity(@PathVariable("id") Long id) {
         LOG.debug("REST request to get TestEntity : {}", id);
-        Optional<TestEntity> testEntity = testEntityRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(testEntity);
+        // Only the load into the second-level cache is shared: each request then reads its own instance, in its own
+        // persistence context
+        Optional<TestEntity> testEntity = testEntitySingleFlight.load(id, () -> testEntityRepository.findById(id).isPresent())
+            ? testEntityRepository.findById(id)
+            : Optional.empty();
+        HttpHeaders headers = new HttpHeaders();
+        testEntity.ifPresent(existingTestEntity -> headers.setETag(eTag(existingTestEntity)));
+        return ResponseUtil.wrapOrNotFound(testEntity, headers);
     }
 
     /**
      * {@code DELETE  /test-entities/:id} : delete the "id" testEntity.
      *
      * @param id the id of the testEntity to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @param ifMatch the optional {@code If-Match} request header, holding the ETag of the testEntity being deleted.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 412 (Precondition Failed)} if the testEntity was modified since the given ETag,
+     * or does not exist while an {@code If-Match} header was given.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTestEntity(@PathVariable("id") Long id) {
+    public ResponseEntity<Void> deleteTestEntity(
+        @PathVariable("id") Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
         LOG.debug("REST request to delete TestEntity : {}", id);
-        testEntityRepository.deleteById(id);
+        Long expectedVersion = versionFromIfMatch(ifMatch);
+        TestEntity existingTestEntity = testEntityRepository.findById(id).orElse(null);
+        if (existingTestEntity != null) {
+            checkVersion(existingTestEntity, expectedVersion);
+            testEntityRepository.delete(existingTestEntity);
+        } else if (ifMatch != null) {
+            // Any If-Match, even *, requires the testEntity to exist
+            throw new PreconditionFailedException();
+        }
         return ResponseEntity.noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    static String eTag(TestEntity testEntity) {
+        return "\"" + testEntity.getVersion() + "\"";
+    }
+
+    /**
+     * Parse the version out of an {@code If-Match} header holding a single strong ETag.
+     *
+     * @param ifMatch the {@code If-Match} header value.
+     * @return the expected version, or {@code null} if there is no precondition on the version: without the header, or
+     * with {@code *}, which only requires the testEntity to exist.
+     * @throws PreconditionFailedException if the header cannot match any version.
+     */
+    static Long versionFromIfMatch(String ifMatch) {
+        if (ifMatch == null || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Not one of our ETags, so it cannot match
+            }
+        }
+        throw new PreconditionFailedException();
+    }
+
+    /**
+     * The exception for a testEntity to update which does not exist: a precondition failure if the client expected it to
+     * exist, with any {@code If-Match} header, {@code *} included.
+     */
+    private static RuntimeException notFound(String ifMatch) {
+        if (ifMatch != null) {
+            return new PreconditionFailedException();
+        }
+        return new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+    }
+
+    private static void checkVersion(TestEntity testEntity, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(testEntity.getVersion())) {
+            throw new PreconditionFailedException();
+        }
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header accepts gzip: listed as {@code gzip}, {@code x-gzip} or {@code *},
+     * with a non-zero quality. An explicit {@code gzip;q=0} refuses it, whatever {@code *} says.
+     *
+     * @param acceptEncoding the {@code Accept-Encoding} header value, or {@code null}.
+     * @return {@code true} if the response can be gzip-compressed.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q') && parameter.charAt(1) == '=') {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        // Not a valid quality, so not an acceptable coding
+                        quality = 0;
+                    }
+                }
+            }
+            if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                gzipQuality = quality;
+            } else if ("*".equals(coding)) {
+                anyQuality = quality;
+            }
+        }
+        return gzipQuality != null ? gzipQuality > 0 : anyQuality != null && anyQuality > 0;
+    }
+
+    static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+    }
 }
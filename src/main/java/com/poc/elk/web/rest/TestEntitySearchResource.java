@@ -0,0 +1,54 @@
+package com.poc.elk.web.rest;
+
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.service.TestEntitySearchService;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for searching {@link com.poc.elk.domain.TestEntity}.
+ */
+@RestController
+@RequestMapping("/api/_search")
+public class TestEntitySearchResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TestEntitySearchResource.class);
+
+    private final TestEntitySearchService testEntitySearchService;
+
+    public TestEntitySearchResource(TestEntitySearchService testEntitySearchService) {
+        this.testEntitySearchService = testEntitySearchService;
+    }
+
+    /**
+     * {@code GET  /_search/test-entities?q=:query} : search the testEntities by name.
+     * <p>
+     * Each word of the query must start a word of the name; with {@code fuzzy=true}, words with a few typos also match.
+     * Results are sorted by relevance, the sort parameters are ignored.
+     *
+     * @param query the query.
+     * @param fuzzy whether to also match words with typos.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of matching testEntities in body.
+     */
+    @GetMapping("/test-entities")
+    public ResponseEntity<List<TestEntity>> searchTestEntities(
+        @RequestParam("q") String query,
+        @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        LOG.debug("REST request to search for a page of TestEntities for query {}", query);
+        Page<TestEntity> page = testEntitySearchService.search(query, fuzzy, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,24 @@
+package com.poc.elk.web.rest.errors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.ErrorResponseException;
+import tech.jhipster.web.rest.errors.ProblemDetailWithCause.ProblemDetailWithCauseBuilder;
+
+@SuppressWarnings("java:S110") // Inheritance tree of classes should not be too deep
+public class PreconditionFailedException extends ErrorResponseException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PreconditionFailedException() {
+        super(
+            HttpStatus.PRECONDITION_FAILED,
+            ProblemDetailWithCauseBuilder.instance()
+                .withStatus(HttpStatus.PRECONDITION_FAILED.value())
+                .withType(ErrorConstants.PRECONDITION_FAILED_TYPE)
+                .withTitle("The entity was modified since it was read")
+                .withProperty("message", ErrorConstants.ERR_CONCURRENCY_FAILURE)
+                .build(),
+            null
+        );
+    }
+}
@@ -87,6 +87,33 @@ describe('TestEntity Management Component', () => {
     expect(comp.testEntities()[0]).toEqual(expect.objectContaining({ id: 18625 }));
   });
 
+  it('should append the next page, following the cursor of the link', () => {
+    // GIVEN
+    jest
+      .spyOn(service, 'query')
+      .mockReset()
+      .mockReturnValueOnce(
+        of(
+          new HttpResponse({
+            body: [{ id: 18625 }],
+            headers: new HttpHeaders({
+              link: '<http://localhost/api/test-entities?sort=id,desc&cursor=MTg2MjU&size=20>; rel="next"',
+            }),
+          }),
+        ),
+      )
+      .mockReturnValueOnce(of(new HttpResponse({ body: [{ id: 2898 }] })));
+
+    // WHEN
+    comp.ngOnInit();
+    comp.loadNextPage();
+
+    // THEN
+    expect(service.query).toHaveBeenLastCalledWith(expect.objectContaining({ cursor: 'MTg2MjU' }));
+    expect(comp.testEntities()).toEqual([expect.objectContaining({ id: 18625 }), expect.objectContaining({ id: 2898 })]);
+    expect(comp.nextCursor()).toBeUndefined();
+  });
+
   describe('trackId', () => {
     it('should forward to testEntityService', () => {
       const entity = { id: 18625 };
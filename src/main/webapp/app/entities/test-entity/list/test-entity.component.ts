@@ -1,4 +1,5 @@
 import { Component, NgZone, OnInit, inject, signal } from '@angular/core';
+import { HttpHeaders } from '@angular/common/http';
 import { ActivatedRoute, Data, ParamMap, Router, RouterModule } from '@angular/router';
 import { Observable, Subscription, combineLatest, filter, tap } from 'rxjs';
 import { NgbModal } from '@ng-bootstrap/ng-bootstrap';
@@ -19,6 +20,7 @@ import { TestEntityDeleteDialogComponent } from '../delete/test-entity-delete-di
 export class TestEntityComponent implements OnInit {
   subscription: Subscription | null = null;
   testEntities = signal<ITestEntity[]>([]);
+  nextCursor = signal<string | undefined>(undefined);
   isLoading = false;
 
   sortState = sortStateSignal({});
@@ -67,6 +69,14 @@ export class TestEntityComponent implements OnInit {
     });
   }
 
+  loadNextPage(): void {
+    this.queryBackend(this.nextCursor()).subscribe({
+      next: (res: EntityArrayResponseType) => {
+        this.onResponseSuccess(res, true);
+      },
+    });
+  }
+
   navigateToWithComponentValues(event: SortState): void {
     this.handleNavigation(event);
   }
@@ -75,9 +85,10 @@ export class TestEntityComponent implements OnInit {
     this.sortState.set(this.sortService.parseSortParam(params.get(SORT) ?? data[DEFAULT_SORT_DATA]));
   }
 
-  protected onResponseSuccess(response: EntityArrayResponseType): void {
+  protected onResponseSuccess(response: EntityArrayResponseType, append = false): void {
+    this.fillComponentAttributesFromResponseHeader(response.headers);
     const dataFromBody = this.fillComponentAttributesFromResponseBody(response.body);
-    this.testEntities.set(this.refineData(dataFromBody));
+    this.testEntities.set(this.refineData(append ? [...this.testEntities(), ...dataFromBody] : dataFromBody));
   }
 
   protected refineData(data: ITestEntity[]): ITestEntity[] {
@@ -89,9 +100,16 @@ export class TestEntityComponent implements OnInit {
     return data ?? [];
   }
 
-  protected queryBackend(): Observable<EntityArrayResponseType> {
+  protected fillComponentAttributesFromResponseHeader(headers: HttpHeaders): void {
+    // The next page is advertised with an opaque cursor; its link may hold commas, so it is not split like a page link
+    const next = /<([^>]*)>;\s*rel="next"/.exec(headers.get('link') ?? '');
+    this.nextCursor.set(next ? (new URL(next[1], window.location.href).searchParams.get('cursor') ?? undefined) : undefined);
+  }
+
+  protected queryBackend(cursor?: string): Observable<EntityArrayResponseType> {
     this.isLoading = true;
     const queryObject: any = {
+      cursor,
       sort: this.sortService.buildSortParam(this.sortState()),
     };
     return this.testEntityService.query(queryObject).pipe(tap(() => (this.isLoading = false)));
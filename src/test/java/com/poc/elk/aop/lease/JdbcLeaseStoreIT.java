@@ -0,0 +1,136 @@
+package com.poc.elk.aop.lease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link JdbcLeaseStore} and the {@link ScheduledLeaseAspect}, two stores with their own
+ * owner standing for two nodes sharing the database.
+ */
+@IntegrationTest
+class JdbcLeaseStoreIT {
+
+    private static final Duration AT_MOST_FOR = Duration.ofMinutes(10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcLeaseStore nodeOne;
+
+    private JdbcLeaseStore nodeTwo;
+
+    private String name;
+
+    @BeforeEach
+    void setup() {
+        nodeOne = new JdbcLeaseStore(jdbcTemplate, transactionManager, "node-one", Clock.systemUTC());
+        nodeTwo = new JdbcLeaseStore(jdbcTemplate, transactionManager, "node-two", Clock.systemUTC());
+        name = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void testLeaseIsHeldByOneNode() {
+        Lease lease = nodeOne.tryAcquire(name, AT_MOST_FOR).orElseThrow();
+
+        assertThat(nodeTwo.tryAcquire(name, AT_MOST_FOR)).isEmpty();
+        assertThat(nodeOne.isHeld(lease)).isTrue();
+
+        nodeOne.release(lease, Duration.ZERO);
+
+        Lease nextLease = nodeTwo.tryAcquire(name, AT_MOST_FOR).orElseThrow();
+        assertThat(nextLease.fencingToken()).isGreaterThan(lease.fencingToken());
+        assertThat(nodeOne.isHeld(lease)).isFalse();
+    }
+
+    @Test
+    void testExpiredLeaseIsTakenOver() {
+        Lease lease = nodeOne.tryAcquire(name, AT_MOST_FOR).orElseThrow();
+        JdbcLeaseStore nodeTwoLater = new JdbcLeaseStore(
+            jdbcTemplate,
+            transactionManager,
+            "node-two",
+            Clock.offset(Clock.systemUTC(), AT_MOST_FOR.plusSeconds(1))
+        );
+
+        Lease takenOver = nodeTwoLater.tryAcquire(name, AT_MOST_FOR).orElseThrow();
+
+        assertThat(takenOver.fencingToken()).isGreaterThan(lease.fencingToken());
+        assertThat(nodeOne.isHeld(lease)).isFalse();
+        // The late release of the first node does not cut the lease of the second one short
+        nodeOne.release(lease, Duration.ZERO);
+        assertThat(nodeTwo.isHeld(takenOver)).isTrue();
+    }
+
+    @Test
+    void testLeaseIsLockedInTheTransactionOfTheCallerOnlyWhileHeld() {
+        Lease lease = nodeOne.tryAcquire(name, AT_MOST_FOR).orElseThrow();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Boolean locked = transactionTemplate.execute(status -> nodeOne.lockIfHeld(lease));
+        assertThat(locked).isTrue();
+
+        JdbcLeaseStore nodeTwoLater = new JdbcLeaseStore(
+            jdbcTemplate,
+            transactionManager,
+            "node-two",
+            Clock.offset(Clock.systemUTC(), AT_MOST_FOR.plusSeconds(1))
+        );
+        nodeTwoLater.tryAcquire(name, AT_MOST_FOR).orElseThrow();
+
+        Boolean lockedAfterTakeover = transactionTemplate.execute(status -> nodeOne.lockIfHeld(lease));
+        assertThat(lockedAfterTakeover).isFalse();
+    }
+
+    @Test
+    void testReleasedLeaseLastsAtLeastForOtherNodes() {
+        Lease lease = nodeOne.tryAcquire(name, AT_MOST_FOR).orElseThrow();
+        nodeOne.release(lease, Duration.ofMinutes(1));
+
+        assertThat(nodeTwo.tryAcquire(name, AT_MOST_FOR)).isEmpty();
+        assertThat(nodeOne.tryAcquire(name, AT_MOST_FOR)).isPresent();
+    }
+
+    @Test
+    void testScheduledMethodIsSkippedWhileAnotherNodeHoldsTheLease() {
+        Lease lease = nodeTwo.tryAcquire("removeNotActivatedUsers", AT_MOST_FOR).orElseThrow();
+        try {
+            double skipped = skippedCount();
+
+            userService.removeNotActivatedUsers();
+
+            assertThat(skippedCount()).isEqualTo(skipped + 1);
+        } finally {
+            nodeTwo.release(lease, Duration.ZERO);
+        }
+    }
+
+    private double skippedCount() {
+        Counter counter = meterRegistry
+            .find(ScheduledLeaseAspect.SKIPPED_METER_NAME)
+            .tag(ScheduledLeaseAspect.NAME_DIMENSION, "removeNotActivatedUsers")
+            .counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.poc.elk.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidation.Type;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+class CacheInvalidationBusTest {
+
+    private Node first;
+
+    private Node second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String channel = UUID.randomUUID().toString();
+        first = new Node(channel);
+        second = new Node(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.bus.shutdown();
+        second.bus.shutdown();
+    }
+
+    @Test
+    void testEvictionIsAppliedOnTheOtherNode() {
+        first.cacheManager.getCache("users").put("alice", "first");
+        second.cacheManager.getCache("users").put("alice", "second");
+        second.cacheManager.getCache("users").put("bob", "second");
+
+        first.cacheManager.getCache("users").evict("alice");
+        first.bus.flush();
+
+        assertThat(first.local("users").get("alice")).isNull();
+        assertThat(second.local("users").get("alice")).isNull();
+        assertThat(second.local("users").get("bob")).isNotNull();
+        assertThat(second.meterRegistry.get(CacheInvalidationBus.LAG_METER_NAME).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testClearIsAppliedOnTheOtherNode() {
+        second.cacheManager.getCache("users").put("alice", "second");
+
+        first.cacheManager.getCache("users").clear();
+        first.bus.flush();
+
+        assertThat(second.local("users").get("alice")).isNull();
+    }
+
+    @Test
+    void testKeyWhichCannotBeSentClearsTheCache() {
+        second.cacheManager.getCache("users").put(List.of("alice"), "second");
+        second.cacheManager.getCache("users").put("bob", "second");
+
+        first.cacheManager.getCache("users").evict(List.of("alice"));
+        first.bus.flush();
+
+        assertThat(second.local("users").get(List.of("alice"))).isNull();
+        assertThat(second.local("users").get("bob")).isNull();
+    }
+
+    @Test
+    void testReceivedEvictionsAreNotSentAgain() {
+        first.cacheManager.getCache("users").evict("alice");
+        first.bus.flush();
+
+        assertThat(first.meterRegistry.get(CacheInvalidationBus.SENT_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(second.meterRegistry.get(CacheInvalidationBus.RECEIVED_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(second.meterRegistry.get(CacheInvalidationBus.SENT_METER_NAME).counter().count()).isZero();
+        assertThat(first.meterRegistry.get(CacheInvalidationBus.RECEIVED_METER_NAME).counter().count()).isZero();
+    }
+
+    @Test
+    void testRegionEvictionRunsItsListenerOnTheOtherNode() {
+        AtomicInteger firstInvalidations = new AtomicInteger();
+        AtomicInteger secondInvalidations = new AtomicInteger();
+        first.bus.subscribe("authorities", firstInvalidations::incrementAndGet);
+        second.bus.subscribe("authorities", secondInvalidations::incrementAndGet);
+
+        first.bus.publish(Eviction.clear(Type.REGION, "authorities"));
+        first.bus.publish(Eviction.clear(Type.REGION, "unknown"));
+        first.bus.flush();
+
+        assertThat(secondInvalidations).hasValue(1);
+        assertThat(firstInvalidations).hasValue(0);
+    }
+
+    @Test
+    void testEvictionsAreBatched() {
+        for (int i = 0; i < 5; i++) {
+            first.bus.publish(Eviction.of(Type.CACHE_KEY, "users", "user-" + i));
+        }
+        first.bus.flush();
+
+        assertThat(second.meterRegistry.get(CacheInvalidationBus.RECEIVED_METER_NAME).counter().count()).isEqualTo(5);
+        // Batches of at most 2 evictions
+        assertThat(second.meterRegistry.get(CacheInvalidationBus.LAG_METER_NAME).timer().count()).isEqualTo(3);
+    }
+
+    private static final class Node {
+
+        private final CacheManager localCacheManager = new ConcurrentMapCacheManager("users");
+
+        private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        private final CacheInvalidationBus bus;
+
+        private final CacheManager cacheManager;
+
+        private Node(String channel) throws Exception {
+            bus = new CacheInvalidationBus(
+                new LoopbackTransport(channel),
+                new ObjectMapper(),
+                localCacheManager,
+                null,
+                // Only flushed by the tests
+                Duration.ofHours(1),
+                2,
+                Clock.systemUTC(),
+                meterRegistry
+            );
+            bus.start();
+            cacheManager = new ClusterCacheManager(
+                localCacheManager,
+                new StaticListableBeanFactory(Map.of("bus", bus)).getBeanProvider(CacheInvalidationBus.class)
+            );
+        }
+
+        private Cache local(String name) {
+            return localCacheManager.getCache(name);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.poc.elk.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidation.Type;
+import com.poc.elk.config.ApplicationProperties;
+import com.poc.elk.domain.User;
+import com.poc.elk.repository.UserRepository;
+import com.poc.elk.security.BCryptCalibration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests of the cache invalidation between this node and a peer on the same loopback channel.
+ */
+@IntegrationTest
+class CacheInvalidationIT {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private BCryptCalibration bCryptCalibration;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final BlockingQueue<CacheInvalidation> received = new LinkedBlockingQueue<>();
+
+    private LoopbackTransport peer;
+
+    @BeforeEach
+    void startPeer() {
+        peer = new LoopbackTransport(applicationProperties.getCache().getInvalidation().getChannel());
+        peer.start(message -> {
+            try {
+                received.add(objectMapper.readValue(message, CacheInvalidation.class));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    void stopPeer() {
+        peer.close();
+    }
+
+    @Test
+    void testEvictionIsSentToThePeer() throws Exception {
+        Cache cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        assertThat(cache).isInstanceOf(ClusterCache.class);
+
+        cache.evictIfPresent("cache-invalidation-user");
+
+        assertReceived(Eviction.of(Type.CACHE_KEY, UserRepository.USERS_BY_LOGIN_CACHE, "cache-invalidation-user"));
+    }
+
+    @Test
+    void testEvictionInATransactionIsSentOnceCommitted() throws Exception {
+        Cache cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        Eviction expected = Eviction.of(Type.CACHE_KEY, UserRepository.USERS_BY_LOGIN_CACHE, "cache-invalidation-tx-user");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cache.evictIfPresent("cache-invalidation-tx-user");
+            cacheInvalidationBus.flush();
+            assertThat(received).noneMatch(invalidation -> invalidation.evictions().contains(expected));
+        });
+        cacheInvalidationBus.flush();
+
+        assertReceived(expected);
+    }
+
+    @Test
+    void testBulkUpdateIsAppliedByTheOtherNode() throws Exception {
+        org.hibernate.Cache otherHibernateCache = mock(org.hibernate.Cache.class);
+        CacheInvalidationBus otherNode = new CacheInvalidationBus(
+            new LoopbackTransport(applicationProperties.getCache().getInvalidation().getChannel()),
+            objectMapper,
+            new ConcurrentMapCacheManager(),
+            otherHibernateCache,
+            Duration.ofHours(1),
+            100,
+            Clock.systemUTC(),
+            new SimpleMeterRegistry()
+        );
+        otherNode.start();
+        User user = new User();
+        user.setLogin("cache-invalidation-rehash");
+        user.setEmail("cache-invalidation-rehash@localhost");
+        user.setActivated(true);
+        user.setPassword(new BCryptPasswordEncoder(bCryptCalibration.strength() + 1).encode("password"));
+        user = userRepository.saveAndFlush(user);
+        try {
+            // The login rehashes the password with a bulk update
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(user.getLogin(), "password"));
+
+            verify(otherHibernateCache, timeout(5000)).evictEntityData(User.class.getName(), user.getId());
+        } finally {
+            otherNode.shutdown();
+            userRepository.delete(user);
+        }
+    }
+
+    private void assertReceived(Eviction expected) throws InterruptedException {
+        CacheInvalidation invalidation = received.poll(5, TimeUnit.SECONDS);
+        while (invalidation != null && !invalidation.evictions().contains(expected)) {
+            invalidation = received.poll(5, TimeUnit.SECONDS);
+        }
+        assertThat(invalidation).isNotNull();
+    }
+
+    @Test
+    void testEvictionOfThePeerIsApplied() throws Exception {
+        Cache cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        cache.put("cache-invalidation-user", "cached");
+
+        peer.send(
+            objectMapper.writeValueAsBytes(
+                new CacheInvalidation(
+                    "peer",
+                    System.currentTimeMillis(),
+                    List.of(Eviction.of(Type.CACHE_KEY, UserRepository.USERS_BY_LOGIN_CACHE, "cache-invalidation-user"))
+                )
+            )
+        );
+
+        assertThat(cache.get("cache-invalidation-user")).isNull();
+    }
+}
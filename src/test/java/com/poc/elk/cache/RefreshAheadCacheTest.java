@@ -0,0 +1,179 @@
+package com.poc.elk.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.jcache.JCacheCache;
+
+class RefreshAheadCacheTest {
+
+    private static final Duration REFRESH_AFTER = Duration.ofMinutes(45);
+
+    private final Map<String, String> database = new HashMap<>();
+
+    private final List<Runnable> reloads = new ArrayList<>();
+
+    private final MutableClock clock = new MutableClock();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private javax.cache.CacheManager jCacheManager;
+
+    private RefreshAheadCache cache;
+
+    private int loads;
+
+    @BeforeEach
+    void setUp() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        jCacheManager = provider.getCacheManager(
+            URI.create("urn:" + UUID.randomUUID()),
+            new DefaultConfiguration(provider.getDefaultClassLoader())
+        );
+        javax.cache.Cache<Object, Object> nativeCache = jCacheManager.createCache("users", new MutableConfiguration<>().setStoreByValue(false));
+        cache = new RefreshAheadCache(
+            new JCacheCache(nativeCache),
+            key -> {
+                loads++;
+                String value = database.get(key);
+                if ("failing".equals(value)) {
+                    throw new IllegalStateException("Database down");
+                }
+                return value;
+            },
+            REFRESH_AFTER,
+            0,
+            reloads::add,
+            clock,
+            meterRegistry
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        jCacheManager.close();
+    }
+
+    @Test
+    void testFreshEntryIsNotRefreshed() {
+        cache.put("alice", "v1");
+        clock.advance(REFRESH_AFTER.minusSeconds(1));
+
+        assertThat(cache.get("alice", String.class)).isEqualTo("v1");
+        assertThat(reloads).isEmpty();
+        assertThat(meterRegistry.get(RefreshAheadCache.STALE_METER_NAME).counter().count()).isZero();
+    }
+
+    @Test
+    void testEntryDueForRefreshIsServedWhileASingleReloadReplacesIt() {
+        cache.put("alice", "v1");
+        database.put("alice", "v2");
+        clock.advance(REFRESH_AFTER);
+
+        assertThat(cache.get("alice", String.class)).isEqualTo("v1");
+        assertThat(cache.get("alice", String.class)).isEqualTo("v1");
+        assertThat(reloads).hasSize(1);
+
+        runReloads();
+
+        assertThat(cache.get("alice", String.class)).isEqualTo("v2");
+        assertThat(loads).isEqualTo(1);
+        assertThat(reloads).isEmpty();
+        assertThat(meterRegistry.get(RefreshAheadCache.STALE_METER_NAME).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(RefreshAheadCache.REFRESHES_METER_NAME).tag("result", "success").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEntryEvictedDuringTheReloadIsNotRestored() {
+        cache.put("alice", "v1");
+        database.put("alice", "v2");
+        clock.advance(REFRESH_AFTER);
+        cache.get("alice");
+
+        cache.evict("alice");
+        runReloads();
+
+        assertThat(cache.get("alice")).isNull();
+    }
+
+    @Test
+    void testEntryDeletedFromTheDatabaseIsRemoved() {
+        cache.put("alice", "v1");
+        clock.advance(REFRESH_AFTER);
+        cache.get("alice");
+
+        runReloads();
+
+        assertThat(cache.get("alice")).isNull();
+    }
+
+    @Test
+    void testFailedReloadKeepsTheEntry() {
+        cache.put("alice", "v1");
+        database.put("alice", "failing");
+        clock.advance(REFRESH_AFTER);
+        cache.get("alice");
+
+        runReloads();
+
+        assertThat(cache.get("alice", String.class)).isEqualTo("v1");
+        assertThat(reloads).hasSize(1);
+        assertThat(meterRegistry.get(RefreshAheadCache.REFRESHES_METER_NAME).tag("result", "failure").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testMissIsLoadedByTheValueLoader() {
+        assertThat(cache.get("alice", () -> "v1")).isEqualTo("v1");
+        assertThat(cache.get("alice", String.class)).isEqualTo("v1");
+        assertThat(cache.putIfAbsent("alice", "v2").get()).isEqualTo("v1");
+    }
+
+    private void runReloads() {
+        List<Runnable> pending = new ArrayList<>(reloads);
+        reloads.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
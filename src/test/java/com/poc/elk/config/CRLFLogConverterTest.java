@@ -3,6 +3,7 @@ package com.poc.elk.config;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
@@ -121,6 +122,42 @@ class CRLFLogConverterTest {
         assertFalse(result);
     }
 
+    @Test
+    void transformShouldReturnTheSameInstanceWithoutLookingAtTheEventWhenThereIsNothingToReplace() {
+        ILoggingEvent event = mock(ILoggingEvent.class);
+        String input = "Test input string";
+        CRLFLogConverter converter = new CRLFLogConverter();
+
+        String result = converter.transform(event, input);
+
+        assertSame(input, result);
+        verifyNoInteractions(event);
+    }
+
+    @Test
+    void transformShouldReplaceTabsAndEveryCrlfCharacter() {
+        ILoggingEvent event = mock(ILoggingEvent.class);
+        when(event.getLoggerName()).thenReturn("com.mycompany.myapp.example.Logger");
+        CRLFLogConverter converter = new CRLFLogConverter();
+
+        String result = converter.transform(event, "Test\tinput\r\nstring\n");
+
+        assertEquals("Test_input__string_", result);
+    }
+
+    @Test
+    void isLoggerSafeShouldDecideOncePerLogger() {
+        ILoggingEvent event = mock(ILoggingEvent.class);
+        when(event.getLoggerName()).thenReturn("org.hibernate.example.Logger");
+        CRLFLogConverter converter = new CRLFLogConverter();
+
+        assertTrue(converter.isLoggerSafe(event));
+        assertTrue(converter.isLoggerSafe(event));
+        when(event.getLoggerName()).thenReturn("com.mycompany.myapp.example.Logger");
+        assertFalse(converter.isLoggerSafe(event));
+        assertFalse(converter.isLoggerSafe(event));
+    }
+
     @Test
     void testToAnsiString() {
         CRLFLogConverter cut = new CRLFLogConverter();
@@ -0,0 +1,102 @@
+package com.poc.elk.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.repository.UserRepository;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.util.unit.DataSize;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Unit tests for the per cache sizing and expiry of the {@link CacheConfiguration}.
+ */
+class CacheConfigurationTest {
+
+    @TempDir
+    Path diskDirectory;
+
+    private javax.cache.CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().setDiskDirectory(diskDirectory.toString());
+        ApplicationProperties.Cache.Sizing sizing = new ApplicationProperties.Cache.Sizing();
+        sizing.setHeapEntries(10L);
+        sizing.setOffHeap(DataSize.ofMegabytes(2));
+        sizing.setDisk(DataSize.ofMegabytes(4));
+        sizing.setTimeToIdle(Duration.ofMinutes(5));
+        applicationProperties.getCache().getCaches().put(TestEntity.class.getName(), sizing);
+
+        CacheConfiguration cacheConfiguration = new CacheConfiguration(new JHipsterProperties(), applicationProperties);
+        cacheManager = cacheConfiguration.jCacheCacheManager(
+            new StaticListableBeanFactory(Map.of("cacheManagerCustomizer", cacheConfiguration.cacheManagerCustomizer())).getBeanProvider(
+                JCacheManagerCustomizer.class
+            )
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void testConfiguredCacheIsTiered() {
+        ResourcePools resourcePools = runtimeConfiguration(TestEntity.class.getName()).getResourcePools();
+
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(10);
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.OFFHEAP).getSize()).isEqualTo(2);
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.DISK).getSize()).isEqualTo(4);
+        assertThat(runtimeConfiguration(TestEntity.class.getName()).getExpiryPolicy().getExpiryForAccess(1L, () -> "value")).isEqualTo(
+            Duration.ofMinutes(5)
+        );
+    }
+
+    @Test
+    void testOtherCachesKeepTheDefaults() {
+        ResourcePools resourcePools = runtimeConfiguration(UserRepository.USERS_BY_LOGIN_CACHE).getResourcePools();
+
+        assertThat(resourcePools.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(
+            new JHipsterProperties().getCache().getEhcache().getMaxEntries()
+        );
+    }
+
+    @Test
+    void testTimeToLiveIsJittered() {
+        ExpiryPolicy<? super Object, ? super Object> expiry = runtimeConfiguration(UserRepository.USERS_BY_LOGIN_CACHE).getExpiryPolicy();
+        Duration timeToLive = Duration.ofSeconds(new JHipsterProperties().getCache().getEhcache().getTimeToLiveSeconds());
+
+        Set<Duration> timesToLive = IntStream.range(0, 20)
+            .mapToObj(i -> expiry.getExpiryForCreation("alice", "value"))
+            .collect(Collectors.toSet());
+
+        assertThat(timesToLive)
+            .hasSizeGreaterThan(1)
+            .allMatch(ttl -> ttl.compareTo(timeToLive.multipliedBy(9).dividedBy(10)) >= 0 && ttl.compareTo(timeToLive) <= 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheRuntimeConfiguration<Object, Object> runtimeConfiguration(String cacheName) {
+        Eh107Configuration<Object, Object> configuration = cacheManager.getCache(cacheName).getConfiguration(Eh107Configuration.class);
+        return configuration.unwrap(CacheRuntimeConfiguration.class);
+    }
+}
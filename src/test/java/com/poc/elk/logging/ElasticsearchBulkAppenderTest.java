@@ -0,0 +1,249 @@
+package com.poc.elk.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ElasticsearchBulkAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * The bulk requests received, as their lines.
+     */
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger status = new AtomicInteger(200);
+
+    @TempDir
+    Path spoolDirectory;
+
+    private HttpServer elasticsearch;
+
+    private ElasticsearchBulkAppender appender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        elasticsearch = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        elasticsearch.createContext("/_bulk", this::bulk);
+        elasticsearch.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (appender != null) {
+            appender.stop();
+        }
+        elasticsearch.stop(0);
+    }
+
+    private void bulk(HttpExchange exchange) throws IOException {
+        List<String> lines;
+        try (InputStream body = new GZIPInputStream(exchange.getRequestBody())) {
+            lines = new String(body.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+        int responseStatus = status.get();
+        if (responseStatus == 200) {
+            requests.add(lines);
+        }
+        byte[] response = "{\"errors\":false,\"items\":[]}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(responseStatus, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+
+    @Test
+    void testEventsArePostedGzippedInDailyIndices() throws Exception {
+        appender = startAppender(1_000_000, Duration.ofMillis(100));
+
+        for (int i = 0; i < 10; i++) {
+            appender.doAppend(event("message " + i));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> messages().size() == 10);
+        List<String> lines = requests.get(0);
+        JsonNode action = mapper.readTree(lines.get(0));
+        assertThat(action.get("index").get("_index").asText()).matches("logs-\\d{4}\\.\\d{2}\\.\\d{2}");
+        assertThat(messages()).containsExactly(
+            "message 0",
+            "message 1",
+            "message 2",
+            "message 3",
+            "message 4",
+            "message 5",
+            "message 6",
+            "message 7",
+            "message 8",
+            "message 9"
+        );
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .until(() -> meterRegistry.get(ElasticsearchBulkAppender.EVENTS_METER_NAME).counter().count() == 10);
+        assertThat(meterRegistry.get(ElasticsearchBulkAppender.BYTES_METER_NAME).counter().count()).isPositive();
+        assertThat(meterRegistry.get(ElasticsearchBulkAppender.BATCH_LATENCY_METER_NAME).tag("outcome", "success").timer().count())
+            .isEqualTo(requests.size());
+    }
+
+    @Test
+    void testEventsArePostedUnderThePathOfTheUrl() throws Exception {
+        // Behind a reverse proxy
+        elasticsearch.removeContext("/_bulk");
+        elasticsearch.createContext("/es/_bulk", this::bulk);
+        URI url = URI.create("http://localhost:" + elasticsearch.getAddress().getPort() + "/es");
+        appender = startAppender(url, 1_000_000, Duration.ofMillis(50));
+
+        appender.doAppend(event("message"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> messages().size() == 1);
+    }
+
+    @Test
+    void testBatchesCloseOnSize() throws Exception {
+        appender = startAppender(1000, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 20; i++) {
+            appender.doAppend(event("message " + i));
+        }
+
+        // Each event is larger than 100 bytes, so at most the last 9 events wait for the batch age
+        await().atMost(5, TimeUnit.SECONDS).until(() -> messages().size() > 10);
+        assertThat(requests).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void testBatchesCloseOnAge() throws Exception {
+        appender = startAppender(1_000_000, Duration.ofMillis(200));
+
+        appender.doAppend(event("message"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> messages().size() == 1);
+    }
+
+    @Test
+    void testBatchesAreSpooledAndReplayedOnRecovery() throws Exception {
+        status.set(503);
+        appender = startAppender(1_000_000, Duration.ofMillis(50));
+
+        appender.doAppend(event("message 0"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> spooledBatches() == 1);
+        appender.doAppend(event("message 1"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> spooledBatches() == 2);
+        assertThat(meterRegistry.get(ElasticsearchBulkAppender.SPOOL_BYTES_METER_NAME).gauge().value()).isPositive();
+        assertThat(meterRegistry.get(ElasticsearchBulkAppender.BATCH_LATENCY_METER_NAME).tag("outcome", "failure").timer().count())
+            .isPositive();
+        assertThat(requests).isEmpty();
+
+        status.set(200);
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> spooledBatches() == 0);
+        assertThat(messages()).containsExactly("message 0", "message 1");
+        assertThat(meterRegistry.get(ElasticsearchBulkAppender.EVENTS_METER_NAME).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testSpooledBatchesAreReplayedAfterRestart() throws Exception {
+        status.set(503);
+        appender = startAppender(1_000_000, Duration.ofMillis(50));
+        appender.doAppend(event("message 0"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> spooledBatches() == 1);
+        appender.stop();
+
+        status.set(200);
+        appender = startAppender(1_000_000, Duration.ofMillis(50));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> messages().size() == 1);
+        assertThat(messages()).containsExactly("message 0");
+    }
+
+    @Test
+    void testRejectedBatchesAreDropped() throws Exception {
+        status.set(400);
+        appender = startAppender(1_000_000, Duration.ofMillis(50));
+
+        appender.doAppend(event("message"));
+
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .until(() -> meterRegistry.get(ElasticsearchBulkAppender.DROPPED_METER_NAME).tag("reason", "rejected").counter().count() == 1);
+        assertThat(spooledBatches()).isZero();
+    }
+
+    private ElasticsearchBulkAppender startAppender(int maxBatchSize, Duration maxBatchAge) throws IOException {
+        return startAppender(URI.create("http://localhost:" + elasticsearch.getAddress().getPort()), maxBatchSize, maxBatchAge);
+    }
+
+    private ElasticsearchBulkAppender startAppender(URI url, int maxBatchSize, Duration maxBatchAge) throws IOException {
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setLineSeparator("");
+        encoder.setContext(context);
+        ElasticsearchBulkAppender bulkAppender = new ElasticsearchBulkAppender(
+            url,
+            "logs",
+            null,
+            maxBatchSize,
+            maxBatchAge,
+            Duration.ofSeconds(5),
+            1000,
+            encoder,
+            new MappedSegmentSpool(spoolDirectory, 64 * 1024, 1024 * 1024),
+            meterRegistry
+        );
+        bulkAppender.setContext(context);
+        bulkAppender.start();
+        assertThat(bulkAppender.isStarted()).isTrue();
+        return bulkAppender;
+    }
+
+    private LoggingEvent event(String message) {
+        return new LoggingEvent(ElasticsearchBulkAppenderTest.class.getName(), context.getLogger("test"), Level.INFO, message, null, null);
+    }
+
+    private double spooledBatches() {
+        return meterRegistry.get(ElasticsearchBulkAppender.SPOOL_BATCHES_METER_NAME).gauge().value();
+    }
+
+    private List<String> messages() throws IOException {
+        List<String> messages = new ArrayList<>();
+        for (List<String> lines : requests) {
+            for (int i = 1; i < lines.size(); i += 2) {
+                messages.add(mapper.readTree(lines.get(i)).get("message").asText());
+            }
+        }
+        return messages;
+    }
+}
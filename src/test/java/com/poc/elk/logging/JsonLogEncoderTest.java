@@ -0,0 +1,122 @@
+package com.poc.elk.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import net.logstash.logback.encoder.LogstashEncoder;
+import net.logstash.logback.stacktrace.ShortenedThrowableConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MarkerFactory;
+
+class JsonLogEncoderTest {
+
+    private static final String CUSTOM_FIELDS = "{\"app_name\":\"elkPOC\",\"app_port\":\"8080\"}";
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private LogstashEncoder logstashEncoder;
+
+    private JsonLogEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        ShortenedThrowableConverter throwableConverter = new ShortenedThrowableConverter();
+        throwableConverter.setRootCauseFirst(true);
+        logstashEncoder = new LogstashEncoder();
+        logstashEncoder.setThrowableConverter(throwableConverter);
+        logstashEncoder.setCustomFields(CUSTOM_FIELDS);
+        logstashEncoder.setLineSeparator("");
+        logstashEncoder.setContext(context);
+        logstashEncoder.start();
+        encoder = new JsonLogEncoder();
+        encoder.setCustomFields(CUSTOM_FIELDS);
+        encoder.setLineSeparator("");
+        encoder.setContext(context);
+        encoder.start();
+    }
+
+    @Test
+    void testEventIsEncodedLikeLogstashEncoder() throws Exception {
+        LoggingEvent event = event("Hello \"world\"\n\tnaïve ☃ 😀 \u0001", null);
+
+        assertSameFields(event);
+    }
+
+    @Test
+    void testMdcMarkersAndStackTraceAreEncodedLikeLogstashEncoder() throws Exception {
+        LoggingEvent event = event("Failure", new IllegalStateException("Boom", new IllegalArgumentException("Cause")));
+        event.setMDCPropertyMap(Map.of("requestId", "42", "user", "admin"));
+        event.addMarker(MarkerFactory.getMarker("CRLF_SAFE"));
+
+        assertSameFields(event);
+    }
+
+    @Test
+    void testTimestampIsInTheZoneWithMilliseconds() throws Exception {
+        encoder.stop();
+        encoder.setZone(ZoneId.of("Europe/Paris"));
+        encoder.start();
+        LoggingEvent event = event("message", null);
+        event.setInstant(Instant.parse("2024-01-31T23:00:00.007Z"));
+
+        JsonNode json = mapper.readTree(encoder.encode(event));
+
+        assertThat(json.get("@timestamp").asText()).isEqualTo("2024-02-01T00:00:00.007+01:00");
+    }
+
+    @Test
+    void testLineSeparatorEndsTheEvent() {
+        encoder.stop();
+        encoder.setLineSeparator("\n");
+        encoder.start();
+
+        String encoded = new String(encoder.encode(event("message", null)), StandardCharsets.UTF_8);
+
+        assertThat(encoded).startsWith("{").endsWith("}\n").doesNotContain("\n{");
+    }
+
+    @Test
+    void testLargeEventsAreEncoded() throws Exception {
+        String message = "x".repeat(200_000);
+
+        assertThat(mapper.readTree(encoder.encode(event(message, null))).get("message").asText()).isEqualTo(message);
+        assertThat(mapper.readTree(encoder.encode(event("small", null))).get("message").asText()).isEqualTo("small");
+    }
+
+    private void assertSameFields(LoggingEvent event) throws Exception {
+        ObjectNode expected = (ObjectNode) mapper.readTree(logstashEncoder.encode(event));
+        ObjectNode actual = (ObjectNode) mapper.readTree(encoder.encode(event));
+        // The same instant, with milliseconds rather than microseconds
+        Instant expectedTimestamp = OffsetDateTime.parse(expected.remove("@timestamp").asText()).toInstant();
+        Instant actualTimestamp = OffsetDateTime.parse(actual.remove("@timestamp").asText()).toInstant();
+        assertThat(actualTimestamp).isEqualTo(expectedTimestamp.truncatedTo(ChronoUnit.MILLIS));
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    private LoggingEvent event(String message, Throwable throwable) {
+        return new LoggingEvent(
+            JsonLogEncoderTest.class.getName(),
+            context.getLogger("com.poc.elk.Test"),
+            Level.WARN,
+            message,
+            throwable,
+            null
+        );
+    }
+}
@@ -0,0 +1,150 @@
+package com.poc.elk.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.poc.elk.config.CRLFLogConverter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.logstash.logback.encoder.LogstashEncoder;
+import net.logstash.logback.stacktrace.ShortenedThrowableConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * JMH benchmark of the per-event cost of sanitizing a message with the {@link CRLFLogConverter}, against the regex it
+ * replaced, and of encoding an event with the {@link JsonLogEncoder}, against the {@link LogstashEncoder}.
+ * <p>
+ * The events per second are the scores; the bytes allocated per event are the {@code gc.alloc.rate.norm} of the GC
+ * profiler.
+ * <p>
+ * Not part of the regular build, run it with {@code ./mvnw test -Dtest=LogEncodingBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class LogEncodingBenchmarkTest {
+
+    private static final String CUSTOM_FIELDS = "{\"app_name\":\"elkPOC\",\"app_port\":\"8080\"}";
+
+    @State(Scope.Benchmark)
+    public static class Events {
+
+        LoggerContext context;
+
+        LoggingEvent event;
+
+        String message;
+
+        BenchmarkedConverter converter;
+
+        LogstashEncoder logstashEncoder;
+
+        JsonLogEncoder jsonLogEncoder;
+
+        @Setup
+        public void setup() {
+            context = new LoggerContext();
+            context.setMDCAdapter(new LogbackMDCAdapter());
+            message = "Request to get TestEntity : 1234, by user admin from 10.0.0.1";
+            event = new LoggingEvent(
+                LogEncodingBenchmarkTest.class.getName(),
+                context.getLogger("com.poc.elk.web.rest.TestEntityResource"),
+                Level.DEBUG,
+                message,
+                null,
+                null
+            );
+            event.setMDCPropertyMap(Map.of("requestId", "0f8fad5b-d9cb-469f-a165-70867728950e"));
+            event.prepareForDeferredProcessing();
+            converter = new BenchmarkedConverter();
+            converter.setOptionList(List.of("red"));
+            ShortenedThrowableConverter throwableConverter = new ShortenedThrowableConverter();
+            throwableConverter.setRootCauseFirst(true);
+            logstashEncoder = new LogstashEncoder();
+            logstashEncoder.setThrowableConverter(throwableConverter);
+            logstashEncoder.setCustomFields(CUSTOM_FIELDS);
+            logstashEncoder.setLineSeparator("");
+            logstashEncoder.setContext(context);
+            logstashEncoder.start();
+            jsonLogEncoder = new JsonLogEncoder();
+            jsonLogEncoder.setCustomFields(CUSTOM_FIELDS);
+            jsonLogEncoder.setLineSeparator("");
+            jsonLogEncoder.setContext(context);
+            jsonLogEncoder.start();
+        }
+
+        @TearDown
+        public void tearDown() {
+            logstashEncoder.stop();
+            jsonLogEncoder.stop();
+        }
+    }
+
+    /**
+     * A subclass, to call the protected transform.
+     */
+    public static class BenchmarkedConverter extends CRLFLogConverter {
+
+        String sanitize(LoggingEvent event, String in) {
+            return transform(event, in);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String regexSanitize(Events events) {
+        return events.message.replaceAll("[\n\r\t]", "_");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String scanFirstSanitize(Events events) {
+        return events.converter.sanitize(events.event, events.message);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public byte[] logstashEncode(Events events) {
+        return events.logstashEncoder.encode(events.event);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public byte[] jsonLogEncode(Events events) {
+        return events.jsonLogEncoder.encode(events.event);
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.MINUTES)
+    void runBenchmark() throws Exception {
+        new Runner(
+            new OptionsBuilder()
+                .include(LogEncodingBenchmarkTest.class.getName() + ".*(Sanitize|Encode)")
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.poc.elk.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LogstashUdpAppenderTest {
+
+    private static final int MAX_DATAGRAM_SIZE = 1472;
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<Integer> lengths = new ArrayList<>();
+
+    private DatagramSocket logstash;
+
+    private LogstashUdpAppender appender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        logstash = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        logstash.setSoTimeout(5000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (appender != null) {
+            appender.stop();
+        }
+        logstash.close();
+    }
+
+    @Test
+    void testEventsArePackedInDatagrams() throws Exception {
+        appender = startAppender(1000);
+
+        for (int i = 0; i < 50; i++) {
+            appender.doAppend(event("message " + i));
+        }
+
+        List<JsonNode> datagrams = receive(50);
+        assertThat(datagrams).allMatch(JsonNode::isArray);
+        List<String> messages = new ArrayList<>();
+        datagrams.forEach(datagram -> datagram.forEach(event -> messages.add(event.get("message").asText())));
+        assertThat(messages).hasSize(50).contains("message 0", "message 49");
+        assertThat(lengths).allMatch(length -> length <= MAX_DATAGRAM_SIZE);
+    }
+
+    @Test
+    void testLargeEventIsSentAlone() throws Exception {
+        appender = startAppender(1000);
+
+        appender.doAppend(event("x".repeat(10_000)));
+
+        List<JsonNode> datagrams = receive(1);
+        assertThat(datagrams.get(0).get(0).get("message").asText()).hasSize(10_000);
+    }
+
+    @Test
+    void testEventLargerThanADatagramIsDropped() throws Exception {
+        appender = startAppender(1000);
+
+        appender.doAppend(event("x".repeat(LogstashUdpAppender.MAX_UDP_PAYLOAD)));
+        appender.doAppend(event("small"));
+
+        assertThat(receive(1).get(0).get(0).get("message").asText()).isEqualTo("small");
+        assertThat(meterRegistry.get(LogstashUdpAppender.DROPPED_METER_NAME).tag("reason", "too-large").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEventsBeyondTheQueueAreDropped() {
+        appender = startAppender(1);
+
+        for (int i = 0; i < 1000; i++) {
+            appender.doAppend(event("message " + i));
+        }
+
+        assertThat(meterRegistry.get(LogstashUdpAppender.DROPPED_METER_NAME).tag("reason", "queue-full").counter().count()).isPositive();
+    }
+
+    private LogstashUdpAppender startAppender(int queueSize) {
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setLineSeparator("");
+        encoder.setContext(context);
+        LogstashUdpAppender udpAppender = new LogstashUdpAppender(
+            logstash.getLocalAddress().getHostAddress(),
+            logstash.getLocalPort(),
+            MAX_DATAGRAM_SIZE,
+            queueSize,
+            encoder,
+            meterRegistry
+        );
+        udpAppender.setContext(context);
+        udpAppender.start();
+        assertThat(udpAppender.isStarted()).isTrue();
+        return udpAppender;
+    }
+
+    private LoggingEvent event(String message) {
+        return new LoggingEvent(LogstashUdpAppenderTest.class.getName(), context.getLogger("test"), Level.INFO, message, null, null);
+    }
+
+    private List<JsonNode> receive(int events) throws Exception {
+        List<JsonNode> datagrams = new ArrayList<>();
+        DatagramPacket packet = new DatagramPacket(new byte[LogstashUdpAppender.MAX_UDP_PAYLOAD], LogstashUdpAppender.MAX_UDP_PAYLOAD);
+        int received = 0;
+        while (received < events) {
+            try {
+                logstash.receive(packet);
+            } catch (SocketTimeoutException e) {
+                break;
+            }
+            JsonNode datagram = mapper.readTree(packet.getData(), 0, packet.getLength());
+            datagrams.add(datagram);
+            received += datagram.size();
+            lengths.add(packet.getLength());
+        }
+        return datagrams;
+    }
+}
@@ -0,0 +1,107 @@
+package com.poc.elk.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedSegmentSpoolTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsAreFirstInFirstOutAcrossSegments() throws Exception {
+        try (MappedSegmentSpool spool = new MappedSegmentSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10)) {
+            for (int i = 0; i < 10; i++) {
+                assertThat(spool.offer(record("record " + i))).isTrue();
+            }
+            assertThat(spool.size()).isEqualTo(10);
+            assertThat(spool.bytes()).isEqualTo(10 * "record 0".length());
+            assertThat(segments()).isGreaterThan(1);
+
+            for (int i = 0; i < 10; i++) {
+                assertThat(text(spool.peek())).isEqualTo("record " + i);
+                spool.remove();
+            }
+            assertThat(spool.peek()).isNull();
+            assertThat(spool.size()).isZero();
+            assertThat(spool.bytes()).isZero();
+        }
+    }
+
+    @Test
+    void testRecordsSurviveReopening() throws Exception {
+        try (MappedSegmentSpool spool = new MappedSegmentSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10)) {
+            for (int i = 0; i < 10; i++) {
+                spool.offer(record("record " + i));
+            }
+            spool.remove();
+            spool.remove();
+            spool.remove();
+        }
+
+        try (MappedSegmentSpool spool = new MappedSegmentSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10)) {
+            assertThat(spool.size()).isEqualTo(7);
+            assertThat(text(spool.peek())).isEqualTo("record 3");
+            spool.offer(record("record 10"));
+            for (int i = 3; i <= 10; i++) {
+                assertThat(text(spool.peek())).isEqualTo("record " + i);
+                spool.remove();
+            }
+            assertThat(spool.peek()).isNull();
+        }
+    }
+
+    @Test
+    void testRecordsAreRefusedWhenFull() throws Exception {
+        try (MappedSegmentSpool spool = new MappedSegmentSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 2)) {
+            assertThat(spool.offer(new byte[SEGMENT_SIZE])).isFalse();
+            assertThat(spool.offer(new byte[0])).isFalse();
+            assertThat(spool.offer(new byte[40])).isTrue();
+            assertThat(spool.offer(new byte[40])).isTrue();
+            assertThat(spool.offer(new byte[40])).isFalse();
+
+            spool.remove();
+            assertThat(spool.offer(new byte[40])).isTrue();
+            assertThat(spool.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void testConsumedSegmentsAreDeleted() throws Exception {
+        try (MappedSegmentSpool spool = new MappedSegmentSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 10)) {
+            for (int i = 0; i < 4; i++) {
+                spool.offer(new byte[40]);
+            }
+            assertThat(segments()).isEqualTo(4);
+
+            for (int i = 0; i < 4; i++) {
+                spool.remove();
+            }
+            spool.peek();
+
+            assertThat(segments()).isEqualTo(1);
+        }
+    }
+
+    private long segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(MappedSegmentSpool.SEGMENT_SUFFIX)).count();
+        }
+    }
+
+    private static byte[] record(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] record) {
+        return new String(record, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,256 @@
+package com.poc.elk.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.Status;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RateLimitingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private RateLimitingTurboFilter filter;
+
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        appender.setContext(context);
+        appender.start();
+        logger = context.getLogger("com.poc.elk.Test");
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+        filter = new RateLimitingTurboFilter();
+        filter.setContext(context);
+        filter.setNanoClock(nanoTime::get);
+        filter.setLoggerRate("100");
+        filter.setLoggerBurst("20");
+        filter.setTemplateRate("1");
+        filter.setTemplateBurst("5");
+        filter.setSampleRate("0");
+        filter.setSummaryInterval("1h");
+        context.addTurboFilter(filter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void testTemplateIsLimitedToItsBurstThenItsRate() {
+        filter.start();
+
+        for (int i = 0; i < 10; i++) {
+            logger.error("Request {} failed", i);
+        }
+        assertThat(appender.list).hasSize(5);
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        for (int i = 0; i < 10; i++) {
+            logger.error("Request {} failed", i);
+        }
+        assertThat(appender.list).hasSize(7);
+    }
+
+    @Test
+    void testTemplatesAreLimitedSeparately() {
+        filter.start();
+
+        for (int i = 0; i < 10; i++) {
+            logger.error("Request {} failed", i);
+            logger.error("Query {} timed out", i);
+        }
+
+        assertThat(appender.list).hasSize(10);
+    }
+
+    @Test
+    void testLoggerIsLimitedAcrossTemplates() {
+        filter.setMaxTemplates("1000");
+        filter.start();
+
+        for (int i = 0; i < 100; i++) {
+            logger.error("Request " + i + " failed");
+        }
+
+        assertThat(appender.list).hasSize(20);
+    }
+
+    @Test
+    void testLoggerFloodDoesNotSpendTheTokensOfItsTemplates() {
+        filter.setLoggerBurst("10");
+        filter.start();
+
+        for (int i = 0; i < 10; i++) {
+            for (int template = 0; template < 4; template++) {
+                logger.error("Step " + template + " of request {} failed", i);
+            }
+        }
+        assertThat(appender.list).hasSize(10);
+
+        // The logger is full again, the templates still have the 10 tokens the logger refused
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 0; i < 10; i++) {
+            for (int template = 0; template < 4; template++) {
+                logger.error("Step " + template + " of request {} failed", i);
+            }
+        }
+        assertThat(appender.list).hasSize(20);
+    }
+
+    @Test
+    void testTemplatesBeyondTheMaximumShareTheLimitOfTheLogger() {
+        filter.setMaxTemplates("2");
+        filter.start();
+
+        for (int i = 0; i < 10; i++) {
+            logger.error("Request " + i + " failed");
+        }
+        filter.summarize();
+
+        assertThat(appender.list).hasSize(10);
+        assertThat(appender.list).noneMatch(event -> event.getMarkerList() != null);
+    }
+
+    @Test
+    void testEventsBelowTheLevelAreNotLimited() {
+        filter.start();
+
+        for (int i = 0; i < 10; i++) {
+            logger.info("Request {} received", i);
+        }
+
+        assertThat(appender.list).hasSize(10);
+    }
+
+    @Test
+    void testEventsBeyondTheLimitsAreSampled() {
+        filter.setTemplateBurst("1");
+        filter.setLoggerBurst("1");
+        filter.setSampleRate("0.5");
+        filter.start();
+
+        for (int i = 0; i < 10_000; i++) {
+            logger.error("Request {} failed", i);
+        }
+
+        assertThat(appender.list).hasSizeBetween(4500, 5500);
+    }
+
+    @Test
+    void testSuppressedEventsAreSummarized() {
+        filter.start();
+
+        for (int i = 0; i < 10; i++) {
+            logger.error("Request {} failed", i);
+        }
+        filter.summarize();
+
+        assertThat(appender.list).hasSize(6);
+        ILoggingEvent summary = appender.list.get(5);
+        assertThat(summary.getLevel()).isEqualTo(Level.ERROR);
+        assertThat(summary.getMarkerList()).containsExactly(RateLimitingTurboFilter.SUMMARY_MARKER);
+        assertThat(summary.getFormattedMessage()).isEqualTo("5 similar events suppressed in the last 1h: Request {} failed");
+
+        filter.summarize();
+
+        assertThat(appender.list).hasSize(6);
+    }
+
+    @Test
+    void testInvalidOrEmptyPropertiesKeepTheirDefaults() {
+        RateLimitingTurboFilter defaults = new RateLimitingTurboFilter();
+        defaults.setContext(context);
+        defaults.setNanoClock(nanoTime::get);
+        defaults.setSummaryInterval("0s");
+        defaults.setSummaryInterval("-1s");
+        defaults.setSummaryInterval("ten seconds");
+        defaults.setSummaryInterval("");
+        defaults.setTemplateBurst("five");
+        defaults.setTemplateBurst(" ");
+        defaults.start();
+        context.resetTurboFilterList();
+        context.addTurboFilter(defaults);
+
+        try {
+            for (int i = 0; i < 60; i++) {
+                logger.error("Request {} failed", i);
+            }
+            defaults.summarize();
+        } finally {
+            defaults.stop();
+        }
+
+        assertThat(appender.list).hasSize(51);
+        assertThat(appender.list.get(50).getFormattedMessage()).isEqualTo(
+            "10 similar events suppressed in the last 10s: Request {} failed"
+        );
+        assertThat(context.getStatusManager().getCopyOfStatusList())
+            .filteredOn(status -> status.getLevel() == Status.ERROR)
+            .hasSize(4);
+    }
+
+    @Test
+    void testDisabledFilterLetsEverythingThrough() {
+        filter.setEnabled("false");
+        filter.start();
+
+        for (int i = 0; i < 10; i++) {
+            logger.error("Request {} failed", i);
+        }
+
+        assertThat(appender.list).hasSize(10);
+    }
+
+    @Test
+    void testConcurrentEventsTakeEachTokenOnce() throws Exception {
+        filter.setTemplateBurst("1000");
+        filter.setLoggerBurst("1000");
+        filter.start();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (int i = 0; i < 500; i++) {
+                        logger.error("Request {} failed", i);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+        filter.summarize();
+
+        List<ILoggingEvent> events = List.copyOf(appender.list);
+        assertThat(events).hasSize(1001);
+        assertThat(events.get(1000).getFormattedMessage()).startsWith("3000 similar events suppressed");
+    }
+}
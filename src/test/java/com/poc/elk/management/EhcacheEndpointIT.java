@@ -0,0 +1,115 @@
+package com.poc.elk.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.cache.EhcacheMetrics;
+import com.poc.elk.cache.RefreshAheadCache;
+import com.poc.elk.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for the {@link EhcacheEndpoint}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = { "ROLE_ADMIN" })
+class EhcacheEndpointIT {
+
+    private static final String CACHE_URL = "/management/ehcache/{name}";
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @AfterEach
+    void restoreCache() throws Exception {
+        restMockMvc
+            .perform(
+                post(CACHE_URL, UserRepository.USERS_BY_LOGIN_CACHE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"heapEntries\":" + jHipsterProperties.getCache().getEhcache().getMaxEntries() + "}")
+            )
+            .andExpect(status().isOk());
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+    }
+
+    @Test
+    void testCachesAreListedWithTheirStatistics() throws Exception {
+        restMockMvc
+            .perform(get("/management/ehcache"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.usersByLogin.resourcePools.heap").value(containsString("entries")))
+            .andExpect(jsonPath("$.usersByLogin.tierEntries.OnHeap").isNumber())
+            .andExpect(jsonPath("$.usersByLogin.statistics.gets").isNumber())
+            .andExpect(jsonPath("$.['com.poc.elk.domain.TestEntity']").exists());
+    }
+
+    @Test
+    void testUnknownCacheIsNotFound() throws Exception {
+        restMockMvc.perform(get(CACHE_URL, "unknown")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCacheIsPrewarmedAndCleared() throws Exception {
+        restMockMvc
+            .perform(post(CACHE_URL, UserRepository.USERS_BY_LOGIN_CACHE).contentType(MediaType.APPLICATION_JSON).content("{\"prewarm\":10}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tierEntries.OnHeap").value(greaterThan(0)))
+            .andExpect(jsonPath("$.statistics.puts").value(greaterThan(0)));
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get("admin")).isNotNull();
+
+        restMockMvc
+            .perform(delete(CACHE_URL, UserRepository.USERS_BY_LOGIN_CACHE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tierEntries.OnHeap").value(0));
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get("admin")).isNull();
+    }
+
+    @Test
+    void testCacheIsResized() throws Exception {
+        restMockMvc
+            .perform(post(CACHE_URL, UserRepository.USERS_BY_LOGIN_CACHE).contentType(MediaType.APPLICATION_JSON).content("{\"heapEntries\":5}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.resourcePools.heap").value(containsString("5 entries")));
+    }
+
+    @Test
+    void testCacheWithoutWarmerCannotBePrewarmed() throws Exception {
+        restMockMvc
+            .perform(post(CACHE_URL, "unknownUsers").contentType(MediaType.APPLICATION_JSON).content("{\"prewarm\":10}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCacheMetersAreBound() {
+        assertThat(meterRegistry.find("cache.gets").tag("cache", UserRepository.USERS_BY_LOGIN_CACHE).meters()).isNotEmpty();
+        assertThat(meterRegistry.find("cache.size").tag("cache", UserRepository.USERS_BY_LOGIN_CACHE).gauge()).isNotNull();
+        assertThat(meterRegistry.find(RefreshAheadCache.STALE_METER_NAME).tag("cache", UserRepository.USERS_BY_LOGIN_CACHE).counter()).isNotNull();
+        assertThat(meterRegistry.find(EhcacheMetrics.GET_LATENCY_METER_NAME).tag("cache", UserRepository.USERS_BY_LOGIN_CACHE).gauge()).isNotNull();
+        assertThat(
+            meterRegistry.find(EhcacheMetrics.TIER_ENTRIES_METER_NAME).tags("cache", UserRepository.USERS_BY_LOGIN_CACHE, "tier", "OnHeap").gauge()
+        ).isNotNull();
+    }
+}
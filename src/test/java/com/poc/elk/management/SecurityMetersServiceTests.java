@@ -67,4 +67,16 @@ class SecurityMetersServiceTests {
 
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
     }
+
+    @Test
+    void testJwtCacheCountersByResult() {
+        assertThat(meterRegistry.find(SecurityMetersService.JWT_CACHE_METER_NAME).counters()).hasSize(2);
+
+        securityMetersService.trackJwtCacheHit();
+        securityMetersService.trackJwtCacheHit();
+        securityMetersService.trackJwtCacheMiss();
+
+        assertThat(meterRegistry.get(SecurityMetersService.JWT_CACHE_METER_NAME).tag("result", "hit").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(SecurityMetersService.JWT_CACHE_METER_NAME).tag("result", "miss").counter().count()).isEqualTo(1);
+    }
 }
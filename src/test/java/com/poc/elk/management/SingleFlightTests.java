@@ -0,0 +1,104 @@
+package com.poc.elk.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTests {
+
+    private static final int CALLERS = 8;
+
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<String, String> singleFlight;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+    }
+
+    @Test
+    void testConcurrentLoadsOfTheSameKeyAreCoalesced() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(
+                executor.submit(() ->
+                    singleFlight.load("key", () -> {
+                        loads.incrementAndGet();
+                        loading.countDown();
+                        await(release);
+                        return "value";
+                    })
+                )
+            );
+            await(loading);
+            for (int i = 1; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.load("key", () -> "other " + loads.incrementAndGet())));
+            }
+            // Only release the load once all the other callers wait for it
+            while (coalesced() < CALLERS - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get(SingleFlight.LOADS_METER_NAME).tag(SingleFlight.NAME_DIMENSION, "test").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(SingleFlight.IN_FLIGHT_METER_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    void testSequentialLoadsAreNotCached() {
+        assertThat(singleFlight.load("key", () -> "first")).isEqualTo("first");
+        assertThat(singleFlight.load("key", () -> "second")).isEqualTo("second");
+        assertThat(coalesced()).isZero();
+    }
+
+    @Test
+    void testFailedLoadIsRethrownAndForgotten() {
+        assertThatThrownBy(() ->
+            singleFlight.load("key", () -> {
+                throw new IllegalStateException("database down");
+            })
+        )
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("database down");
+        assertThat(singleFlight.load("key", () -> "value")).isEqualTo("value");
+    }
+
+    private double coalesced() {
+        return meterRegistry.get(SingleFlight.COALESCED_METER_NAME).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.poc.elk.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Test class for the {@link BCryptCalibration}.
+ */
+class BCryptCalibrationTest {
+
+    @Test
+    void testStrengthStaysWithinBounds() {
+        assertThat(BCryptCalibration.calibrate(Duration.ZERO, 4, 6).strength()).isEqualTo(4);
+        assertThat(BCryptCalibration.calibrate(Duration.ofHours(1), 4, 6).strength()).isEqualTo(6);
+    }
+
+    @Test
+    void testHashTimeIsMeasured() {
+        BCryptCalibration calibration = BCryptCalibration.calibrate(Duration.ofHours(1), 4, 5);
+
+        assertThat(calibration.hashTime()).isPositive();
+    }
+
+    @Test
+    void testEncoderUsesTheCalibratedStrength() {
+        PasswordEncoder encoder = new BCryptCalibration(5, Duration.ZERO).passwordEncoder();
+
+        String encoded = encoder.encode("password");
+
+        assertThat(encoded).startsWith("$2a$05$");
+        assertThat(encoder.matches("password", encoded)).isTrue();
+    }
+
+    @Test
+    void testHashesOfAnotherStrengthAreUpgraded() {
+        PasswordEncoder encoder = new BCryptCalibration(5, Duration.ZERO).passwordEncoder();
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password"))).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isTrue();
+        assertThat(encoder.upgradeEncoding("not a bcrypt hash")).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+}
@@ -0,0 +1,119 @@
+package com.poc.elk.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.poc.elk.management.SecurityMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Test class for the {@link CachingJwtDecoder}.
+ */
+class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T00:00:00Z");
+
+    private final AtomicInteger decodeCount = new AtomicInteger();
+
+    private final JwtDecoder delegate = token -> {
+        decodeCount.incrementAndGet();
+        if (token.startsWith("invalid")) {
+            throw new JwtException("Invalid signature");
+        }
+        return Jwt.withTokenValue(token).header("alg", "HS512").subject(token).expiresAt(NOW.plusSeconds(60)).build();
+    };
+
+    private MeterRegistry meterRegistry;
+
+    private SecurityMetersService metersService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        metersService = new SecurityMetersService(meterRegistry);
+    }
+
+    private CachingJwtDecoder decoder(int maxEntries, Instant now) {
+        return new CachingJwtDecoder(delegate, maxEntries, metersService, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private double count(String result) {
+        return meterRegistry
+            .get(SecurityMetersService.JWT_CACHE_METER_NAME)
+            .tag(SecurityMetersService.JWT_CACHE_METER_RESULT_DIMENSION, result)
+            .counter()
+            .count();
+    }
+
+    @Test
+    void testVerifiedTokenIsCached() {
+        CachingJwtDecoder decoder = decoder(10, NOW);
+
+        Jwt first = decoder.decode("token");
+        Jwt second = decoder.decode("token");
+
+        assertThat(second).isSameAs(first);
+        assertThat(decodeCount.get()).isEqualTo(1);
+        assertThat(count("miss")).isEqualTo(1);
+        assertThat(count("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void testExpiredTokenIsVerifiedAgain() {
+        decoder(10, NOW).decode("token");
+        CachingJwtDecoder later = decoder(10, NOW.plusSeconds(60).plus(CachingJwtDecoder.CLOCK_SKEW));
+        later.decode("token");
+        later.decode("token");
+
+        assertThat(decodeCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testTokenIsHonouredDuringTheClockSkew() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(
+            delegate,
+            10,
+            metersService,
+            Clock.offset(Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofSeconds(90))
+        );
+        decoder.decode("token");
+        decoder.decode("token");
+
+        assertThat(decodeCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidTokenIsNotCached() {
+        CachingJwtDecoder decoder = decoder(10, NOW);
+
+        assertThatThrownBy(() -> decoder.decode("invalid")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode("invalid")).isInstanceOf(JwtException.class);
+
+        assertThat(decodeCount.get()).isEqualTo(2);
+        assertThat(decoder.size()).isZero();
+    }
+
+    @Test
+    void testEntryCapIsStrict() {
+        CachingJwtDecoder decoder = decoder(3, NOW);
+
+        for (int i = 0; i < 10; i++) {
+            decoder.decode("token" + i);
+            assertThat(decoder.size()).isLessThanOrEqualTo(3);
+        }
+        // The last token is always kept
+        decoder.decode("token9");
+        assertThat(decodeCount.get()).isEqualTo(10);
+    }
+}
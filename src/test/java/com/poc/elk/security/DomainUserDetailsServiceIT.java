@@ -5,8 +5,11 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 import com.poc.elk.IntegrationTest;
 import com.poc.elk.domain.User;
+import com.poc.elk.management.SecurityMetersService;
 import com.poc.elk.repository.UserRepository;
 import com.poc.elk.service.UserService;
+import com.poc.elk.service.dto.AdminUserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Locale;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.AfterEach;
@@ -14,8 +17,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -31,6 +36,8 @@ class DomainUserDetailsServiceIT {
     private static final String USER_TWO_EMAIL = "test-user-two@localhost";
     private static final String USER_THREE_LOGIN = "test-user-three";
     private static final String USER_THREE_EMAIL = "test-user-three@localhost";
+    private static final String USER_FOUR_LOGIN = "test-user-four";
+    private static final String USER_FOUR_EMAIL = "test-user-four@localhost";
 
     @Autowired
     private UserRepository userRepository;
@@ -42,6 +49,12 @@ class DomainUserDetailsServiceIT {
     @Qualifier("userDetailsService")
     private UserDetailsService domainUserDetailsService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     public User getUserOne() {
         User userOne = new User();
         userOne.setLogin(USER_ONE_LOGIN);
@@ -133,4 +146,83 @@ class DomainUserDetailsServiceIT {
             domainUserDetailsService.loadUserByUsername(USER_THREE_LOGIN)
         );
     }
+
+    @Test
+    void assertThatUnknownLoginIsOnlyLookedUpOnce() {
+        double hits = unknownUsersCount("hit");
+
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() ->
+            domainUserDetailsService.loadUserByUsername("unknown-login")
+        );
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() ->
+            domainUserDetailsService.loadUserByUsername("Unknown-Login")
+        );
+
+        assertThat(unknownUsersCount("hit")).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void assertThatUnknownEmailIsOnlyLookedUpOnce() {
+        double hits = unknownUsersCount("hit");
+
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() ->
+            domainUserDetailsService.loadUserByUsername("unknown-email@localhost")
+        );
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() ->
+            domainUserDetailsService.loadUserByUsername("unknown-email@localhost")
+        );
+
+        assertThat(unknownUsersCount("hit")).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void assertThatCreatedUserIsNoLongerUnknown() {
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() ->
+            domainUserDetailsService.loadUserByUsername(USER_FOUR_LOGIN)
+        );
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() ->
+            domainUserDetailsService.loadUserByUsername(USER_FOUR_EMAIL)
+        );
+
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin(USER_FOUR_LOGIN);
+        userDTO.setEmail(USER_FOUR_EMAIL);
+        userService.createUser(userDTO);
+
+        try {
+            assertThat(domainUserDetailsService.loadUserByUsername(USER_FOUR_LOGIN).getUsername()).isEqualTo(USER_FOUR_LOGIN);
+            assertThat(domainUserDetailsService.loadUserByUsername(USER_FOUR_EMAIL).getUsername()).isEqualTo(USER_FOUR_LOGIN);
+        } finally {
+            userService.deleteUser(USER_FOUR_LOGIN);
+        }
+    }
+
+    @Test
+    void assertThatPrincipalIsCachedInsteadOfUser() {
+        domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+        domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL);
+
+        PrincipalSnapshot principal = cacheManager
+            .getCache(PrincipalSnapshotCache.BY_LOGIN_CACHE_NAME)
+            .get(USER_ONE_LOGIN, PrincipalSnapshot.class);
+        assertThat(principal).isNotNull();
+        assertThat(principal.login()).isEqualTo(USER_ONE_LOGIN);
+        assertThat(principal.activated()).isTrue();
+        assertThat(cacheManager.getCache(PrincipalSnapshotCache.BY_EMAIL_CACHE_NAME).get(USER_TWO_EMAIL)).isNotNull();
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(USER_ONE_LOGIN)).isNull();
+
+        userService.deleteUser(USER_ONE_LOGIN);
+        userService.deleteUser(USER_TWO_LOGIN);
+
+        assertThat(cacheManager.getCache(PrincipalSnapshotCache.BY_LOGIN_CACHE_NAME).get(USER_ONE_LOGIN)).isNull();
+        assertThat(cacheManager.getCache(PrincipalSnapshotCache.BY_EMAIL_CACHE_NAME).get(USER_TWO_EMAIL)).isNull();
+    }
+
+    private double unknownUsersCount(String result) {
+        return meterRegistry
+            .get(SecurityMetersService.UNKNOWN_USERS_METER_NAME)
+            .tag(SecurityMetersService.UNKNOWN_USERS_METER_RESULT_DIMENSION, result)
+            .counter()
+            .count();
+    }
 }
@@ -0,0 +1,172 @@
+package com.poc.elk.security;
+
+import static com.poc.elk.security.SecurityUtils.JWT_ALGORITHM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.poc.elk.management.SecurityMetersService;
+import com.poc.elk.management.SecurityMetersService.JwtDecodeOutcome;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+/**
+ * Test class for the {@link MeteredJwtDecoder}.
+ */
+class MeteredJwtDecoderTest {
+
+    private static final SecretKey KEY = key('a');
+
+    private final AtomicInteger delegateCount = new AtomicInteger();
+
+    private MeterRegistry meterRegistry;
+
+    private MeteredJwtDecoder decoder;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        NimbusJwtDecoder nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(KEY).macAlgorithm(JWT_ALGORITHM).build();
+        nimbusJwtDecoder.setJwtValidator(MeteredJwtDecoder.expiryValidator());
+        JwtDecoder countingDecoder = token -> {
+            delegateCount.incrementAndGet();
+            return nimbusJwtDecoder.decode(token);
+        };
+        decoder = new MeteredJwtDecoder(countingDecoder, new SecurityMetersService(meterRegistry));
+    }
+
+    private static SecretKey key(char fill) {
+        byte[] bytes = String.valueOf(fill).repeat(64).getBytes(StandardCharsets.US_ASCII);
+        return new SecretKeySpec(bytes, JWT_ALGORITHM.getName());
+    }
+
+    private static String token(SecretKey key, MacAlgorithm algorithm, Instant expiresAt) {
+        JwtClaimsSet claims = JwtClaimsSet.builder().subject("user").issuedAt(expiresAt.minusSeconds(3600)).expiresAt(expiresAt).build();
+        return new NimbusJwtEncoder(new ImmutableSecret<>(key))
+            .encode(JwtEncoderParameters.from(JwsHeader.with(algorithm).build(), claims))
+            .getTokenValue();
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long timerCount(JwtDecodeOutcome outcome) {
+        return meterRegistry
+            .get(SecurityMetersService.JWT_DECODE_METER_NAME)
+            .tag(SecurityMetersService.JWT_DECODE_METER_OUTCOME_DIMENSION, outcome.getTag())
+            .timer()
+            .count();
+    }
+
+    private double invalidTokensCount(String cause) {
+        return meterRegistry
+            .get(SecurityMetersService.INVALID_TOKENS_METER_NAME)
+            .tag(SecurityMetersService.INVALID_TOKENS_METER_CAUSE_DIMENSION, cause)
+            .counter()
+            .count();
+    }
+
+    @Test
+    void testValidToken() {
+        assertThat(decoder.decode(token(KEY, JWT_ALGORITHM, Instant.now().plusSeconds(60))).getSubject()).isEqualTo("user");
+
+        assertThat(timerCount(JwtDecodeOutcome.VALID)).isEqualTo(1);
+    }
+
+    @Test
+    void testExpiredToken() {
+        String token = token(KEY, JWT_ALGORITHM, Instant.now().minusSeconds(3600));
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+        assertThat(timerCount(JwtDecodeOutcome.EXPIRED)).isEqualTo(1);
+        assertThat(invalidTokensCount("expired")).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidSignature() {
+        String token = token(key('b'), JWT_ALGORITHM, Instant.now().plusSeconds(60));
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(BadJwtException.class);
+        assertThat(timerCount(JwtDecodeOutcome.INVALID_SIGNATURE)).isEqualTo(1);
+        assertThat(invalidTokensCount("invalid-signature")).isEqualTo(1);
+    }
+
+    @Test
+    void testMalformedPayload() {
+        String token = base64Url("{\"alg\":\"HS512\"}") + "." + base64Url("not json") + ".c2lnbmF0dXJl";
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(BadJwtException.class);
+        assertThat(delegateCount.get()).isEqualTo(1);
+        assertThat(timerCount(JwtDecodeOutcome.MALFORMED)).isEqualTo(1);
+        assertThat(invalidTokensCount("malformed")).isEqualTo(1);
+    }
+
+    @Test
+    void testGarbageIsRejectedBeforeDecoding() {
+        String valid = token(KEY, JWT_ALGORITHM, Instant.now().plusSeconds(60));
+        String[] garbage = {
+            "",
+            "not-a-token",
+            "a.b",
+            "a.b.c.d",
+            ".b.c",
+            "a..c",
+            "a.b.",
+            valid + "!",
+            valid.replace('.', '+'),
+            valid.substring(1),
+            base64Url("{\"typ\":\"JWT\"}") + ".e30.c2ln",
+            "a".repeat(JwtPreValidator.MAX_TOKEN_LENGTH) + ".e30.c2ln",
+        };
+
+        for (String token : garbage) {
+            assertThatThrownBy(() -> decoder.decode(token)).as(token).isInstanceOf(BadJwtException.class);
+        }
+        assertThat(delegateCount.get()).isZero();
+        assertThat(timerCount(JwtDecodeOutcome.MALFORMED)).isEqualTo(garbage.length);
+        assertThat(invalidTokensCount("malformed")).isEqualTo(garbage.length);
+    }
+
+    @Test
+    void testOtherAlgorithmIsRejectedBeforeDecoding() {
+        String[] unsupported = {
+            token(KEY, MacAlgorithm.HS256, Instant.now().plusSeconds(60)),
+            base64Url("{\"alg\":\"none\"}") + ".e30.c2ln",
+            base64Url("{\"typ\":\"JWT\", \"alg\" : \"RS256\"}") + ".e30.c2ln",
+        };
+
+        for (String token : unsupported) {
+            assertThatThrownBy(() -> decoder.decode(token)).as(token).isInstanceOf(BadJwtException.class);
+        }
+        assertThat(delegateCount.get()).isZero();
+        assertThat(timerCount(JwtDecodeOutcome.UNSUPPORTED)).isEqualTo(unsupported.length);
+        assertThat(invalidTokensCount("unsupported")).isEqualTo(unsupported.length);
+    }
+
+    @Test
+    void testHeaderWithOtherFieldsIsDecoded() {
+        String token = base64Url("{\"typ\":\"JWT\",\"alg\":\"HS512\"}") + ".e30.c2ln";
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(BadJwtException.class);
+        assertThat(delegateCount.get()).isEqualTo(1);
+        assertThat(timerCount(JwtDecodeOutcome.INVALID_SIGNATURE)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.poc.elk.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Test class for the {@link PasswordHashingExecutor} and the {@link BoundedPasswordEncoder}.
+ */
+class PasswordHashingExecutorTest {
+
+    private MeterRegistry meterRegistry;
+
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(3), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testTasksBeyondTheQueueAreRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> {
+            started.countDown();
+            await(release);
+            return "running";
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        assertThat(meterRegistry.get(PasswordHashingExecutor.QUEUE_METER_NAME).gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get(PasswordHashingExecutor.ACTIVE_METER_NAME).gauge().value()).isEqualTo(1);
+        assertThatThrownBy(() -> executor.submit(() -> "rejected"))
+            .isInstanceOf(PasswordHashingRejectedException.class)
+            .extracting(e -> ((PasswordHashingRejectedException) e).getRetryAfter())
+            .isEqualTo(Duration.ofSeconds(3));
+        assertThat(meterRegistry.get(PasswordHashingExecutor.REJECTED_METER_NAME).counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("running");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+    }
+
+    @Test
+    void testCallRunsOnThePool() {
+        assertThat(executor.call(() -> Thread.currentThread().getName())).isEqualTo("password-hashing-1");
+    }
+
+    @Test
+    void testCallFromThePoolDoesNotWaitForItself() throws Exception {
+        // With a single thread, waiting for a task queued behind the current one would never end
+        String name = executor.submit(() -> executor.call(() -> Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+        assertThat(name).isEqualTo("password-hashing-1");
+    }
+
+    @Test
+    void testCallRethrowsTheFailureOfTheTask() {
+        assertThatThrownBy(() ->
+            executor.call(() -> {
+                throw new IllegalStateException("failed");
+            })
+        )
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("failed");
+    }
+
+    @Test
+    void testEncoderHashesOnThePoolAndIsTimed() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), executor, meterRegistry);
+
+        String encoded = encoder.encode("password");
+
+        assertThat(encoder.matches("password", encoded)).isTrue();
+        assertThat(encoder.matches("wrong", encoded)).isFalse();
+        assertThat(
+            meterRegistry
+                .get(BoundedPasswordEncoder.HASH_METER_NAME)
+                .tag(BoundedPasswordEncoder.HASH_METER_OPERATION_DIMENSION, "encode")
+                .timer()
+                .count()
+        ).isEqualTo(1);
+        assertThat(
+            meterRegistry
+                .get(BoundedPasswordEncoder.HASH_METER_NAME)
+                .tag(BoundedPasswordEncoder.HASH_METER_OPERATION_DIMENSION, "matches")
+                .timer()
+                .count()
+        ).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
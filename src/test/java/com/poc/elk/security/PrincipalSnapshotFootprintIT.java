@@ -0,0 +1,54 @@
+package com.poc.elk.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.domain.User;
+import com.poc.elk.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jol.info.GraphLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measures the retained size of an entry of the {@value UserRepository#USERS_BY_LOGIN_CACHE} cache, a detached
+ * {@link User} with its authorities, against that of the {@link PrincipalSnapshot} cached for the authentication.
+ * <p>
+ * Disabled by default. Run it with {@code ./mvnw verify -Dbenchmark=true -Dit.test=PrincipalSnapshotFootprintIT}.
+ */
+@IntegrationTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PrincipalSnapshotFootprintIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrincipalSnapshotFootprintIT.class);
+
+    static {
+        // Unsafe refuses the field offsets of records, which JOL must then find by itself
+        System.setProperty("jol.magicFieldOffset", "true");
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void principalSnapshotIsSmallerThanUser() {
+        User user = userRepository.findOneWithAuthoritiesByLogin("admin").orElseThrow();
+        PrincipalSnapshot principal = PrincipalSnapshot.of(user);
+
+        GraphLayout userLayout = GraphLayout.parseInstance(user);
+        GraphLayout principalLayout = GraphLayout.parseInstance(principal);
+        LOG.info(
+            "Cached user: {} bytes in {} objects, principal snapshot: {} bytes in {} objects",
+            userLayout.totalSize(),
+            userLayout.totalCount(),
+            principalLayout.totalSize(),
+            principalLayout.totalCount()
+        );
+        LOG.debug("Cached user layout:\n{}", userLayout.toFootprint());
+        LOG.debug("Principal snapshot layout:\n{}", principalLayout.toFootprint());
+
+        assertThat(principalLayout.totalSize()).isLessThan(userLayout.totalSize());
+    }
+}
@@ -0,0 +1,130 @@
+package com.poc.elk.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.cache.CacheInvalidationBus;
+import com.poc.elk.domain.User;
+import com.poc.elk.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Integration tests for the {@link RehashingAuthenticationProvider}.
+ */
+@IntegrationTest
+class RehashingAuthenticationProviderIT {
+
+    private static final String LOGIN = "test-rehash";
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private BCryptCalibration bCryptCalibration;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PrincipalSnapshotCache principalSnapshotCache;
+
+    @Autowired
+    private ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
+    /**
+     * A single hashing thread, so that a task submitted after the login runs after any rehash it started.
+     */
+    private final PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(
+        1,
+        8,
+        Duration.ofSeconds(1),
+        new SimpleMeterRegistry()
+    );
+
+    @AfterEach
+    void cleanup() {
+        hashingExecutor.shutdown();
+        userRepository.findOneByLogin(LOGIN).ifPresent(userRepository::delete);
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(PrincipalSnapshotCache.BY_LOGIN_CACHE_NAME).clear();
+        cacheManager.getCache(PrincipalSnapshotCache.BY_EMAIL_CACHE_NAME).clear();
+    }
+
+    private User createUser(int strength) {
+        User user = new User();
+        user.setLogin(LOGIN);
+        user.setEmail(LOGIN + "@localhost");
+        user.setActivated(true);
+        user.setPassword(new BCryptPasswordEncoder(strength).encode("password"));
+        return userRepository.saveAndFlush(user);
+    }
+
+    private String storedPassword() {
+        return userRepository.findOneByLogin(LOGIN).orElseThrow().getPassword();
+    }
+
+    @Test
+    void testPasswordOfAnotherStrengthIsRehashedOnLogin() {
+        createUser(bCryptCalibration.strength() + 1);
+        String expectedPrefix = String.format("$2a$%02d$", bCryptCalibration.strength());
+
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, "password"));
+
+        // The rehash runs in the background
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(storedPassword()).startsWith(expectedPrefix));
+        assertThat(
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, "password")).isAuthenticated()
+        ).isTrue();
+    }
+
+    @Test
+    void testPasswordOfTheCalibratedStrengthIsKept() {
+        String password = createUser(bCryptCalibration.strength()).getPassword();
+        // The rehash would be stored on the hashing thread
+        RehashingAuthenticationProvider authenticationProvider = new RehashingAuthenticationProvider(
+            userDetailsService,
+            passwordEncoder,
+            hashingExecutor,
+            userRepository,
+            cacheManager,
+            principalSnapshotCache,
+            Runnable::run,
+            cacheInvalidationBus
+        );
+
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, "password"));
+        hashingExecutor.submit(() -> null).join();
+
+        assertThat(storedPassword()).isEqualTo(password);
+    }
+
+    @Test
+    void testChangedPasswordIsNotOverwritten() {
+        createUser(bCryptCalibration.strength() + 1);
+
+        assertThat(userRepository.updatePasswordIfUnchanged(LOGIN, "not the current hash", "new hash")).isZero();
+        assertThat(storedPassword()).startsWith(String.format("$2a$%02d$", bCryptCalibration.strength() + 1));
+    }
+}
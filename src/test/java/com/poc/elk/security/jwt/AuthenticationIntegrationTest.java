@@ -1,5 +1,6 @@
 package com.poc.elk.security.jwt;
 
+import com.poc.elk.config.ApplicationProperties;
 import com.poc.elk.config.SecurityConfiguration;
 import com.poc.elk.config.SecurityJwtConfiguration;
 import com.poc.elk.config.WebConfigurer;
@@ -21,6 +22,7 @@ import tech.jhipster.config.JHipsterProperties;
     },
     classes = {
         JHipsterProperties.class,
+        ApplicationProperties.class,
         WebConfigurer.class,
         SecurityConfiguration.class,
         SecurityJwtConfiguration.class,
@@ -3,17 +3,23 @@ package com.poc.elk.security.jwt;
 import static com.poc.elk.security.AuthoritiesConstants.ADMIN;
 import static com.poc.elk.security.SecurityUtils.AUTHORITIES_CLAIM;
 import static com.poc.elk.security.SecurityUtils.JWT_ALGORITHM;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 import com.nimbusds.jose.util.Base64;
+import com.poc.elk.security.LoginAuthenticationManager;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Instant;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.codec.Hex;
 import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
@@ -36,6 +42,15 @@ public class JwtAuthenticationTestUtils {
         return new SimpleMeterRegistry();
     }
 
+    @Bean
+    private LoginAuthenticationManager authenticationManager() {
+        BadCredentialsException noLogin = new BadCredentialsException("No username/password login in the JWT tests");
+        LoginAuthenticationManager authenticationManager = mock(LoginAuthenticationManager.class);
+        when(authenticationManager.authenticate(any())).thenThrow(noLogin);
+        when(authenticationManager.authenticateAsync(any())).thenReturn(CompletableFuture.failedFuture(noLogin));
+        return authenticationManager;
+    }
+
     public static String createValidToken(String jwtKey) {
         return createValidTokenForUser(jwtKey, "anonymous");
     }
@@ -0,0 +1,97 @@
+package com.poc.elk.security.jwt;
+
+import static com.poc.elk.security.jwt.JwtAuthenticationTestUtils.createValidToken;
+
+import com.nimbusds.jose.util.Base64;
+import com.poc.elk.management.SecurityMetersService;
+import com.poc.elk.security.CachingJwtDecoder;
+import com.poc.elk.security.SecurityUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+/**
+ * JMH benchmark of the per-request cost of decoding a JWT, with and without the {@link CachingJwtDecoder}.
+ * <p>
+ * Not part of the regular build, run it with {@code ./mvnw test -Dtest=JwtDecoderBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class JwtDecoderBenchmarkTest {
+
+    private static final String JWT_KEY =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    @State(Scope.Benchmark)
+    public static class Decoders {
+
+        String token;
+
+        JwtDecoder nimbusDecoder;
+
+        JwtDecoder cachingDecoder;
+
+        @Setup
+        public void setup() {
+            byte[] keyBytes = Base64.from(JWT_KEY).decode();
+            nimbusDecoder = NimbusJwtDecoder.withSecretKey(
+                new SecretKeySpec(keyBytes, 0, keyBytes.length, SecurityUtils.JWT_ALGORITHM.getName())
+            )
+                .macAlgorithm(SecurityUtils.JWT_ALGORITHM)
+                .build();
+            cachingDecoder = new CachingJwtDecoder(
+                nimbusDecoder,
+                10000,
+                new SecurityMetersService(new SimpleMeterRegistry()),
+                Clock.systemUTC()
+            );
+            // Valid for 60 seconds, which is longer than a benchmark run
+            token = createValidToken(JWT_KEY);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Jwt nimbusDecode(Decoders decoders) {
+        return decoders.nimbusDecoder.decode(decoders.token);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Jwt cachingDecode(Decoders decoders) {
+        return decoders.cachingDecoder.decode(decoders.token);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    void runBenchmark() throws Exception {
+        new Runner(
+            new OptionsBuilder()
+                .include(JwtDecoderBenchmarkTest.class.getName() + ".*Decode")
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .build()
+        ).run();
+    }
+}
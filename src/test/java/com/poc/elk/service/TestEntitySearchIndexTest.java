@@ -0,0 +1,68 @@
+package com.poc.elk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link TestEntitySearchIndex}.
+ */
+class TestEntitySearchIndexTest {
+
+    private TestEntitySearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new TestEntitySearchIndex();
+        index.put(1L, "Crème brûlée");
+        index.put(2L, "Creme caramel");
+        index.put(3L, "Chocolate mousse");
+    }
+
+    @Test
+    void testTermsAreNormalized() {
+        assertThat(TestEntitySearchIndex.terms("Crème-Brûlée, 2x!")).containsExactlyInAnyOrder("creme", "brulee", "2x");
+        assertThat(TestEntitySearchIndex.terms("  ")).isEmpty();
+        assertThat(TestEntitySearchIndex.terms(null)).isEmpty();
+    }
+
+    @Test
+    void testExactMatchesRankBeforePrefixMatches() {
+        index.put(4L, "Cremeux");
+
+        assertThat(index.search("creme", false)).extracting(TestEntitySearchIndex.Hit::id).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void testAllQueryTermsMustMatch() {
+        assertThat(index.search("cre car", false)).extracting(TestEntitySearchIndex.Hit::id).containsExactly(2L);
+        assertThat(index.search("cre mousse", false)).isEmpty();
+    }
+
+    @Test
+    void testFuzzySearch() {
+        assertThat(index.search("choclate", false)).isEmpty();
+        assertThat(index.search("choclate", true)).extracting(TestEntitySearchIndex.Hit::id).containsExactly(3L);
+        // Short terms are never fuzzy
+        assertThat(index.search("cx", true)).isEmpty();
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDeletes() {
+        index.put(3L, "Tiramisu");
+        assertThat(index.search("mousse", false)).isEmpty();
+        assertThat(index.search("tira", false)).extracting(TestEntitySearchIndex.Hit::id).containsExactly(3L);
+
+        index.remove(3L);
+        assertThat(index.search("tiramisu", false)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testWithinDistance() {
+        assertThat(TestEntitySearchIndex.withinDistance("kitten", "sitting", 2)).isFalse();
+        assertThat(TestEntitySearchIndex.withinDistance("kitten", "sitting", 3)).isTrue();
+        assertThat(TestEntitySearchIndex.withinDistance("abc", "abc", 0)).isTrue();
+    }
+}
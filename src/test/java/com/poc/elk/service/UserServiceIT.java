@@ -6,12 +6,15 @@ import static org.mockito.Mockito.when;
 import com.poc.elk.IntegrationTest;
 import com.poc.elk.domain.User;
 import com.poc.elk.repository.UserRepository;
+import com.poc.elk.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -56,6 +59,12 @@ class UserServiceIT {
     @Autowired
     private AuditingHandler auditingHandler;
 
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockitoBean
     private DateTimeProvider dateTimeProvider;
 
@@ -189,6 +198,24 @@ class UserServiceIT {
         assertThat(users).isEmpty();
     }
 
+    @Test
+    @Transactional
+    void assertThatNotActivatedUsersAreDeletedWithTheirAuthorities() {
+        Instant now = Instant.now();
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+        user.setActivated(false);
+        user.setActivationKey(RandomStringUtils.insecure().next(20));
+        user.setAuthorities(authorityRegistry.resolve(Set.of(AuthoritiesConstants.USER)));
+        User dbUser = userRepository.saveAndFlush(user);
+        double deleted = meterRegistry.get(UserService.NOT_ACTIVATED_USERS_DELETED_METER_NAME).counter().count();
+
+        userService.removeNotActivatedUsers();
+
+        assertThat(userRepository.findById(dbUser.getId())).isEmpty();
+        assertThat(meterRegistry.get(UserService.NOT_ACTIVATED_USERS_DELETED_METER_NAME).counter().count()).isEqualTo(deleted + 1);
+        assertThat(meterRegistry.get(UserService.NOT_ACTIVATED_USERS_CLEANUP_METER_NAME).timer().count()).isPositive();
+    }
+
     @Test
     @Transactional
     void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
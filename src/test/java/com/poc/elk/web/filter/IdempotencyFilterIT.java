@@ -0,0 +1,242 @@
+package com.poc.elk.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.config.Constants;
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.repository.TestEntityRepository;
+import com.poc.elk.repository.UserRepository;
+import com.poc.elk.service.UserService;
+import com.poc.elk.web.rest.vm.ManagedUserVM;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Integration tests for the {@link IdempotencyFilter}.
+ * <p>
+ * Not transactional: the handler and the replays must see committed data.
+ */
+@AutoConfigureMockMvc
+@WithMockUser
+@IntegrationTest
+class IdempotencyFilterIT {
+
+    private static final String ENTITY_API_URL = "/api/test-entities";
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private TestEntityRepository testEntityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final List<Long> insertedIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanup() {
+        testEntityRepository.deleteAllById(insertedIds);
+        insertedIds.clear();
+    }
+
+    private MockHttpServletRequestBuilder createTestEntity(String name, String idempotencyKey) throws Exception {
+        return post(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .content(om.writeValueAsBytes(new TestEntity().name(name)));
+    }
+
+    @Test
+    void testRetryIsReplayed() throws Exception {
+        long databaseSizeBeforeCreate = testEntityRepository.count();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        MockHttpServletResponse original = mockMvc
+            .perform(createTestEntity("AAAAAAAAAA", idempotencyKey))
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER))
+            .andReturn()
+            .getResponse();
+        TestEntity created = om.readValue(original.getContentAsByteArray(), TestEntity.class);
+        insertedIds.add(created.getId());
+
+        MockHttpServletResponse replayed = mockMvc
+            .perform(createTestEntity("AAAAAAAAAA", idempotencyKey))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER, "true"))
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(header().string(HttpHeaders.LOCATION, original.getHeader(HttpHeaders.LOCATION)))
+            .andReturn()
+            .getResponse();
+
+        assertThat(replayed.getContentAsString()).isEqualTo(original.getContentAsString());
+        assertThat(testEntityRepository.count()).isEqualTo(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    void testKeyReusedForAnotherRequestIsRejected() throws Exception {
+        long databaseSizeBeforeCreate = testEntityRepository.count();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        TestEntity created = om.readValue(
+            mockMvc
+                .perform(createTestEntity("AAAAAAAAAA", idempotencyKey))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray(),
+            TestEntity.class
+        );
+        insertedIds.add(created.getId());
+
+        mockMvc
+            .perform(createTestEntity("BBBBBBBBBB", idempotencyKey))
+            .andExpect(status().isUnprocessableEntity())
+            .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER));
+
+        assertThat(testEntityRepository.count()).isEqualTo(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    void testDifferentKeysAreNotReplayed() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            TestEntity created = om.readValue(
+                mockMvc
+                    .perform(createTestEntity("AAAAAAAAAA", UUID.randomUUID().toString()))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsByteArray(),
+                TestEntity.class
+            );
+            insertedIds.add(created.getId());
+        }
+    }
+
+    @Test
+    void testFailedRequestIsNotStored() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        TestEntity withId = new TestEntity().id(1L).name("AAAAAAAAAA");
+
+        mockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                    .content(om.writeValueAsBytes(withId))
+            )
+            .andExpect(status().isBadRequest());
+
+        // The fixed request runs the handler
+        TestEntity created = om.readValue(
+            mockMvc
+                .perform(createTestEntity("AAAAAAAAAA", idempotencyKey))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray(),
+            TestEntity.class
+        );
+        insertedIds.add(created.getId());
+    }
+
+    @Test
+    void testInvalidKeyIsRejected() throws Exception {
+        mockMvc.perform(createTestEntity("AAAAAAAAAA", "x".repeat(IdempotencyFilter.MAX_KEY_LENGTH + 1))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithAnonymousUser
+    void testAnonymousRequestsWithTheSameKeyAreScopedByTheirBody() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        List<String> logins = List.of("test-register-anonymous-1", "test-register-anonymous-2");
+
+        try {
+            // Two clients picking the same key: each one gets its own registration, not the response of the other
+            for (String login : logins) {
+                ManagedUserVM validUser = new ManagedUserVM();
+                validUser.setLogin(login);
+                validUser.setPassword("password");
+                validUser.setEmail(login + "@example.com");
+                validUser.setLangKey(Constants.DEFAULT_LANGUAGE);
+                mockMvc
+                    .perform(
+                        post("/api/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                            .content(om.writeValueAsBytes(validUser))
+                    )
+                    .andExpect(status().isCreated())
+                    .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER));
+            }
+
+            assertThat(logins).allMatch(login -> userRepository.findOneByLogin(login).isPresent());
+        } finally {
+            for (String login : logins) {
+                if (userRepository.findOneByLogin(login).isPresent()) {
+                    userService.deleteUser(login);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRegisterRetryIsReplayed() throws Exception {
+        ManagedUserVM validUser = new ManagedUserVM();
+        validUser.setLogin("test-register-idempotent");
+        validUser.setPassword("password");
+        validUser.setEmail("test-register-idempotent@example.com");
+        validUser.setLangKey(Constants.DEFAULT_LANGUAGE);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        try {
+            mockMvc
+                .perform(
+                    post("/api/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                        .content(om.writeValueAsBytes(validUser))
+                )
+                .andExpect(status().isCreated());
+            // Without the key, the same registration would fail as the login is now taken
+            mockMvc
+                .perform(
+                    post("/api/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                        .content(om.writeValueAsBytes(validUser))
+                )
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER, "true"));
+        } finally {
+            if (userRepository.findOneByLogin("test-register-idempotent").isPresent()) {
+                userService.deleteUser("test-register-idempotent");
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.poc.elk.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class InMemoryIdempotencyStoreTest {
+
+    private static final IdempotentResponse RESPONSE = new IdempotentResponse(
+        "requestHash",
+        201,
+        Map.of("Location", List.of("/1")),
+        new byte[0]
+    );
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T00:00:00Z"), ZoneOffset.UTC);
+
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofHours(1), 2, Duration.ofMillis(200), CLOCK);
+
+    @Test
+    void testCompletedKeyIsReplayed() {
+        assertThat(store.claim("key")).isEmpty();
+        store.complete("key", RESPONSE);
+
+        assertThat(store.claim("key")).contains(RESPONSE);
+    }
+
+    @Test
+    void testDuplicateWaitsForTheKey() throws Exception {
+        assertThat(store.claim("key")).isEmpty();
+        assertThatThrownBy(() -> store.claim("key")).isInstanceOf(IdempotencyKeyInUseException.class);
+
+        CompletableFuture<Optional<IdempotentResponse>> duplicate = CompletableFuture.supplyAsync(() -> store.claim("key"));
+        store.complete("key", RESPONSE);
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).contains(RESPONSE);
+    }
+
+    @Test
+    void testReleasedKeyIsHandedOverToTheDuplicate() throws Exception {
+        assertThat(store.claim("key")).isEmpty();
+
+        CompletableFuture<Optional<IdempotentResponse>> duplicate = CompletableFuture.supplyAsync(() -> store.claim("key"));
+        store.release("key");
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    @Test
+    void testOldestKeysAreEvicted() {
+        for (String key : List.of("first", "second", "third")) {
+            assertThat(store.claim(key)).isEmpty();
+            store.complete(key, RESPONSE);
+        }
+
+        assertThat(store.claim("first")).isEmpty();
+        assertThat(store.claim("third")).contains(RESPONSE);
+    }
+
+    @Test
+    void testExpiredKeysAreEvicted() {
+        InMemoryIdempotencyStore expiringStore = new InMemoryIdempotencyStore(Duration.ZERO, 2, Duration.ofMillis(200), CLOCK);
+        assertThat(expiringStore.claim("key")).isEmpty();
+        expiringStore.complete("key", RESPONSE);
+
+        assertThat(expiringStore.claim("key")).isEmpty();
+    }
+}
@@ -0,0 +1,134 @@
+package com.poc.elk.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.IntegrationTest;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Integration tests for the {@link JdbcIdempotencyStore}.
+ */
+@IntegrationTest
+class JdbcIdempotencyStoreIT {
+
+    private static final IdempotentResponse RESPONSE = new IdempotentResponse(
+        "requestHash",
+        201,
+        Map.of("Location", List.of("/api/test-entities/1")),
+        "{\"id\":1}".getBytes(StandardCharsets.UTF_8)
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcIdempotencyStore store;
+
+    private String key;
+
+    @BeforeEach
+    void setup() {
+        store = new JdbcIdempotencyStore(
+            jdbcTemplate,
+            transactionManager,
+            objectMapper,
+            Duration.ofHours(1),
+            Duration.ofSeconds(5),
+            Duration.ofMinutes(1),
+            Clock.systemUTC()
+        );
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void testCompletedKeyIsReplayed() {
+        assertThat(store.claim(key)).isEmpty();
+        store.complete(key, RESPONSE);
+
+        Optional<IdempotentResponse> replayed = store.claim(key);
+        assertThat(replayed).isPresent();
+        assertThat(replayed.orElseThrow().requestHash()).isEqualTo(RESPONSE.requestHash());
+        assertThat(replayed.orElseThrow().status()).isEqualTo(201);
+        assertThat(replayed.orElseThrow().headers()).isEqualTo(RESPONSE.headers());
+        assertThat(replayed.orElseThrow().body()).isEqualTo(RESPONSE.body());
+    }
+
+    @Test
+    void testReleasedKeyCanBeClaimedAgain() {
+        assertThat(store.claim(key)).isEmpty();
+        store.release(key);
+
+        assertThat(store.claim(key)).isEmpty();
+        store.release(key);
+    }
+
+    @Test
+    void testDuplicateWaitsForTheKeyInUse() throws Exception {
+        assertThat(store.claim(key)).isEmpty();
+
+        CompletableFuture<Optional<IdempotentResponse>> duplicate = CompletableFuture.supplyAsync(() -> store.claim(key));
+        await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !duplicate.isDone());
+        store.complete(key, RESPONSE);
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isPresent();
+    }
+
+    @Test
+    void testDuplicateOfAKeyStillInUseFailsAfterTheWaitTimeout() {
+        JdbcIdempotencyStore impatientStore = new JdbcIdempotencyStore(
+            jdbcTemplate,
+            transactionManager,
+            objectMapper,
+            Duration.ofHours(1),
+            Duration.ofMillis(100),
+            Duration.ofMinutes(1),
+            Clock.systemUTC()
+        );
+        assertThat(impatientStore.claim(key)).isEmpty();
+        assertThatThrownBy(() -> impatientStore.claim(key)).isInstanceOf(IdempotencyKeyInUseException.class);
+
+        impatientStore.complete(key, RESPONSE);
+        assertThat(impatientStore.claim(key)).isPresent();
+    }
+
+    @Test
+    void testExpiredKeysAreRemoved() {
+        JdbcIdempotencyStore expiringStore = new JdbcIdempotencyStore(
+            jdbcTemplate,
+            transactionManager,
+            objectMapper,
+            Duration.ZERO,
+            Duration.ofSeconds(5),
+            Duration.ofMinutes(1),
+            Clock.offset(Clock.systemUTC(), Duration.ofSeconds(1))
+        );
+        assertThat(store.claim(key)).isEmpty();
+        store.complete(key, RESPONSE);
+
+        expiringStore.removeExpiredKeys();
+
+        assertThat(store.claim(key)).isEmpty();
+        store.release(key);
+    }
+}
@@ -4,23 +4,29 @@ import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.poc.elk.IntegrationTest;
 import com.poc.elk.domain.User;
 import com.poc.elk.repository.UserRepository;
+import com.poc.elk.security.PrincipalSnapshotCache;
 import com.poc.elk.web.rest.vm.LoginVM;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.web.servlet.MvcResult;
 
 /**
  * Integration tests for the {@link AuthenticateController} REST controller.
@@ -41,8 +47,21 @@ class AuthenticateControllerIT {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void cleanup() {
+        // Authentication runs on another thread, which only sees committed users
+        for (String login : List.of("user-jwt-controller", "user-jwt-controller-remember-me")) {
+            userRepository.findOneByLogin(login).ifPresent(userRepository::delete);
+        }
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(PrincipalSnapshotCache.BY_LOGIN_CACHE_NAME).clear();
+        cacheManager.getCache(PrincipalSnapshotCache.BY_EMAIL_CACHE_NAME).clear();
+    }
+
     @Test
-    @Transactional
     void testAuthorize() throws Exception {
         User user = new User();
         user.setLogin("user-jwt-controller");
@@ -56,7 +75,7 @@ class AuthenticateControllerIT {
         login.setUsername("user-jwt-controller");
         login.setPassword("test");
         mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(login)))
+            .perform(asyncDispatch(authenticate(login)))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id_token").isString())
             .andExpect(jsonPath("$.id_token").isNotEmpty())
@@ -65,7 +84,6 @@ class AuthenticateControllerIT {
     }
 
     @Test
-    @Transactional
     void testAuthorizeWithRememberMe() throws Exception {
         User user = new User();
         user.setLogin("user-jwt-controller-remember-me");
@@ -80,7 +98,7 @@ class AuthenticateControllerIT {
         login.setPassword("test");
         login.setRememberMe(true);
         mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(login)))
+            .perform(asyncDispatch(authenticate(login)))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id_token").isString())
             .andExpect(jsonPath("$.id_token").isNotEmpty())
@@ -94,9 +112,30 @@ class AuthenticateControllerIT {
         login.setUsername("wrong-user");
         login.setPassword("wrong password");
         mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(login)))
+            .perform(asyncDispatch(authenticate(login)))
             .andExpect(status().isUnauthorized())
             .andExpect(jsonPath("$.id_token").doesNotExist())
             .andExpect(header().doesNotExist("Authorization"));
     }
+
+    @Test
+    void testAuthorizeReleasesTheRequestThread() throws Exception {
+        LoginVM login = new LoginVM();
+        login.setUsername("wrong-user");
+        login.setPassword("wrong password");
+        mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(login)))
+            .andExpect(request().asyncStarted())
+            .andExpect(header().doesNotExist("Authorization"));
+    }
+
+    /**
+     * Post the login, which must start asynchronously, the password being checked on the hashing pool.
+     */
+    private MvcResult authenticate(LoginVM login) throws Exception {
+        return mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(login)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    }
 }
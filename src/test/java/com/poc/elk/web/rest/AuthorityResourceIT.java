@@ -8,15 +8,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.poc.elk.IntegrationTest;
+import com.poc.elk.cache.CacheInvalidation;
+import com.poc.elk.cache.CacheInvalidation.Eviction;
+import com.poc.elk.cache.CacheInvalidationBus;
+import com.poc.elk.cache.LoopbackTransport;
+import com.poc.elk.config.ApplicationProperties;
 import com.poc.elk.domain.Authority;
 import com.poc.elk.repository.AuthorityRepository;
+import com.poc.elk.service.AuthorityRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityManager;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.UUID;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -39,6 +49,12 @@ class AuthorityResourceIT {
     @Autowired
     private AuthorityRepository authorityRepository;
 
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private EntityManager em;
 
@@ -176,6 +192,48 @@ class AuthorityResourceIT {
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
     }
 
+    @Test
+    void createAndDeleteAuthorityRefreshesRegistry() throws Exception {
+        restAuthorityMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(authority)))
+            .andExpect(status().isCreated());
+        insertedAuthority = authority;
+
+        assertThat(authorityRegistry.getNames()).contains(authority.getName());
+
+        restAuthorityMockMvc.perform(delete(ENTITY_API_URL_ID, authority.getName())).andExpect(status().isNoContent());
+        insertedAuthority = null;
+
+        assertThat(authorityRegistry.getNames()).doesNotContain(authority.getName());
+    }
+
+    @Test
+    void authoritiesChangedByAnotherNodeAreReloaded() throws Exception {
+        assertThat(authorityRegistry.getNames()).doesNotContain(authority.getName());
+        // Written without refreshing the registry, as by another node
+        insertedAuthority = authorityRepository.saveAndFlush(authority);
+        assertThat(authorityRegistry.getNames()).doesNotContain(authority.getName());
+
+        CacheInvalidationBus otherNode = new CacheInvalidationBus(
+            new LoopbackTransport(applicationProperties.getCache().getInvalidation().getChannel()),
+            om,
+            new ConcurrentMapCacheManager(),
+            null,
+            Duration.ofHours(1),
+            100,
+            Clock.systemUTC(),
+            new SimpleMeterRegistry()
+        );
+        otherNode.start();
+        try {
+            otherNode.publish(Eviction.clear(CacheInvalidation.Type.REGION, AuthorityRegistry.REGION));
+        } finally {
+            otherNode.shutdown();
+        }
+
+        assertThat(authorityRegistry.getNames()).contains(authority.getName());
+    }
+
     protected long getRepositoryCount() {
         return authorityRepository.count();
     }
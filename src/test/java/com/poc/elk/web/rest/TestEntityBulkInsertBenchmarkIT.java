@@ -0,0 +1,103 @@
+package com.poc.elk.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.repository.TestEntityRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Benchmark comparing {@code POST /api/test-entities/bulk} with one {@code POST /api/test-entities} call per row.
+ * <p>
+ * Disabled by default. Run it on H2 with {@code ./mvnw verify -Dbenchmark=true -Dit.test=TestEntityBulkInsertBenchmarkIT},
+ * and on the MySQL Testcontainer by adding {@code -Pprod}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TestEntityBulkInsertBenchmarkIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TestEntityBulkInsertBenchmarkIT.class);
+
+    private static final String ENTITY_API_URL = "/api/test-entities";
+
+    private static final int ROWS = 5000;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private TestEntityRepository testEntityRepository;
+
+    @Autowired
+    private MockMvc restTestEntityMockMvc;
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    void compareBulkInsertWithSingleInserts() throws Exception {
+        List<Long> createdIds = new ArrayList<>();
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROWS; i++) {
+                String response = restTestEntityMockMvc
+                    .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(newEntity(i))))
+                    .andExpect(status().isCreated())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+                createdIds.add(om.readValue(response, TestEntity.class).getId());
+            }
+            double singleRowsPerSecond = rowsPerSecond(start);
+
+            start = System.nanoTime();
+            List<TestEntity> testEntities = IntStream.range(0, ROWS).mapToObj(TestEntityBulkInsertBenchmarkIT::newEntity).toList();
+            String response = restTestEntityMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(testEntities)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            double bulkRowsPerSecond = rowsPerSecond(start);
+            List<TestEntity> created = om.readValue(response, new TypeReference<>() {});
+            created.forEach(testEntity -> createdIds.add(testEntity.getId()));
+
+            LOG.info(
+                "Inserted {} rows: {} rows/s with single calls, {} rows/s with the bulk API ({}x)",
+                ROWS,
+                Math.round(singleRowsPerSecond),
+                Math.round(bulkRowsPerSecond),
+                Math.round(bulkRowsPerSecond / singleRowsPerSecond)
+            );
+            assertThat(created).hasSize(ROWS);
+        } finally {
+            testEntityRepository.deleteAllByIdInBatch(createdIds);
+        }
+    }
+
+    private static TestEntity newEntity(int i) {
+        return new TestEntity().name("benchmark-" + i);
+    }
+
+    private static double rowsPerSecond(long start) {
+        return ROWS / ((System.nanoTime() - start) / 1_000_000_000d);
+    }
+}
@@ -3,7 +3,10 @@ package com.poc.elk.web.rest;
 import static com.poc.elk.domain.TestEntityAsserts.*;
 import static com.poc.elk.web.rest.TestUtil.createUpdateProxyForBean;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -12,16 +15,24 @@ import com.poc.elk.IntegrationTest;
 import com.poc.elk.domain.TestEntity;
 import com.poc.elk.repository.TestEntityRepository;
 import jakarta.persistence.EntityManager;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -85,7 +96,8 @@ class TestEntityResourceIT {
     @AfterEach
     void cleanup() {
         if (insertedTestEntity != null) {
-            testEntityRepository.delete(insertedTestEntity);
+            // By id: the tests that update the entity leave a stale version in insertedTestEntity
+            testEntityRepository.deleteById(insertedTestEntity.getId());
             insertedTestEntity = null;
         }
     }
@@ -129,21 +141,177 @@ class TestEntityResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    void createTestEntitiesInBulk() throws Exception {
+        long databaseSizeBeforeCreate = getRepositoryCount();
+        List<TestEntity> testEntities = IntStream.range(0, 60).mapToObj(i -> createEntity()).toList();
+
+        // Create more testEntities than the JDBC batch size
+        restTestEntityMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(testEntities)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.length()").value(60))
+            .andExpect(jsonPath("$.[*].id").value(everyItem(notNullValue())));
+
+        // Validate the TestEntities in the database
+        assertThat(getRepositoryCount()).isEqualTo(databaseSizeBeforeCreate + 60);
+    }
+
+    @Test
+    @Transactional
+    void createTestEntitiesInBulkWithExistingId() throws Exception {
+        long databaseSizeBeforeCreate = getRepositoryCount();
+        List<TestEntity> testEntities = List.of(createEntity(), createEntity().id(1L));
+
+        // A bulk request containing an entity with an existing ID must fail as a whole
+        restTestEntityMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(testEntities)))
+            .andExpect(status().isBadRequest());
+
+        assertSameRepositoryCount(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createTestEntitiesInBulkWithEmptyList() throws Exception {
+        restTestEntityMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content("[]"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getAllTestEntities() throws Exception {
         // Initialize the database
         insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
 
-        // Get all the testEntityList
+        // Get all the testEntityList, from the page that starts with the inserted testEntity
         restTestEntityMockMvc
-            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .perform(get(ENTITY_API_URL + "?cursor={cursor}&sort=id,desc", TestEntityResource.encodeCursor(testEntity.getId() - 1)))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(testEntity.getId().intValue())))
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)));
     }
 
+    @Test
+    @Transactional
+    void getAllTestEntitiesWithoutPagingReturnsTheFirstPage() throws Exception {
+        // Initialize the database
+        testEntityRepository.saveAllAndFlush(
+            IntStream.rangeClosed(0, TestEntityResource.DEFAULT_PAGE_SIZE).mapToObj(i -> createEntity()).toList()
+        );
+
+        // Get the testEntityList without a cursor nor a size: bounded, with a link to the rest
+        restTestEntityMockMvc
+            .perform(get(ENTITY_API_URL))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(TestEntityResource.DEFAULT_PAGE_SIZE))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+    }
+
+    @Test
+    @Transactional
+    void getAllTestEntitiesWithCursor() throws Exception {
+        // Initialize the database
+        TestEntity first = testEntityRepository.saveAndFlush(createEntity());
+        TestEntity second = testEntityRepository.saveAndFlush(createEntity());
+        TestEntity third = testEntityRepository.saveAndFlush(createEntity());
+
+        // Get the first page, which must link to the next one
+        String link = restTestEntityMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor={cursor}&size=2", TestEntityResource.encodeCursor(first.getId() - 1)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LINK);
+
+        // Follow the cursor
+        String nextUrl = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        restTestEntityMockMvc
+            .perform(get(nextUrl))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllTestEntitiesWithInvalidCursor() throws Exception {
+        restTestEntityMockMvc.perform(get(ENTITY_API_URL + "?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportTestEntitiesIsGzippedOnlyWhenAccepted() throws Exception {
+        assertExportContentEncoding("gzip, deflate", "gzip");
+        assertExportContentEncoding("deflate;q=1.0, GZIP;q=0.5", "gzip");
+        assertExportContentEncoding("*", "gzip");
+        assertExportContentEncoding("gzip;q=0", null);
+        assertExportContentEncoding("gzip;q=0.0, *", null);
+        assertExportContentEncoding("x-gzipped, notgzip", null);
+        assertExportContentEncoding(null, null);
+    }
+
+    private void assertExportContentEncoding(String acceptEncoding, String expectedContentEncoding) throws Exception {
+        // Past the last id, so that nothing is exported
+        MockHttpServletRequestBuilder exportRequest = get(ENTITY_API_URL + "/export?from={from}", Long.MAX_VALUE);
+        if (acceptEncoding != null) {
+            exportRequest.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MvcResult mvcResult = restTestEntityMockMvc.perform(exportRequest).andExpect(request().asyncStarted()).andReturn();
+        restTestEntityMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andExpect(
+                expectedContentEncoding == null
+                    ? header().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                    : header().string(HttpHeaders.CONTENT_ENCODING, expectedContentEncoding)
+            );
+    }
+
+    @Test
+    void exportTestEntities() throws Exception {
+        // Not transactional: the export reads from its own transaction, on the async request thread
+        TestEntity first = testEntityRepository.saveAndFlush(createEntity());
+        TestEntity second = testEntityRepository.saveAndFlush(createUpdatedEntity());
+
+        try {
+            MvcResult mvcResult = restTestEntityMockMvc
+                .perform(get(ENTITY_API_URL + "/export?from={from}", first.getId() - 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String[] lines = restTestEntityMockMvc
+                .perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TestEntityResource.NDJSON_MEDIA_TYPE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+            assertThat(lines).hasSize(2);
+            assertTestEntityAllPropertiesEquals(first, om.readValue(lines[0], TestEntity.class));
+            assertTestEntityAllPropertiesEquals(second, om.readValue(lines[1], TestEntity.class));
+
+            // Resume after the first testEntity
+            mvcResult = restTestEntityMockMvc
+                .perform(get(ENTITY_API_URL + "/export?from={from}", first.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restTestEntityMockMvc
+                .perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(om.writeValueAsString(second) + "\n"));
+        } finally {
+            testEntityRepository.deleteAllById(List.of(first.getId(), second.getId()));
+        }
+    }
+
     @Test
     @Transactional
     void getTestEntity() throws Exception {
@@ -159,6 +327,27 @@ class TestEntityResourceIT {
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME));
     }
 
+    @Test
+    @Transactional
+    void getTestEntityWithETag() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+
+        String eTag = restTestEntityMockMvc
+            .perform(get(ENTITY_API_URL_ID, testEntity.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + testEntity.getVersion() + "\""))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        // The client already has this version
+        restTestEntityMockMvc
+            .perform(get(ENTITY_API_URL_ID, testEntity.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
     @Test
     @Transactional
     void getNonExistingTestEntity() throws Exception {
@@ -193,6 +382,99 @@ class TestEntityResourceIT {
         assertPersistedTestEntityToMatchAllProperties(updatedTestEntity);
     }
 
+    @Test
+    @Transactional
+    void putExistingTestEntityLoadsItOnce() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+        em.clear();
+
+        TestEntity updatedTestEntity = new TestEntity().id(testEntity.getId()).name(UPDATED_NAME);
+
+        // A PUT is one SELECT, served by the second-level cache outside of the tests, then one UPDATE
+        assertStatementCount(2, () ->
+            restTestEntityMockMvc
+                .perform(
+                    put(ENTITY_API_URL_ID, updatedTestEntity.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsBytes(updatedTestEntity))
+                )
+                .andExpect(status().isOk())
+        );
+
+        assertPersistedTestEntityToMatchAllProperties(updatedTestEntity);
+    }
+
+    @Test
+    @Transactional
+    void putExistingTestEntityWithoutIfMatch() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+        em.clear();
+
+        // Without a version, as sent by a client ignoring the ETags
+        TestEntity updatedTestEntity = new TestEntity().id(testEntity.getId()).name(UPDATED_NAME);
+
+        // The response holds the new version, and its ETag, rather than the version sent by the client
+        restTestEntityMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTestEntity.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(updatedTestEntity))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(testEntity.getVersion() + 1))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (testEntity.getVersion() + 1) + "\""));
+
+        assertThat(getPersistedTestEntity(testEntity).getVersion()).isEqualTo(testEntity.getVersion() + 1);
+        assertPersistedTestEntityToMatchAllProperties(updatedTestEntity);
+    }
+
+    @Test
+    @Transactional
+    void putExistingTestEntityWithIfMatch() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+        em.clear();
+
+        TestEntity updatedTestEntity = new TestEntity().id(testEntity.getId()).name(UPDATED_NAME);
+
+        restTestEntityMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTestEntity.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + testEntity.getVersion() + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(updatedTestEntity))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (testEntity.getVersion() + 1) + "\""));
+
+        assertThat(getPersistedTestEntity(testEntity).getVersion()).isEqualTo(testEntity.getVersion() + 1);
+        assertPersistedTestEntityToMatchAllProperties(updatedTestEntity);
+    }
+
+    @Test
+    @Transactional
+    void putExistingTestEntityWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+        em.clear();
+
+        TestEntity updatedTestEntity = new TestEntity().id(testEntity.getId()).name(UPDATED_NAME);
+
+        restTestEntityMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTestEntity.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (testEntity.getVersion() + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(updatedTestEntity))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        // Validate the TestEntity was not modified
+        assertThat(getPersistedTestEntity(testEntity).getName()).isEqualTo(DEFAULT_NAME);
+    }
+
     @Test
     @Transactional
     void putNonExistingTestEntity() throws Exception {
@@ -210,6 +492,26 @@ class TestEntityResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void putNonExistingTestEntityWithIfMatchAny() throws Exception {
+        long databaseSizeBeforeUpdate = getRepositoryCount();
+        testEntity.setId(longCount.incrementAndGet());
+
+        // If-Match: * requires the testEntity to exist
+        restTestEntityMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, testEntity.getId())
+                    .header(HttpHeaders.IF_MATCH, "*")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(testEntity))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        // Validate the TestEntity in the database
+        assertSameRepositoryCount(databaseSizeBeforeUpdate);
+    }
+
     @Test
     @Transactional
     void putWithIdMismatchTestEntity() throws Exception {
@@ -301,6 +603,50 @@ class TestEntityResourceIT {
         assertTestEntityUpdatableFieldsEquals(partialUpdatedTestEntity, getPersistedTestEntity(partialUpdatedTestEntity));
     }
 
+    @Test
+    @Transactional
+    void partialUpdateTestEntityWithPatchLoadsItOnce() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+        em.clear();
+
+        TestEntity partialUpdatedTestEntity = new TestEntity().id(testEntity.getId()).name(UPDATED_NAME);
+
+        // A PATCH is one SELECT, then one UPDATE of the changed columns
+        assertStatementCount(2, () ->
+            restTestEntityMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, partialUpdatedTestEntity.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(om.writeValueAsBytes(partialUpdatedTestEntity))
+                )
+                .andExpect(status().isOk())
+        );
+
+        assertPersistedTestEntityToMatchAllProperties(partialUpdatedTestEntity);
+    }
+
+    @Test
+    @Transactional
+    void patchTestEntityWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+
+        TestEntity partialUpdatedTestEntity = new TestEntity().id(testEntity.getId()).name(UPDATED_NAME);
+
+        restTestEntityMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedTestEntity.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (testEntity.getVersion() + 1) + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(om.writeValueAsBytes(partialUpdatedTestEntity))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        // Validate the TestEntity was not modified
+        assertThat(getPersistedTestEntity(testEntity).getName()).isEqualTo(DEFAULT_NAME);
+    }
+
     @Test
     @Transactional
     void patchNonExistingTestEntity() throws Exception {
@@ -371,6 +717,61 @@ class TestEntityResourceIT {
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
     }
 
+    /**
+     * Assert the number of JDBC statements issued by the given request, including the ones only sent when flushing.
+     */
+    protected void assertStatementCount(long expectedCount, Callable<?> request) throws Exception {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            request.call();
+            em.flush();
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(expectedCount);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    @Transactional
+    void deleteTestEntityWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        insertedTestEntity = testEntityRepository.saveAndFlush(testEntity);
+
+        long databaseSizeBeforeDelete = getRepositoryCount();
+
+        restTestEntityMockMvc
+            .perform(
+                delete(ENTITY_API_URL_ID, testEntity.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (testEntity.getVersion() + 1) + "\"")
+                    .accept(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        // Validate the TestEntity was not deleted
+        assertSameRepositoryCount(databaseSizeBeforeDelete);
+    }
+
+    @Test
+    @Transactional
+    void deleteNonExistingTestEntityWithIfMatch() throws Exception {
+        long databaseSizeBeforeDelete = getRepositoryCount();
+
+        for (String ifMatch : List.of("*", "\"0\"")) {
+            restTestEntityMockMvc
+                .perform(delete(ENTITY_API_URL_ID, Long.MAX_VALUE).header(HttpHeaders.IF_MATCH, ifMatch).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+        }
+
+        // Without a precondition, deleting a missing testEntity is still idempotent
+        restTestEntityMockMvc
+            .perform(delete(ENTITY_API_URL_ID, Long.MAX_VALUE).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        assertSameRepositoryCount(databaseSizeBeforeDelete);
+    }
+
     protected long getRepositoryCount() {
         return testEntityRepository.count();
     }
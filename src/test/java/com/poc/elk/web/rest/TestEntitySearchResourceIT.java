@@ -0,0 +1,152 @@
+package com.poc.elk.web.rest;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.elk.IntegrationTest;
+import com.poc.elk.domain.TestEntity;
+import com.poc.elk.repository.TestEntityRepository;
+import com.poc.elk.service.TestEntitySearchService;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link TestEntitySearchResource} REST controller.
+ * <p>
+ * Not transactional: the index is only updated when a transaction commits.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TestEntitySearchResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/test-entities";
+    private static final String SEARCH_API_URL = "/api/_search/test-entities";
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private TestEntityRepository testEntityRepository;
+
+    @Autowired
+    private TestEntitySearchService testEntitySearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc restTestEntityMockMvc;
+
+    private final List<Long> insertedIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanup() {
+        testEntityRepository.deleteAllById(insertedIds);
+        insertedIds.clear();
+        testEntitySearchService.rebuild();
+    }
+
+    private TestEntity create(String name) throws Exception {
+        TestEntity testEntity = om.readValue(
+            restTestEntityMockMvc
+                .perform(
+                    post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(new TestEntity().name(name)))
+                )
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray(),
+            TestEntity.class
+        );
+        insertedIds.add(testEntity.getId());
+        return testEntity;
+    }
+
+    @Test
+    void searchTestEntitiesByPrefix() throws Exception {
+        TestEntity exact = create("Zebulon Quartz");
+        TestEntity prefix = create("Zebulonian quartzite");
+        create("Unrelated");
+
+        restTestEntityMockMvc
+            .perform(get(SEARCH_API_URL + "?q=zebulon quartz"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(exact.getId().intValue(), prefix.getId().intValue())));
+
+        restTestEntityMockMvc
+            .perform(get(SEARCH_API_URL + "?q=zebulon&page=1&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(prefix.getId().intValue()));
+    }
+
+    @Test
+    void searchTestEntitiesFuzzy() throws Exception {
+        TestEntity testEntity = create("Xylophonist");
+
+        restTestEntityMockMvc
+            .perform(get(SEARCH_API_URL + "?q=xylofonist"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+        restTestEntityMockMvc
+            .perform(get(SEARCH_API_URL + "?q=xylofonist&fuzzy=true"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(testEntity.getId().intValue())));
+    }
+
+    @Test
+    void searchFollowsUpdatesAndDeletes() throws Exception {
+        TestEntity testEntity = create("Quokka");
+
+        restTestEntityMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/{id}", testEntity.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(testEntity.name("Wombat")))
+            )
+            .andExpect(status().isOk());
+        restTestEntityMockMvc.perform(get(SEARCH_API_URL + "?q=quokka")).andExpect(jsonPath("$", hasSize(0)));
+        restTestEntityMockMvc
+            .perform(get(SEARCH_API_URL + "?q=wombat"))
+            .andExpect(jsonPath("$.[*].id").value(contains(testEntity.getId().intValue())));
+
+        restTestEntityMockMvc.perform(delete(ENTITY_API_URL + "/{id}", testEntity.getId())).andExpect(status().isNoContent());
+        restTestEntityMockMvc.perform(get(SEARCH_API_URL + "?q=wombat")).andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void rebuildIndexesExistingTestEntities() throws Exception {
+        // Inserted behind the back of JPA, so only a rebuild can index it (the connections do not auto-commit)
+        Long id = Long.MAX_VALUE - 1;
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update("insert into test_entity (id, name, version) values (?, ?, 0)", id, "Pangolin")
+        );
+        insertedIds.add(id);
+        restTestEntityMockMvc.perform(get(SEARCH_API_URL + "?q=pangolin")).andExpect(jsonPath("$", hasSize(0)));
+
+        testEntitySearchService.rebuild();
+
+        restTestEntityMockMvc
+            .perform(get(SEARCH_API_URL + "?q=pangolin"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(id)));
+    }
+}
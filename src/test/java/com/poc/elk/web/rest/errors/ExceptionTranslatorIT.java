@@ -3,6 +3,7 @@ package com.poc.elk.web.rest.errors;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -85,6 +86,16 @@ class ExceptionTranslatorIT {
             .andExpect(jsonPath("$.detail").value("test authentication failed!"));
     }
 
+    @Test
+    void testPasswordHashingRejected() throws Exception {
+        mockMvc
+            .perform(get("/api/exception-translator-test/password-hashing-rejected"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"))
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.message").value("error.http.503"));
+    }
+
     @Test
     void testMethodNotSupported() throws Exception {
         mockMvc
@@ -1,7 +1,9 @@
 package com.poc.elk.web.rest.errors;
 
+import com.poc.elk.security.PasswordHashingRejectedException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -42,6 +44,11 @@ public class ExceptionTranslatorTestController {
         throw new BadCredentialsException("test authentication failed!");
     }
 
+    @GetMapping("/password-hashing-rejected")
+    public void passwordHashingRejected() {
+        throw new PasswordHashingRejectedException(Duration.ofSeconds(2));
+    }
+
     @GetMapping("/response-status")
     public void exceptionWithResponseStatus() {
         throw new TestResponseStatusException();